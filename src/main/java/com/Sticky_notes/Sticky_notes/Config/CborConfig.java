@@ -0,0 +1,21 @@
+package com.Sticky_notes.Sticky_notes.Config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * CBOR (RFC 8949) as an alternative to JSON for note payloads. Clients opt in
+ * with Accept: application/cbor; JSON stays the default for everyone else.
+ */
+@Configuration
+public class CborConfig {
+
+    // Replaces Spring MVC's default CBOR converter so CBOR shares the application's Jackson settings
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
@@ -0,0 +1,73 @@
+package com.Sticky_notes.Sticky_notes.Config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Puts a {@link BoundedDataSource} in front of the Hikari pool, sized from it.
+ *
+ * Sizing: keep spring.datasource.hikari.maximum-pool-size near
+ * (2 x database cores) + 1 and divide the database's max_connections by the
+ * number of instances; more connections only add contention in Postgres.
+ * The permit count defaults to the pool size and is never allowed above it,
+ * so callers queue on the semaphore rather than inside Hikari.
+ */
+@Configuration
+public class DataSourceConfig {
+    private static final Logger logger = LoggerFactory.getLogger(DataSourceConfig.class);
+
+    // Static: post-processors are created before the beans they process
+    @Bean
+    public static BeanPostProcessor boundedDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof HikariDataSource hikari)
+                        || !environment.getProperty("app.datasource.connection-limit.enabled", Boolean.class, true)) {
+                    return bean;
+                }
+                int poolSize = hikari.getMaximumPoolSize();
+                int permits = environment.getProperty("app.datasource.connection-limit.permits", Integer.class, poolSize);
+                if (permits > poolSize) {
+                    logger.warn("app.datasource.connection-limit.permits={} exceeds the pool size {}; using {}",
+                        permits, poolSize, poolSize);
+                    permits = poolSize;
+                }
+                long acquireTimeoutMs = environment.getProperty(
+                    "app.datasource.connection-limit.acquire-timeout-ms", Long.class, hikari.getConnectionTimeout());
+                logger.info("Database connections limited to {} (pool size {}), acquire timeout {}ms",
+                    permits, poolSize, acquireTimeoutMs);
+                return new BoundedDataSource(hikari, permits, acquireTimeoutMs);
+            }
+        };
+    }
+
+    // Exported as db.connection.permits.*
+    @Bean
+    public MeterBinder connectionPermitMetrics(DataSource dataSource) {
+        return registry -> {
+            if (!(dataSource instanceof BoundedDataSource bounded)) {
+                return;
+            }
+            Gauge.builder("db.connection.permits.available", bounded, BoundedDataSource::getAvailablePermits)
+                .description("Connections that can still be checked out")
+                .register(registry);
+            Gauge.builder("db.connection.permits.waiting", bounded, BoundedDataSource::getWaitingCount)
+                .description("Callers waiting for a database connection")
+                .register(registry);
+            FunctionCounter.builder("db.connection.permits.timeouts", bounded, BoundedDataSource::getTimeoutCount)
+                .description("Callers that gave up waiting for a database connection")
+                .register(registry);
+        };
+    }
+}
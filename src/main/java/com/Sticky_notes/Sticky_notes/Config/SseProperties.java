@@ -0,0 +1,144 @@
+package com.Sticky_notes.Sticky_notes.Config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tuning for the SSE broadcast hub (app.sse.* properties).
+ */
+@Component
+@ConfigurationProperties(prefix = "app.sse")
+public class SseProperties {
+    // Events buffered per subscriber before it is treated as too slow and disconnected
+    private int queueCapacity = 256;
+
+    // Threads draining subscriber queues; each subscriber is drained by at most one at a time
+    private int senderThreads = 4;
+
+    // Drain each subscriber on its own virtual thread instead of the senderThreads pool
+    private boolean virtualThreads = false;
+
+    // Recent events kept per topic for Last-Event-ID replay
+    private int replayBufferSize = 256;
+
+    // Topics with a replay buffer; the least recently published one is dropped beyond this
+    private int maxReplayTopics = 10000;
+
+    // Connections are completed after this long (0 = never) and browsers reconnect with Last-Event-ID
+    private long timeoutMs = 1800000;
+
+    // A comment line is sent to connections with nothing else written for this long
+    private long heartbeatIntervalMs = 15000;
+
+    // Connections with no successful write for this long are reaped; must exceed the heartbeat interval
+    private long idleTimeoutMs = 45000;
+
+    // Open connections per instance; further ones are refused with 503
+    private int maxConnections = 10000;
+
+    // Open connections per authenticated user (tabs, devices); further ones are refused with 429
+    private int maxConnectionsPerUser = 8;
+
+    // On shutdown, how long connections get to flush a retry hint before they are closed outright
+    private long shutdownDrainMs = 5000;
+
+    // Retry hint sent on shutdown, so clients reconnect to another instance shortly after
+    private long reconnectDelayMs = 1000;
+
+    // Getters and Setters
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getSenderThreads() {
+        return senderThreads;
+    }
+
+    public void setSenderThreads(int senderThreads) {
+        this.senderThreads = senderThreads;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public int getReplayBufferSize() {
+        return replayBufferSize;
+    }
+
+    public void setReplayBufferSize(int replayBufferSize) {
+        this.replayBufferSize = replayBufferSize;
+    }
+
+    public int getMaxReplayTopics() {
+        return maxReplayTopics;
+    }
+
+    public void setMaxReplayTopics(int maxReplayTopics) {
+        this.maxReplayTopics = maxReplayTopics;
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    public void setTimeoutMs(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+
+    public long getHeartbeatIntervalMs() {
+        return heartbeatIntervalMs;
+    }
+
+    public void setHeartbeatIntervalMs(long heartbeatIntervalMs) {
+        this.heartbeatIntervalMs = heartbeatIntervalMs;
+    }
+
+    public long getIdleTimeoutMs() {
+        return idleTimeoutMs;
+    }
+
+    public void setIdleTimeoutMs(long idleTimeoutMs) {
+        this.idleTimeoutMs = idleTimeoutMs;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public int getMaxConnectionsPerUser() {
+        return maxConnectionsPerUser;
+    }
+
+    public void setMaxConnectionsPerUser(int maxConnectionsPerUser) {
+        this.maxConnectionsPerUser = maxConnectionsPerUser;
+    }
+
+    public long getShutdownDrainMs() {
+        return shutdownDrainMs;
+    }
+
+    public void setShutdownDrainMs(long shutdownDrainMs) {
+        this.shutdownDrainMs = shutdownDrainMs;
+    }
+
+    public long getReconnectDelayMs() {
+        return reconnectDelayMs;
+    }
+
+    public void setReconnectDelayMs(long reconnectDelayMs) {
+        this.reconnectDelayMs = reconnectDelayMs;
+    }
+}
@@ -0,0 +1,40 @@
+package com.Sticky_notes.Sticky_notes.Config;
+
+import com.Sticky_notes.Sticky_notes.realtime.NoteDragSocketHandler;
+import com.Sticky_notes.Sticky_notes.security.JwtHandshakeInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.NonNull;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * WebSocket endpoint for collaborative dragging, next to the SSE stream:
+ * /api/notes/ws/drag?board=main|profile&username=... (not /api/notes/ws, which
+ * the PUT /api/notes/{id} mapping would claim first and answer with 405).
+ */
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+    private final NoteDragSocketHandler dragHandler;
+    private final JwtHandshakeInterceptor handshakeInterceptor;
+    private final String[] allowedOrigins;
+
+    public WebSocketConfig(
+            NoteDragSocketHandler dragHandler,
+            JwtHandshakeInterceptor handshakeInterceptor,
+            @Value("${app.notes.drag.allowed-origins:http://localhost:*,http://192.168.10.*:5173,https://*.run.app}")
+            String[] allowedOrigins) {
+        this.dragHandler = dragHandler;
+        this.handshakeInterceptor = handshakeInterceptor;
+        this.allowedOrigins = allowedOrigins;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(@NonNull WebSocketHandlerRegistry registry) {
+        registry.addHandler(dragHandler, "/api/notes/ws/drag")
+            .addInterceptors(handshakeInterceptor)
+            .setAllowedOriginPatterns(allowedOrigins);
+    }
+}
@@ -1,20 +1,52 @@
 package com.Sticky_notes.Sticky_notes.controllers;
 
 import com.Sticky_notes.Sticky_notes.models.Note;
+import com.Sticky_notes.Sticky_notes.payload.request.NoteBatchRequest;
+import com.Sticky_notes.Sticky_notes.payload.response.NoteBatchResponse;
+import com.Sticky_notes.Sticky_notes.payload.response.NoteChangesResponse;
+import com.Sticky_notes.Sticky_notes.payload.response.NotePageResponse;
+import com.Sticky_notes.Sticky_notes.payload.response.NoteView;
+import com.Sticky_notes.Sticky_notes.realtime.NoteBroadcastHub;
+import com.Sticky_notes.Sticky_notes.realtime.NoteChangedEvent;
+import com.Sticky_notes.Sticky_notes.realtime.NoteTopics;
 import com.Sticky_notes.Sticky_notes.repository.NoteRepository;
+import com.Sticky_notes.Sticky_notes.services.NoteBatchService;
+import com.Sticky_notes.Sticky_notes.services.NoteChangeLog;
+import com.Sticky_notes.Sticky_notes.services.NoteFeedCache;
+import com.Sticky_notes.Sticky_notes.services.NoteJsonStreamer;
+import com.Sticky_notes.Sticky_notes.services.NotePositionBuffer;
+import com.Sticky_notes.Sticky_notes.services.NoteService;
+import com.Sticky_notes.Sticky_notes.services.NoteSearchIndex;
+import com.Sticky_notes.Sticky_notes.services.NoteSpatialIndex;
+import com.Sticky_notes.Sticky_notes.services.NoteVersions;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.security.core.Authentication;
 
 import jakarta.validation.Valid;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.IOException;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,79 +56,262 @@ import org.slf4j.LoggerFactory;
 public class NoteController {
     private static final Logger logger = LoggerFactory.getLogger(NoteController.class);
 
+    // Page sizes for keyset-paginated list requests
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
+    // Notes returned by one /viewport request
+    private static final int DEFAULT_VIEWPORT_LIMIT = 500;
+    private static final int MAX_VIEWPORT_LIMIT = 2000;
+
+    // Upper bound on operations in one /batch request
+    private static final int MAX_BATCH_OPERATIONS = 1000;
+
+    // Changes returned by one /changes request
+    private static final int DEFAULT_CHANGES_LIMIT = 500;
+    private static final int MAX_CHANGES_LIMIT = 2000;
+
     private final NoteRepository noteRepository;
 
-    // List of connected SSE clients
-    private final CopyOnWriteArrayList<SseEmitter> clients = new CopyOnWriteArrayList<>();
+    // Topic-based fan-out to connected SSE clients
+    private final NoteBroadcastHub broadcastHub;
+
+    // Coalesces drag updates; reads overlay its pending positions
+    private final NotePositionBuffer positionBuffer;
+
+    // Applies bulk mutations with JDBC batching
+    private final NoteBatchService noteBatchService;
+
+    // Read-through cache for the list queries; invalidated by NoteChangedEvent
+    private final NoteFeedCache feedCache;
+
+    // Inverted index behind /search
+    private final NoteSearchIndex searchIndex;
+
+    // Grid of note positions behind /viewport
+    private final NoteSpatialIndex spatialIndex;
+
+    // Per-board version counters behind the list ETags
+    private final NoteVersions versions;
+
+    // Writes ?stream=true list responses row by row
+    private final NoteJsonStreamer jsonStreamer;
+
+    // Change sequence and tombstones behind /changes
+    private final NoteChangeLog changeLog;
 
-    public NoteController(NoteRepository noteRepository) {
+    // Creates and done updates, which also maintain the per-user note counters
+    private final NoteService noteService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public NoteController(NoteRepository noteRepository, NoteBroadcastHub broadcastHub,
+            NotePositionBuffer positionBuffer, NoteBatchService noteBatchService,
+            NoteFeedCache feedCache, NoteSearchIndex searchIndex, NoteSpatialIndex spatialIndex,
+            NoteVersions versions, NoteJsonStreamer jsonStreamer, NoteChangeLog changeLog,
+            NoteService noteService, ApplicationEventPublisher eventPublisher) {
         this.noteRepository = noteRepository;
+        this.broadcastHub = broadcastHub;
+        this.positionBuffer = positionBuffer;
+        this.noteBatchService = noteBatchService;
+        this.feedCache = feedCache;
+        this.searchIndex = searchIndex;
+        this.spatialIndex = spatialIndex;
+        this.versions = versions;
+        this.jsonStreamer = jsonStreamer;
+        this.changeLog = changeLog;
+        this.noteService = noteService;
+        this.eventPublisher = eventPublisher;
     }
 
-    // SSE stream to send updates to connected clients
+    /**
+     * SSE stream of note changes for one board. Browsers resend the id of the
+     * last event they saw as Last-Event-ID when reconnecting; missed events are
+     * replayed, or a "snapshot" event with the board's notes is sent first if
+     * they are no longer buffered. With snapshot=true a fresh connection also
+     * starts with a "snapshot" event, so a page loads and follows the board
+     * with one request; the events after it neither skip nor repeat a change.
+     * @param board "main" (default) or "profile"
+     * @param username Owner of the profile board; required when board is "profile"
+     * @param snapshot Start a fresh connection with the board's current notes
+     * @param lastEventId Id of the last event received before a reconnect
+     * @param authentication Present when the request carries a valid JWT
+     * @return The SSE emitter, or 400 when a profile board is requested without a username,
+     *         429 when the user has too many connections open, 503 when the instance does
+     */
     @GetMapping(value = "/sse", produces = "text/event-stream")
-    public SseEmitter streamnotes() {
-        SseEmitter emitter = new SseEmitter();
-        clients.add(emitter);
+    public ResponseEntity<SseEmitter> streamnotes(
+            @RequestParam(required = false, defaultValue = "main") String board,
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false, defaultValue = "false") boolean snapshot,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            Authentication authentication) {
+        Map<String, Supplier<? extends Collection<?>>> topics = sseTopics(board, username, authentication);
+        if (topics == null) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return ResponseEntity.ok(broadcastHub.subscribe(topics, lastEventId, ownerOf(authentication), snapshot));
+    }
 
-        emitter.onCompletion(() -> clients.remove(emitter));
-        emitter.onTimeout(() -> clients.remove(emitter));
+    /**
+     * Binary form of the SSE stream for clients that send
+     * Accept: application/cbor-seq. Each event is one CBOR map with "id",
+     * "event" and "data"; parameters, replay and snapshots are as for /sse.
+     */
+    @GetMapping(value = "/sse", produces = NoteBroadcastHub.CBOR_SEQ_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> streamnotesCbor(
+            @RequestParam(required = false, defaultValue = "main") String board,
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false, defaultValue = "false") boolean snapshot,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            Authentication authentication) {
+        Map<String, Supplier<? extends Collection<?>>> topics = sseTopics(board, username, authentication);
+        if (topics == null) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(NoteBroadcastHub.CBOR_SEQ_VALUE))
+            .body(broadcastHub.subscribeCbor(topics, lastEventId, ownerOf(authentication), snapshot));
+    }
 
-        return emitter;
+    // Whose per-user connection limit an SSE connection counts against; anonymous viewers only count globally
+    private static String ownerOf(Authentication authentication) {
+        return authentication != null ? authentication.getName() : null;
+    }
+
+    // Topics of an SSE subscription, each with the query that rebuilds its state if replay is impossible;
+    // null when a profile board is requested without a username
+    private Map<String, Supplier<? extends Collection<?>>> sseTopics(
+            String board, String username, Authentication authentication) {
+        Map<String, Supplier<? extends Collection<?>>> topics = new HashMap<>();
+        if ("profile".equals(board)) {
+            if (username == null || username.isEmpty()) {
+                return null;
+            }
+            topics.put(NoteTopics.profile(username),
+                () -> positionBuffer.overlayViews(feedCache.findByUsernameAndIsPrivateFalseAndBoardType(username, "profile")));
+            // Private notes are only streamed to their authenticated owner
+            if (authentication != null && username.equals(authentication.getName())) {
+                topics.put(NoteTopics.privateNotes(username),
+                    () -> positionBuffer.overlayViews(feedCache.findByUsernameAndIsPrivateTrue(username)));
+            }
+        } else {
+            topics.put(NoteTopics.MAIN, () -> positionBuffer.overlayViews(feedCache.findByIsPrivateFalseAndBoardType("main")));
+        }
+        return topics;
     }
 
     @GetMapping
-    public ResponseEntity<List<Note>> getAllnotes(@RequestParam(required = false) String username) {
+    public ResponseEntity<?> getAllnotes(
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
+            WebRequest webRequest) {
+        String scope = NoteVersions.scopeOf("main", username != null && !username.isEmpty() ? username : null);
+        if (isNotModified(webRequest, scope)) {
+            return null;
+        }
         try {
-            List<Note> notes;
+            if (isPageRequest(after, limit)) {
+                if (username != null && !username.isEmpty()) {
+                    return fetchPage(after, limit, (beforeId, pageLimit) -> noteRepository
+                        .findViewsByUsernameAndIsPrivateFalseAndBoardTypeAndIdLessThanOrderByIdDesc(username, "main", beforeId, pageLimit));
+                }
+                return fetchPage(after, limit, (beforeId, pageLimit) -> noteRepository
+                    .findViewsByIsPrivateFalseAndBoardTypeAndIdLessThanOrderByIdDesc("main", beforeId, pageLimit));
+            }
+
+            List<NoteView> notes;
             
             if (username != null && !username.isEmpty()) {
                 // Get user's public notes for the main board
-                notes = noteRepository.findByUsernameAndIsPrivateFalseAndBoardType(username, "main");
+                notes = feedCache.findByUsernameAndIsPrivateFalseAndBoardType(username, "main");
             } else {
                 // Get all public notes for the main board (for guests)
-                notes = noteRepository.findByIsPrivateFalseAndBoardType("main");
+                notes = feedCache.findByIsPrivateFalseAndBoardType("main");
             }
             
             // Sort by creation time (most recent first)
-            List<Note> sortednotes = notes.stream()
-                .sorted(Comparator.comparing(Note::getId).reversed())
+            List<NoteView> sortednotes = notes.stream()
+                .sorted(Comparator.comparing(NoteView::id).reversed())
                 .collect(java.util.stream.Collectors.toList());
             
             if (sortednotes.isEmpty()) {
                 return new ResponseEntity<>(HttpStatus.NO_CONTENT);
             }
             
-            return new ResponseEntity<>(sortednotes, HttpStatus.OK);
+            return new ResponseEntity<>(positionBuffer.overlayViews(sortednotes), HttpStatus.OK);
         } catch (Exception e) {
             e.printStackTrace();
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
     
+    /**
+     * Streamed form of GET /api/notes: notes are written to the response as
+     * they are read, newest first, so memory does not grow with the board.
+     * Always 200 with a JSON array, which may be empty.
+     */
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllnotes(
+            @RequestParam(required = false) String username,
+            WebRequest webRequest) {
+        boolean forUser = username != null && !username.isEmpty();
+        if (isNotModified(webRequest, NoteVersions.scopeOf("main", forUser ? username : null))) {
+            return null;
+        }
+        if (forUser) {
+            return streamNotes(webRequest, (last, limit) -> noteRepository
+                .findViewsByUsernameAndIsPrivateFalseAndBoardTypeAndIdLessThanOrderByIdDesc(username, "main", idBefore(last), limit));
+        }
+        return streamNotes(webRequest, (last, limit) -> noteRepository
+            .findViewsByIsPrivateFalseAndBoardTypeAndIdLessThanOrderByIdDesc("main", idBefore(last), limit));
+    }
+
     @GetMapping("/profile/{username}")
-    public ResponseEntity<List<Note>> getUserProfilenotes(
+    public ResponseEntity<?> getUserProfilenotes(
             @PathVariable String username,
-            @RequestParam(required = false) Boolean isPrivate) {
+            @RequestParam(required = false) Boolean isPrivate,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
+            WebRequest webRequest) {
+        if (isNotModified(webRequest, NoteVersions.userScope(username))) {
+            return null;
+        }
         try {
-            List<Note> profilenotes;
+            if (isPageRequest(after, limit)) {
+                if (isPrivate == null) {
+                    return fetchPage(after, limit, (beforeId, pageLimit) -> noteRepository
+                        .findViewsByUsernameAndBoardTypeAndIdLessThanOrderByIdDesc(username, "profile", beforeId, pageLimit));
+                }
+                if (isPrivate) {
+                    return fetchPage(after, limit, (beforeId, pageLimit) -> noteRepository
+                        .findViewsByUsernameAndIsPrivateTrueAndBoardTypeAndIdLessThanOrderByIdDesc(username, "profile", beforeId, pageLimit));
+                }
+                return fetchPage(after, limit, (beforeId, pageLimit) -> noteRepository
+                    .findViewsByUsernameAndIsPrivateFalseAndBoardTypeAndIdLessThanOrderByIdDesc(username, "profile", beforeId, pageLimit));
+            }
+
+            List<NoteView> profilenotes;
             
             // If isPrivate parameter is provided, filter by privacy status
             if (isPrivate != null) {
                 if (isPrivate) {
                     // Get only private profile notes
-                    profilenotes = noteRepository.findByUsernameAndIsPrivateTrueAndBoardType(username, "profile");
+                    profilenotes = feedCache.findByUsernameAndIsPrivateTrueAndBoardType(username, "profile");
                 } else {
                     // Get only public profile notes
-                    profilenotes = noteRepository.findByUsernameAndIsPrivateFalseAndBoardType(username, "profile");
+                    profilenotes = feedCache.findByUsernameAndIsPrivateFalseAndBoardType(username, "profile");
                 }
             } else {
                 // Get all profile notes (both public and private)
-                profilenotes = noteRepository.findByUsernameAndBoardType(username, "profile");
+                profilenotes = feedCache.findByUsernameAndBoardType(username, "profile");
             }
             
-            // Sort by creation time (newest first)
-            profilenotes.sort(Comparator.comparing(Note::getId).reversed());
+            // Sort by creation time (newest first); cached lists are shared, so sort a copy
+            profilenotes = profilenotes.stream()
+                .sorted(Comparator.comparing(NoteView::id).reversed())
+                .collect(java.util.stream.Collectors.toList());
             
             logger.debug("Found {} profile notes for user: {} (isPrivate={})", 
                 profilenotes.size(), username, isPrivate);
@@ -105,7 +320,7 @@ public class NoteController {
                 return new ResponseEntity<>(HttpStatus.NO_CONTENT);
             }
             
-            return new ResponseEntity<>(profilenotes, HttpStatus.OK);
+            return new ResponseEntity<>(positionBuffer.overlayViews(profilenotes), HttpStatus.OK);
         } catch (Exception e) {
             logger.error("Error retrieving profile notes for user {}: {}", username, e.getMessage(), e);
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
@@ -113,17 +328,29 @@ public class NoteController {
     }
     
     @GetMapping("/user/{username}")
-    public ResponseEntity<List<Note>> getnotesByUsername(@PathVariable String username) {
+    public ResponseEntity<?> getnotesByUsername(
+            @PathVariable String username,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
+            WebRequest webRequest) {
+        if (isNotModified(webRequest, NoteVersions.userScope(username))) {
+            return null;
+        }
         try {
+            if (isPageRequest(after, limit)) {
+                return fetchPage(after, limit, (beforeId, pageLimit) -> noteRepository
+                    .findViewsByUsernameAndBoardTypeAndIdLessThanOrderByIdDesc(username, "profile", beforeId, pageLimit));
+            }
+
             // Get only profile board notes for this user
-            List<Note> profilenotes = noteRepository.findByUsernameAndBoardType(username, "profile");
+            List<NoteView> profilenotes = feedCache.findByUsernameAndBoardType(username, "profile");
             
             logger.debug("Found {} profile notes for user: {}", profilenotes.size(), username);
             
             // Log all profile notes for debugging
-            for (Note note : profilenotes) {
+            for (NoteView note : profilenotes) {
                 logger.trace("Profile note - ID: {}, Text: {}, BoardType: {}, IsPrivate: {}", 
-                    note.getId(), note.getText(), note.getBoardType(), note.getIsPrivate());
+                    note.id(), note.text(), note.boardType(), note.isPrivate());
             }
                 
             if (profilenotes.isEmpty()) {
@@ -131,41 +358,41 @@ public class NoteController {
                 return new ResponseEntity<>(HttpStatus.NO_CONTENT);
             }
             logger.debug("Returning {} profile notes with HTTP 200 OK", profilenotes.size());
-            return new ResponseEntity<>(profilenotes, HttpStatus.OK);
+            return new ResponseEntity<>(positionBuffer.overlayViews(profilenotes), HttpStatus.OK);
         } catch (Exception e) {
             e.printStackTrace();
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
     
+    // Streamed form of GET /api/notes/user/{username}; see streamAllnotes
+    @GetMapping(value = "/user/{username}", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamnotesByUsername(
+            @PathVariable String username,
+            WebRequest webRequest) {
+        if (isNotModified(webRequest, NoteVersions.userScope(username))) {
+            return null;
+        }
+        return streamNotes(webRequest, (last, limit) -> noteRepository
+            .findViewsByUsernameAndBoardTypeAndIdLessThanOrderByIdDesc(username, "profile", idBefore(last), limit));
+    }
+
     @GetMapping("/user/{username}/private")
-    public ResponseEntity<List<Note>> getPrivatenotesByUsername(@PathVariable String username) {
+    public ResponseEntity<List<NoteView>> getPrivatenotesByUsername(@PathVariable String username, WebRequest webRequest) {
+        if (isNotModified(webRequest, NoteVersions.userScope(username))) {
+            return null;
+        }
         try {
-            // Get only private notes for this user
-            List<Note> privatenotes = noteRepository.findByUsernameAndIsPrivateTrue(username);
-            
-            logger.debug("Found {} private notes for user: {}", privatenotes.size(), username);
+            // Private profile notes for this user; for backward compatibility, all their
+            // private notes if none has boardType="profile" (decided in the query)
+            List<NoteView> privateProfilenotes = feedCache.findPrivateProfileViewsByUsername(username);
             
-            // For backward compatibility, if there are no private notes with boardType="profile",
-            // return all private notes for this user
-            boolean hasPrivateProfileNotes = privatenotes.stream()
-                .anyMatch(note -> "profile".equals(note.getBoardType()));
-                
-            List<Note> privateProfilenotes;
-            if (hasPrivateProfileNotes) {
-                // If there are private profile notes, filter to include only those
-                privateProfilenotes = privatenotes.stream()
-                    .filter(note -> "profile".equals(note.getBoardType()))
-                    .collect(java.util.stream.Collectors.toList());
-            } else {
-                // For backward compatibility, if no private profile notes exist, return all private notes
-                privateProfilenotes = privatenotes;
-            }
+            logger.debug("Found {} private notes for user: {}", privateProfilenotes.size(), username);
                 
             if (privateProfilenotes.isEmpty()) {
                 return new ResponseEntity<>(HttpStatus.NO_CONTENT);
             }
-            return new ResponseEntity<>(privateProfilenotes, HttpStatus.OK);
+            return new ResponseEntity<>(positionBuffer.overlayViews(privateProfilenotes), HttpStatus.OK);
         } catch (Exception e) {
             e.printStackTrace();
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
@@ -173,84 +400,316 @@ public class NoteController {
     }
     
     @GetMapping("/user/{username}/public")
-    public ResponseEntity<List<Note>> getPublicnotesByUsername(@PathVariable String username) {
+    public ResponseEntity<List<NoteView>> getPublicnotesByUsername(@PathVariable String username, WebRequest webRequest) {
+        if (isNotModified(webRequest, NoteVersions.userScope(username))) {
+            return null;
+        }
         try {
             // Get only public notes for this user
-            List<Note> notes = noteRepository.findByUsernameAndIsPrivateFalse(username);
+            List<NoteView> notes = feedCache.findByUsernameAndIsPrivateFalse(username);
             if (notes.isEmpty()) {
                 return new ResponseEntity<>(HttpStatus.NO_CONTENT);
             }
-            return new ResponseEntity<>(notes, HttpStatus.OK);
+            return new ResponseEntity<>(positionBuffer.overlayViews(notes), HttpStatus.OK);
         } catch (Exception e) {
             e.printStackTrace();
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
-    @PostMapping
-    public ResponseEntity<Note> createnote(@Valid @RequestBody Note note) {
+    /**
+     * Full-text search over note text. Every word of q must match, either
+     * exactly or as a prefix; results are ranked best match first.
+     * @param q Search text
+     * @param username Only notes of this user
+     * @param board Only notes on this board ("main" or "profile")
+     * @param after Cursor from a previous page
+     * @param limit Page size, default 50, at most 200
+     * @param authentication Present when the request carries a valid JWT; only its own private notes are searched
+     * @return 200 with a page, 204 when nothing matches, 400 for a blank query or bad cursor,
+     *         503 while the index is still loading
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchNotes(
+            @RequestParam String q,
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String board,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
+            Authentication authentication) {
+        if (q.isBlank()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (!searchIndex.isReady()) {
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
         try {
-            // Initialize done to false if null
-            note.setDone(note.isDone());
-            
-            // Ensure boardType is set
-            if (note.getBoardType() == null) {
-                note.setBoardType("main"); // Default to main board if not specified
+            int offset;
+            try {
+                // Ranked results have no stable key, so the cursor carries the offset of the next page
+                offset = after != null ? Math.toIntExact(NotePageResponse.decodeCursor(after)) : 0;
+            } catch (IllegalArgumentException | ArithmeticException e) {
+                logger.debug("Rejecting search request: {}", e.getMessage());
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
             }
-            
-            // Validate that boardType is either "main" or "profile"
-            if (!"main".equals(note.getBoardType()) && !"profile".equals(note.getBoardType())) {
-                note.setBoardType("main"); // Default to main if invalid value
+            int pageSize = Math.min(Math.max(limit != null ? limit : DEFAULT_PAGE_SIZE, 1), MAX_PAGE_SIZE);
+            String viewer = authentication != null ? authentication.getName() : null;
+
+            List<Long> ids = searchIndex.search(q, viewer, username, board, offset, pageSize + 1);
+            String nextCursor = null;
+            if (ids.size() > pageSize) {
+                ids = ids.subList(0, pageSize);
+                nextCursor = NotePageResponse.encodeCursor((long) offset + pageSize);
             }
-            
-            // Ensure isPrivate is set
-            if (note.getIsPrivate() == null) {
-                note.setIsPrivate(false);
+
+            // Load the page in rank order; visibility is checked again on the stored rows
+            Map<Long, NoteView> byId = new HashMap<>();
+            for (NoteView note : noteRepository.findViewsByIdIn(ids)) {
+                byId.put(note.id(), note);
+            }
+            List<NoteView> notes = ids.stream()
+                .map(byId::get)
+                .filter(note -> note != null && NoteSearchIndex.isVisible(note, viewer))
+                .collect(java.util.stream.Collectors.toList());
+            if (notes.isEmpty()) {
+                return new ResponseEntity<>(HttpStatus.NO_CONTENT);
             }
+            return new ResponseEntity<>(new NotePageResponse<>(positionBuffer.overlayViews(notes), nextCursor), HttpStatus.OK);
+        } catch (Exception e) {
+            logger.error("Error searching notes: {}", e.getMessage(), e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Notes whose position lies inside the visible rectangle (bounds inclusive),
+     * newest first, so clients of large boards only load what is on screen.
+     * @param board "main" (default) or "profile"
+     * @param username Owner of the profile board; required when board is "profile"
+     * @param limit Maximum number of notes, default 500, at most 2000
+     * @param authentication Present when the request carries a valid JWT; only its own private notes are returned
+     * @return 200 with the notes, 204 if none, 400 for an inverted rectangle or missing username,
+     *         503 while the index is still loading
+     */
+    @GetMapping("/viewport")
+    public ResponseEntity<List<NoteView>> getnotesInViewport(
+            @RequestParam int minX,
+            @RequestParam int minY,
+            @RequestParam int maxX,
+            @RequestParam int maxY,
+            @RequestParam(required = false, defaultValue = "main") String board,
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) Integer limit,
+            Authentication authentication) {
+        if (minX > maxX || minY > maxY || ("profile".equals(board) && (username == null || username.isEmpty()))) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (!spatialIndex.isReady()) {
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        try {
+            String viewer = authentication != null ? authentication.getName() : null;
+            int maxNotes = Math.min(Math.max(limit != null ? limit : DEFAULT_VIEWPORT_LIMIT, 1), MAX_VIEWPORT_LIMIT);
+            List<Long> ids = spatialIndex.query(
+                NoteSpatialIndex.boardKey(board, username), viewer, minX, minY, maxX, maxY, maxNotes);
+            if (ids.isEmpty()) {
+                return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+            }
+
+            // Load in index order; visibility is checked again on the stored rows
+            Map<Long, NoteView> byId = new HashMap<>();
+            for (NoteView note : noteRepository.findViewsByIdIn(ids)) {
+                byId.put(note.id(), note);
+            }
+            List<NoteView> notes = ids.stream()
+                .map(byId::get)
+                .filter(note -> note != null && NoteSearchIndex.isVisible(note, viewer))
+                .collect(java.util.stream.Collectors.toList());
+            if (notes.isEmpty()) {
+                return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+            }
+            return new ResponseEntity<>(positionBuffer.overlayViews(notes), HttpStatus.OK);
+        } catch (Exception e) {
+            logger.error("Error retrieving viewport notes: {}", e.getMessage(), e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Delta sync: what changed on a board after a sequence number, so a
+     * reconnecting client fetches only the changes instead of the whole board.
+     * Start with since=0 (which returns every note) and pass the returned seq
+     * next time; call again at once while hasMore is true. Changes after the
+     * returned seq may be sent again, so apply them by id.
+     * @param since Sequence number from the previous response
+     * @param board "main" (default) or "profile"
+     * @param username Only this user's notes; required when board is "profile"
+     * @param limit Maximum number of changes, default 500, at most 2000
+     * @param authentication Present when the request carries a valid JWT; only its own private notes are returned
+     * @return 200 with upserts, deleted ids and the new seq; 400 for a negative since or missing username;
+     *         410 when since is older than the kept deletions, so the client must start again from 0
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<NoteChangesResponse> getChanges(
+            @RequestParam long since,
+            @RequestParam(required = false, defaultValue = "main") String board,
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) Integer limit,
+            Authentication authentication) {
+        boolean forUser = username != null && !username.isEmpty();
+        if (since < 0 || ("profile".equals(board) && !forUser)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            if (changeLog.isExpired(since)) {
+                return new ResponseEntity<>(HttpStatus.GONE);
+            }
+            String viewer = authentication != null ? authentication.getName() : null;
+            int maxChanges = Math.min(Math.max(limit != null ? limit : DEFAULT_CHANGES_LIMIT, 1), MAX_CHANGES_LIMIT);
+            NoteChangesResponse changes = changeLog.changesSince(
+                since, "profile".equals(board) ? "profile" : "main", forUser ? username : null, viewer, maxChanges);
+            return new ResponseEntity<>(changes, HttpStatus.OK);
+        } catch (Exception e) {
+            logger.error("Error retrieving note changes since {}: {}", since, e.getMessage(), e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @PostMapping
+    public ResponseEntity<Note> createnote(@Valid @RequestBody Note note) {
+        try {
+            applyCreateDefaults(note);
             
             logger.debug("Creating note with boardType: {}, isPrivate: {}", 
                 note.getBoardType(), note.getIsPrivate());
             
-            Note savednote = noteRepository.save(note);
-            sendUpdateToClients(savednote); // Notify clients about the new note
-            return new ResponseEntity<>(savednote, HttpStatus.CREATED);
+            // Viewers are told once the insert commits
+            Note savednote = noteService.create(note);
+            return ResponseEntity.status(HttpStatus.CREATED).eTag(VersionTags.etag(savednote.getVersion())).body(savednote);
         } catch (Exception e) {
             logger.error("Error creating note: {}", e.getMessage(), e);
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    /**
+     * Applies many creates, updates and deletes in one transaction, sending
+     * each kind of operation to the database as a single JDBC batch.
+     * @param request Notes to create, partial updates (x, y, done) and ids to delete
+     * @return 200 with the created notes (with ids), updated notes and deleted ids;
+     *         400 if the batch is empty or too large; 404 if a target note is missing (nothing is applied)
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<NoteBatchResponse> applyBatch(@Valid @RequestBody NoteBatchRequest request) {
+        if (request.size() == 0 || request.size() > MAX_BATCH_OPERATIONS) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            request.getCreate().forEach(this::applyCreateDefaults);
+            NoteBatchService.Result result = noteBatchService.apply(request);
+
+            List<Long> deletedIds = result.getDeleted().stream().map(Note::getId).toList();
+            return new ResponseEntity<>(
+                new NoteBatchResponse(result.getCreated(), result.getUpdated(), deletedIds), HttpStatus.OK);
+        } catch (NoSuchElementException e) {
+            logger.debug("Rejecting note batch: {}", e.getMessage());
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (Exception e) {
+            logger.error("Error applying note batch: {}", e.getMessage(), e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Moves a note. The full note is returned unless the client sends
+     * "Prefer: return=minimal", in which case the move is a single UPDATE and
+     * the response is 204.
+     *
+     * With If-Match the move only applies if the note is still at that
+     * version; it is then written straight through rather than buffered, so a
+     * conflict can be reported.
+     * @param id Note id
+     * @param updatedPosition Body carrying the new x and y
+     * @param prefer Optional Prefer header (RFC 7240)
+     * @param ifMatch Optional version the client last saw, as returned in the note's ETag
+     * @return 200 with the moved note, 204 for return=minimal, 400 without x/y or for a malformed If-Match,
+     *         404 if the note does not exist, 409 with the current note if it changed since the If-Match version
+     */
     @PutMapping("/{id}")
-    public ResponseEntity<Note> updatenotePosition(@PathVariable Long id, @RequestBody Note updatedPosition) {
+    public ResponseEntity<Note> updatenotePosition(
+            @PathVariable Long id,
+            @RequestBody Note updatedPosition,
+            @RequestHeader(value = "Prefer", required = false) String prefer,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            Optional<Note> existingnoteOpt = noteRepository.findById(id);
-            if (existingnoteOpt.isEmpty()) {
+            if (updatedPosition.getX() == null || updatedPosition.getY() == null) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            Long expectedVersion = VersionTags.parseIfMatch(ifMatch);
+            if (expectedVersion != null) {
+                return moveIfVersion(id, updatedPosition.getX(), updatedPosition.getY(), expectedVersion, prefer);
+            }
+            if (positionBuffer.isEnabled()) {
+                // Drag steps are coalesced in memory and written in batches
+                return positionBuffer.stage(id, updatedPosition.getX(), updatedPosition.getY())
+                    .map(note -> {
+                        if (returnMinimal(prefer)) {
+                            return new ResponseEntity<Note>(HttpStatus.NO_CONTENT);
+                        }
+                        // The flush bumps the version again, so no version or ETag is final yet
+                        note.setVersion(null);
+                        return new ResponseEntity<>(note, HttpStatus.OK);
+                    })
+                    .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+            }
+
+            if (noteRepository.updatePosition(id, updatedPosition.getX(), updatedPosition.getY()) == 0) {
                 return new ResponseEntity<>(HttpStatus.NOT_FOUND);
             }
-            Note note = existingnoteOpt.get();
-            note.setX(updatedPosition.getX());
-            note.setY(updatedPosition.getY());
-            Note savednote = noteRepository.save(note);
-            return new ResponseEntity<>(savednote, HttpStatus.OK);
+            // Owner and board are not loaded on this path, so every cached feed is invalidated
+            eventPublisher.publishEvent(NoteChangedEvent.moved(id, updatedPosition.getX(), updatedPosition.getY()));
+            if (returnMinimal(prefer)) {
+                return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+            }
+            // Read back only because the caller wants the body
+            return noteRepository.findById(id)
+                .map(note -> ResponseEntity.ok().eTag(VersionTags.etag(note.getVersion())).body(note))
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
             e.printStackTrace();
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    /**
+     * Marks a note as done; with If-Match, only if it is still at that version.
+     * @return 200 with the note, 400 for a malformed If-Match, 404 if the note does not exist,
+     *         409 with the current note if it changed since the If-Match version
+     */
     @PutMapping("/{id}/done")
-    public ResponseEntity<Note> markAsDone(@PathVariable Long id) {
+    public ResponseEntity<Note> markAsDone(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            Optional<Note> noteOpt = noteRepository.findById(id);
+            Long expectedVersion = VersionTags.parseIfMatch(ifMatch);
+            // The version compared against, and the one returned in the ETag, must count moves still in the buffer
+            positionBuffer.flush(id);
+            Optional<Note> noteOpt;
+            try {
+                noteOpt = noteService.markDone(id, expectedVersion);
+            } catch (ObjectOptimisticLockingFailureException e) {
+                return conflict(id);
+            }
             if (noteOpt.isEmpty()) {
                 return new ResponseEntity<>(HttpStatus.NOT_FOUND);
             }
-            Note note = noteOpt.get();
-            note.setDone(true);
-            Note savednote = noteRepository.save(note);
-            // Notify clients about the updated note
-            sendUpdateToClients(savednote);
-            return new ResponseEntity<>(savednote, HttpStatus.OK);
+            positionBuffer.refresh(noteOpt.get());
+            Note savednote = positionBuffer.overlay(noteOpt.get());
+            return ResponseEntity.ok().eTag(VersionTags.etag(savednote.getVersion())).body(savednote);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
             e.printStackTrace();
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
@@ -260,12 +719,13 @@ public class NoteController {
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deletenote(@PathVariable Long id) {
         try {
-            if (!noteRepository.existsById(id)) {
+            // Load rather than existsById: the note's topic decides who hears about the delete
+            Optional<Note> noteOpt = noteRepository.findById(id);
+            if (noteOpt.isEmpty()) {
                 return new ResponseEntity<>(HttpStatus.NOT_FOUND);
             }
-            noteRepository.deleteById(id);
-            // Notify clients about the deleted note
-            sendDeleteUpdateToClients(id);
+            positionBuffer.cancel(id);
+            changeLog.delete(noteOpt.get());
             return new ResponseEntity<>(HttpStatus.NO_CONTENT);
         } catch (Exception e) {
             e.printStackTrace();
@@ -273,16 +733,148 @@ public class NoteController {
         }
     }
 
-    // Send note updates to all connected clients
-    private void sendUpdateToClients(Note note) {
-        for (SseEmitter emitter : clients) {
+    // Move that only applies at the expected version; see updatenotePosition
+    private ResponseEntity<Note> moveIfVersion(Long id, int x, int y, long expectedVersion, String prefer) {
+        // The version compared against must count moves still in the buffer
+        positionBuffer.flush(id);
+        if (noteRepository.updatePositionIfVersion(id, x, y, expectedVersion) == 0) {
+            return conflict(id);
+        }
+        String etag = VersionTags.etag(expectedVersion + 1);
+        Optional<Note> moved = noteRepository.findById(id);
+        if (moved.isEmpty()) {
+            // Deleted right after the move
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        positionBuffer.refresh(moved.get());
+        eventPublisher.publishEvent(NoteChangedEvent.of(moved.get(), NoteChangedEvent.Change.MOVED));
+        if (returnMinimal(prefer)) {
+            return ResponseEntity.noContent().eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(moved.get());
+    }
+
+    // Answer to a conditional write that matched no row: 409 with the note as it is now, or 404 if it is gone
+    private ResponseEntity<Note> conflict(Long id) {
+        return noteRepository.findById(id)
+            .map(note -> ResponseEntity.status(HttpStatus.CONFLICT)
+                .eTag(VersionTags.etag(note.getVersion()))
+                .body(positionBuffer.overlay(note)))
+            .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * Conditional GET for a list endpoint. Sets the feed's ETag, derived from
+     * its version counter and the negotiated format, and returns true when it
+     * matches If-None-Match; the caller then returns null and Spring answers
+     * 304 without the query running.
+     */
+    private boolean isNotModified(WebRequest webRequest, String scope) {
+        if (webRequest instanceof ServletWebRequest servletRequest && servletRequest.getResponse() != null) {
+            // Browsers may keep the list but must revalidate it before each use
+            servletRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+            // The body is JSON or CBOR depending on Accept, so caches must key on it
+            servletRequest.getResponse().setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        MediaType format = streamFormat(webRequest.getHeader(HttpHeaders.ACCEPT));
+        return webRequest.checkNotModified(versions.etag(scope, format));
+    }
+
+    // Defaults for a new note's optional fields, shared by single and batch creates
+    private void applyCreateDefaults(Note note) {
+        // Ensure boardType is set
+        if (note.getBoardType() == null) {
+            note.setBoardType("main"); // Default to main board if not specified
+        }
+        
+        // Validate that boardType is either "main" or "profile"
+        if (!"main".equals(note.getBoardType()) && !"profile".equals(note.getBoardType())) {
+            note.setBoardType("main"); // Default to main if invalid value
+        }
+        
+        // Ensure isPrivate is set
+        if (note.getIsPrivate() == null) {
+            note.setIsPrivate(false);
+        }
+
+        // A new note always starts at version 0, whatever the client sent
+        note.setVersion(null);
+    }
+
+    // True when the client asked for no response body (RFC 7240 "Prefer: return=minimal")
+    private boolean returnMinimal(String prefer) {
+        return prefer != null && prefer.toLowerCase().contains("return=minimal");
+    }
+
+    // Pagination mode is opt-in so existing clients keep receiving plain arrays
+    private boolean isPageRequest(String after, Integer limit) {
+        return after != null || limit != null;
+    }
+
+    /**
+     * Runs a keyset page query. One extra row is fetched so the response only
+     * carries a next cursor when another page actually exists.
+     * @param after Opaque cursor from a previous page, or null for the first page
+     * @param limit Requested page size, clamped to [1, MAX_PAGE_SIZE]
+     * @param query Repository query taking the exclusive upper id bound and row limit
+     * @return 200 with the page, 204 if it is empty, 400 for a malformed cursor
+     */
+    private ResponseEntity<?> fetchPage(String after, Integer limit, BiFunction<Long, Limit, List<NoteView>> query) {
+        Long beforeId;
+        try {
+            beforeId = after != null ? NotePageResponse.decodeCursor(after) : Long.MAX_VALUE;
+        } catch (IllegalArgumentException e) {
+            logger.debug("Rejecting page request: {}", e.getMessage());
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        int pageSize = Math.min(Math.max(limit != null ? limit : DEFAULT_PAGE_SIZE, 1), MAX_PAGE_SIZE);
+
+        List<NoteView> rows = query.apply(beforeId, Limit.of(pageSize + 1));
+        if (rows.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            nextCursor = NotePageResponse.encodeCursor(rows.get(pageSize - 1).id());
+        }
+        return new ResponseEntity<>(new NotePageResponse<>(positionBuffer.overlayViews(rows), nextCursor), HttpStatus.OK);
+    }
+
+    // Streamed form of a list response: always 200 with an array (possibly empty), written as rows are read
+    private ResponseEntity<StreamingResponseBody> streamNotes(WebRequest webRequest, NoteJsonStreamer.PageQuery<NoteView> query) {
+        MediaType format = streamFormat(webRequest.getHeader(HttpHeaders.ACCEPT));
+        return ResponseEntity.ok()
+            .contentType(format)
+            .body(jsonStreamer.stream(format, query, view -> positionBuffer.overlay(view)));
+    }
+
+    // Keyset bound of the stream page after the given row (newest first)
+    private static Long idBefore(NoteView last) {
+        return last != null ? last.id() : Long.MAX_VALUE;
+    }
+
+    // Streamed bodies skip message converters, so the Accept header is matched here: CBOR if preferred, else JSON.
+    // Also picks the format a list ETag is computed for
+    private MediaType streamFormat(String accept) {
+        if (accept != null) {
             try {
-                emitter.send(note);
-            } catch (IOException e) {
-                emitter.completeWithError(e);
-                clients.remove(emitter);
+                List<MediaType> accepted = MediaType.parseMediaTypes(accept);
+                MimeTypeUtils.sortBySpecificity(accepted);
+                for (MediaType type : accepted) {
+                    if (type.equalsTypeAndSubtype(MediaType.APPLICATION_CBOR)) {
+                        return MediaType.APPLICATION_CBOR;
+                    }
+                    if (type.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                        break;
+                    }
+                }
+            } catch (InvalidMediaTypeException e) {
+                logger.debug("Ignoring malformed Accept header: {}", accept);
             }
         }
+        return MediaType.APPLICATION_JSON;
     }
 
     /**
@@ -293,51 +885,43 @@ public class NoteController {
      * @return List of notes matching the criteria
      */
     @GetMapping("/by-status")
-    public ResponseEntity<List<Note>> getNotesByStatus(
+    public ResponseEntity<List<NoteView>> getNotesByStatus(
             @RequestParam String status,
             @RequestParam(required = false, defaultValue = "profile") String boardType,
-            Authentication authentication) {
+            Authentication authentication,
+            WebRequest webRequest) {
         
         if (authentication == null) {
             return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
         }
         
         String username = authentication.getName();
-        List<Note> notes;
+        if (isNotModified(webRequest, NoteVersions.userScope(username))) {
+            return null;
+        }
+        List<NoteView> notes;
         
         try {
             if ("done".equalsIgnoreCase(status) || "deleted".equalsIgnoreCase(status)) {
                 // For both done and deleted, we use the same query since deleted is marked by done=true
-                notes = noteRepository.findByUsernameAndDoneTrueAndBoardType(username, boardType);
+                notes = feedCache.findByUsernameAndDoneTrueAndBoardType(username, boardType);
                 
                 // If we need to distinguish between done and deleted in the future, we can add a deleted flag to the note model
                 // and update the query accordingly
             } else {
                 // For active notes (not done/deleted)
-                notes = noteRepository.findByUsernameAndDoneFalseAndBoardType(username, boardType);
+                notes = feedCache.findByUsernameAndDoneFalseAndBoardType(username, boardType);
             }
             
             if (notes.isEmpty()) {
                 return new ResponseEntity<>(HttpStatus.NO_CONTENT);
             }
             
-            return new ResponseEntity<>(notes, HttpStatus.OK);
+            return new ResponseEntity<>(positionBuffer.overlayViews(notes), HttpStatus.OK);
             
         } catch (Exception e) {
             logger.error("Error retrieving notes by status: {}", e.getMessage(), e);
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
-    
-    // Send delete notification to all connected clients
-    private void sendDeleteUpdateToClients(Long noteId) {
-        for (SseEmitter emitter : clients) {
-            try {
-                emitter.send("deleted:" + noteId);
-            } catch (IOException e) {
-                emitter.completeWithError(e);
-                clients.remove(emitter);
-            }
-        }
-    }
 }
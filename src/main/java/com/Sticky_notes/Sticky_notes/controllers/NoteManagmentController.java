@@ -2,12 +2,20 @@ package com.Sticky_notes.Sticky_notes.controllers;
 
 import com.Sticky_notes.Sticky_notes.models.NoteManagment;
 import com.Sticky_notes.Sticky_notes.repository.NoteManagmentRepository;
+import com.Sticky_notes.Sticky_notes.services.NoteJsonStreamer;
 import com.Sticky_notes.Sticky_notes.services.NoteManagmentService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api/note-management")
@@ -19,15 +27,28 @@ public class NoteManagmentController {
     @Autowired
     private NoteManagmentRepository noteRepository;
 
+    @Autowired
+    private NoteJsonStreamer jsonStreamer;
+
     @GetMapping
     public ResponseEntity<List<NoteManagment>> getAllNotes() {
         return ResponseEntity.ok(noteService.getAllNotes());
     }
 
+    // Same as getAllNotes, but notes are written to the response as they are read instead of collected first
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllNotes() {
+        NoteJsonStreamer.PageQuery<NoteManagment> allNotes = (last, limit) -> noteRepository
+                .findByIdGreaterThanOrderById(last != null ? last.getId() : 0L, limit);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(jsonStreamer.stream(allNotes, note -> note));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<NoteManagment> getNoteById(@PathVariable Long id) {
         return noteService.getNoteById(id)
-                .map(ResponseEntity::ok)
+                .map(note -> ResponseEntity.ok().eTag(VersionTags.etag(note.getVersion())).body(note))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -52,33 +73,43 @@ public class NoteManagmentController {
         return ResponseEntity.ok(noteService.saveOrUpdateNote(note));
     }
 
+    /**
+     * Replaces a note. The write is conditional when the client sends
+     * If-Match, or a version in the body (If-Match wins).
+     * @return 200 with the note, 404 if it does not exist, 409 with the current note if it changed meanwhile
+     */
     @PutMapping("/{id}")
-    public ResponseEntity<NoteManagment> updateNote(@PathVariable Long id, @RequestBody NoteManagment noteDetails) {
-        return noteService.getNoteById(id)
+    public ResponseEntity<NoteManagment> updateNote(
+            @PathVariable Long id,
+            @RequestBody NoteManagment noteDetails,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return conditionally(id, ifMatch, expectedVersion -> noteService.getNoteById(id)
                 .map(existingNote -> {
                     noteDetails.setId(id);
-                    return ResponseEntity.ok(noteService.saveOrUpdateNote(noteDetails));
-                })
-                .orElse(ResponseEntity.notFound().build());
+                    if (expectedVersion != null) {
+                        noteDetails.setVersion(expectedVersion);
+                    }
+                    return noteService.saveOrUpdateNote(noteDetails);
+                }));
     }
 
     @PatchMapping("/{id}/status")
     public ResponseEntity<NoteManagment> updateNoteStatus(
             @PathVariable Long id,
-            @RequestParam String status) {
-        return noteService.updateNoteStatus(id, status)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+            @RequestParam String status,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return conditionally(id, ifMatch,
+                expectedVersion -> noteService.updateNoteStatus(id, status, expectedVersion));
     }
 
     @PatchMapping("/{id}/position")
     public ResponseEntity<NoteManagment> updateNotePosition(
             @PathVariable Long id,
             @RequestParam int x,
-            @RequestParam int y) {
-        return noteService.updateNotePosition(id, x, y)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+            @RequestParam int y,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return conditionally(id, ifMatch,
+                expectedVersion -> noteService.updateNotePosition(id, x, y, expectedVersion));
     }
 
     @DeleteMapping("/{id}")
@@ -89,7 +120,7 @@ public class NoteManagmentController {
 
     @PostMapping("/{id}/restore")
     public ResponseEntity<NoteManagment> restoreNote(@PathVariable Long id) {
-        return noteService.updateNoteStatus(id, "active")
+        return noteService.updateNoteStatus(id, "active", null)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -101,4 +132,30 @@ public class NoteManagmentController {
         System.out.println("Found statuses: " + statuses);
         return ResponseEntity.ok(statuses);
     }
-}
\ No newline at end of file
+
+    /**
+     * Runs an update with the version named by If-Match (null when absent).
+     * @return 200 with the updated note and its ETag, 400 for a malformed If-Match, 404 if the note
+     *         does not exist, 409 with the current note if it changed since the expected version
+     */
+    private ResponseEntity<NoteManagment> conditionally(Long id, String ifMatch,
+            Function<Long, Optional<NoteManagment>> update) {
+        Long expectedVersion;
+        try {
+            expectedVersion = VersionTags.parseIfMatch(ifMatch);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return update.apply(expectedVersion)
+                    .map(note -> ResponseEntity.ok().eTag(VersionTags.etag(note.getVersion())).body(note))
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return noteService.getNoteById(id)
+                    .map(current -> ResponseEntity.status(HttpStatus.CONFLICT)
+                            .eTag(VersionTags.etag(current.getVersion()))
+                            .body(current))
+                    .orElse(ResponseEntity.notFound().build());
+        }
+    }
+}
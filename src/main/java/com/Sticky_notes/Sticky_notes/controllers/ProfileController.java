@@ -9,8 +9,9 @@ import org.springframework.web.server.ResponseStatusException;
 
 import com.Sticky_notes.Sticky_notes.models.User;
 import com.Sticky_notes.Sticky_notes.models.Profile;
+import com.Sticky_notes.Sticky_notes.payload.response.UserNoteStats;
 import com.Sticky_notes.Sticky_notes.repository.UserRepository;
-import com.Sticky_notes.Sticky_notes.repository.NoteRepository;
+import com.Sticky_notes.Sticky_notes.services.NoteStatsService;
 
 @RestController
 @CrossOrigin(origins = {"http://localhost:5173", "http://localhost:5174", "http://localhost:8080", "http://localhost:8081"}, allowedHeaders = "*", methods = {RequestMethod.GET, RequestMethod.POST, RequestMethod.PUT, RequestMethod.DELETE, RequestMethod.OPTIONS}, allowCredentials = "true")
@@ -21,7 +22,7 @@ public class ProfileController {
     private UserRepository userRepository;
     
     @Autowired
-    private NoteRepository noteRepository;
+    private NoteStatsService noteStats;
 
     @GetMapping
     public ResponseEntity<?> getUserProfile(Authentication authentication) {
@@ -34,16 +35,17 @@ public class ProfileController {
         User user = userRepository.findByUsername(authentication.getName())
             .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
         
-        // Count user's notes
-        long notesCount = noteRepository.countByUsername(user.getUsername());
+        // Read the user's note counters (maintained on write, no COUNT query)
+        UserNoteStats stats = noteStats.forUser(user.getUsername());
         
         // Create a Profile object with user data
         Profile profile = new Profile(
             user.getUsername(),
             user.getEmail(),
             user.getRoles(),
-            notesCount
+            stats.total()
         );
+        profile.setNoteStats(stats);
         
         return ResponseEntity.ok(profile);
     }
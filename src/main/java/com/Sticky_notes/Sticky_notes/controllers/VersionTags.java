@@ -0,0 +1,40 @@
+package com.Sticky_notes.Sticky_notes.controllers;
+
+/**
+ * ETag and If-Match handling for single notes, whose entity tag is their
+ * optimistic-lock version.
+ */
+final class VersionTags {
+
+    private VersionTags() {
+    }
+
+    // Strong ETag for a version, e.g. "3"
+    static String etag(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Reads the version from an If-Match header. Accepts the quoted tag, a
+     * weak tag or a bare number.
+     * @return The version, or null when the header is absent or "*" (no condition)
+     * @throws IllegalArgumentException If the header is not a version tag
+     */
+    static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a note version: " + ifMatch);
+        }
+    }
+}
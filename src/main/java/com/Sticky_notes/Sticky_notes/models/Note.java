@@ -1,12 +1,33 @@
 package com.Sticky_notes.Sticky_notes.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.Generated;
+import org.hibernate.generator.EventType;
 
 @Entity
+@Table(indexes = {
+    // Guest main-board feed and its keyset pages: board_type = ? AND is_private = false ORDER BY id DESC
+    @Index(name = "idx_note_board_private_id", columnList = "board_type, is_private, id DESC"),
+    // Per-user lists filtered by privacy (and optionally board), plus the per-user privacy counts
+    @Index(name = "idx_note_user_private_board_id", columnList = "username, is_private, board_type, id DESC"),
+    // Per-user board lists regardless of privacy, plus countByUsername / findByUsername via the username prefix
+    @Index(name = "idx_note_user_board_id", columnList = "username, board_type, id DESC"),
+    // Done / active notes on a user's board (by-status endpoint)
+    @Index(name = "idx_note_user_board_done", columnList = "username, board_type, done"),
+    // Changes on a board, or on a user's board, since a sequence number (delta sync)
+    @Index(name = "idx_note_board_change_seq", columnList = "board_type, change_seq"),
+    @Index(name = "idx_note_user_board_change_seq", columnList = "username, board_type, change_seq")
+})
 public class Note {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -32,6 +53,18 @@ public class Note {
     
     private String boardType = "main"; // Indicates which board the note belongs to ("main" or "profile")
 
+    // Optimistic lock, bumped by every write (the SQL writers in NoteRepository, NotePositionBuffer and
+    // NoteBatchService do it by hand); clients send it back in If-Match to make an update conditional
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    // Drawn from note_change_seq by the database on every insert and update; JDBC writers set it the same way
+    @Generated(event = { EventType.INSERT, EventType.UPDATE }, sql = "nextval('" + NoteTombstone.CHANGE_SEQUENCE + "')")
+    @JsonIgnore
+    private Long changeSeq;
+
     // Default constructor for JPA
     public Note() {
     }
@@ -100,4 +133,20 @@ public class Note {
     public void setBoardType(String boardType) {
         this.boardType = boardType;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public void setChangeSeq(Long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
 }
\ No newline at end of file
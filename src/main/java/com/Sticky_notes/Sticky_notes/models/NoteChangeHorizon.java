@@ -0,0 +1,44 @@
+package com.Sticky_notes.Sticky_notes.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * How far note tombstones have been pruned (see NoteChangeLog). A single
+ * row; a delta sync from below prunedThrough may have missed deletions.
+ */
+@Entity
+@Table(name = "note_change_horizon")
+public class NoteChangeHorizon {
+    // Key of the only row
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private long prunedThrough;
+
+    // Default constructor for JPA
+    public NoteChangeHorizon() {
+    }
+
+    // Getters and Setters
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public long getPrunedThrough() {
+        return prunedThrough;
+    }
+
+    public void setPrunedThrough(long prunedThrough) {
+        this.prunedThrough = prunedThrough;
+    }
+}
@@ -0,0 +1,92 @@
+package com.Sticky_notes.Sticky_notes.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * Note counters for one user's board, kept up to date by the note write paths
+ * (see NoteStatsService) so profiles do not count rows on every view.
+ */
+@Entity
+@Table(name = "note_stats", uniqueConstraints = {
+    // One row per user and board; also the lookup index for a user's counters
+    @UniqueConstraint(name = "uk_note_stats_user_board", columnNames = { "username", "board_type" })
+})
+public class NoteStats {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String username;
+
+    @Column(name = "board_type", nullable = false)
+    private String boardType;
+
+    @Column(nullable = false)
+    private long noteCount;
+
+    @Column(nullable = false)
+    private long privateCount;
+
+    @Column(nullable = false)
+    private long doneCount;
+
+    // Default constructor for JPA
+    public NoteStats() {
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getBoardType() {
+        return boardType;
+    }
+
+    public void setBoardType(String boardType) {
+        this.boardType = boardType;
+    }
+
+    public long getNoteCount() {
+        return noteCount;
+    }
+
+    public void setNoteCount(long noteCount) {
+        this.noteCount = noteCount;
+    }
+
+    public long getPrivateCount() {
+        return privateCount;
+    }
+
+    public void setPrivateCount(long privateCount) {
+        this.privateCount = privateCount;
+    }
+
+    public long getDoneCount() {
+        return doneCount;
+    }
+
+    public void setDoneCount(long doneCount) {
+        this.doneCount = doneCount;
+    }
+}
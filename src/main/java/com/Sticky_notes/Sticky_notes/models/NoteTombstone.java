@@ -0,0 +1,103 @@
+package com.Sticky_notes.Sticky_notes.models;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Record of a deleted note, kept so delta sync can tell clients to drop it.
+ * Its key is drawn from note_change_seq, the same sequence that stamps every
+ * note write, so upserts and deletions share one ordering.
+ */
+@Entity
+@Table(indexes = {
+    // Deletions on a board since a sequence number (delta sync)
+    @Index(name = "idx_note_tombstone_board_seq", columnList = "board_type, seq"),
+    @Index(name = "idx_note_tombstone_user_board_seq", columnList = "username, board_type, seq")
+})
+public class NoteTombstone {
+    // Sequence shared with Note.changeSeq
+    public static final String CHANGE_SEQUENCE = "note_change_seq";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = CHANGE_SEQUENCE)
+    @SequenceGenerator(name = CHANGE_SEQUENCE, sequenceName = CHANGE_SEQUENCE, allocationSize = 1)
+    private Long seq;
+
+    private Long noteId;
+
+    private String username;
+
+    private String boardType;
+
+    private Boolean isPrivate;
+
+    private LocalDateTime deletedAt;
+
+    // Default constructor for JPA
+    public NoteTombstone() {
+    }
+
+    public NoteTombstone(Note note) {
+        this.noteId = note.getId();
+        this.username = note.getUsername();
+        this.boardType = note.getBoardType();
+        this.isPrivate = note.getIsPrivate();
+        this.deletedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(Long seq) {
+        this.seq = seq;
+    }
+
+    public Long getNoteId() {
+        return noteId;
+    }
+
+    public void setNoteId(Long noteId) {
+        this.noteId = noteId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getBoardType() {
+        return boardType;
+    }
+
+    public void setBoardType(String boardType) {
+        this.boardType = boardType;
+    }
+
+    public Boolean getIsPrivate() {
+        return isPrivate;
+    }
+
+    public void setIsPrivate(Boolean isPrivate) {
+        this.isPrivate = isPrivate;
+    }
+
+    public LocalDateTime getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(LocalDateTime deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+}
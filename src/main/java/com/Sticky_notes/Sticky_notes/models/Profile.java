@@ -1,5 +1,7 @@
 package com.Sticky_notes.Sticky_notes.models;
 
+import com.Sticky_notes.Sticky_notes.payload.response.UserNoteStats;
+
 /**
  * Profile model class to represent user profile data
  */
@@ -8,6 +10,7 @@ public class Profile {
     private String email;
     private String role;
     private long notesCount;
+    private UserNoteStats noteStats; // Private, public, done and per-board counts
     
     // Default constructor
     public Profile() {
@@ -53,4 +56,12 @@ public class Profile {
     public void setNotesCount(long notesCount) {
         this.notesCount = notesCount;
     }
+    
+    public UserNoteStats getNoteStats() {
+        return noteStats;
+    }
+    
+    public void setNoteStats(UserNoteStats noteStats) {
+        this.noteStats = noteStats;
+    }
 }
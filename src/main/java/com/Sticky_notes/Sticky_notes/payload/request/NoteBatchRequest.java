@@ -0,0 +1,99 @@
+package com.Sticky_notes.Sticky_notes.payload.request;
+
+import com.Sticky_notes.Sticky_notes.models.Note;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Body of POST /api/notes/batch. All three lists are optional; the whole
+ * batch is applied in one transaction (creates, then updates, then deletes).
+ */
+public class NoteBatchRequest {
+    @Valid
+    private List<Note> create = new ArrayList<>();
+
+    @Valid
+    private List<NoteUpdate> update = new ArrayList<>();
+
+    private List<@NotNull Long> delete = new ArrayList<>();
+
+    /**
+     * Changes to an existing note; fields left null are not modified.
+     */
+    public static class NoteUpdate {
+        @NotNull
+        private Long id;
+
+        private Integer x;
+
+        private Integer y;
+
+        private Boolean done;
+
+        // Getters and Setters
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public Integer getX() {
+            return x;
+        }
+
+        public void setX(Integer x) {
+            this.x = x;
+        }
+
+        public Integer getY() {
+            return y;
+        }
+
+        public void setY(Integer y) {
+            this.y = y;
+        }
+
+        public Boolean getDone() {
+            return done;
+        }
+
+        public void setDone(Boolean done) {
+            this.done = done;
+        }
+    }
+
+    // Total number of operations, used to cap the batch size
+    public int size() {
+        return create.size() + update.size() + delete.size();
+    }
+
+    // Getters and Setters
+    public List<Note> getCreate() {
+        return create;
+    }
+
+    public void setCreate(List<Note> create) {
+        this.create = create != null ? create : new ArrayList<>();
+    }
+
+    public List<NoteUpdate> getUpdate() {
+        return update;
+    }
+
+    public void setUpdate(List<NoteUpdate> update) {
+        this.update = update != null ? update : new ArrayList<>();
+    }
+
+    public List<Long> getDelete() {
+        return delete;
+    }
+
+    public void setDelete(List<Long> delete) {
+        this.delete = delete != null ? delete : new ArrayList<>();
+    }
+}
@@ -0,0 +1,46 @@
+package com.Sticky_notes.Sticky_notes.payload.response;
+
+import com.Sticky_notes.Sticky_notes.models.Note;
+
+import java.util.List;
+
+/**
+ * Result of POST /api/notes/batch: created notes carry their new ids, in
+ * request order.
+ */
+public class NoteBatchResponse {
+    private List<Note> created;
+    private List<Note> updated;
+    private List<Long> deleted;
+
+    public NoteBatchResponse(List<Note> created, List<Note> updated, List<Long> deleted) {
+        this.created = created;
+        this.updated = updated;
+        this.deleted = deleted;
+    }
+
+    // Getters and Setters
+    public List<Note> getCreated() {
+        return created;
+    }
+
+    public void setCreated(List<Note> created) {
+        this.created = created;
+    }
+
+    public List<Note> getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(List<Note> updated) {
+        this.updated = updated;
+    }
+
+    public List<Long> getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(List<Long> deleted) {
+        this.deleted = deleted;
+    }
+}
@@ -0,0 +1,57 @@
+package com.Sticky_notes.Sticky_notes.payload.response;
+
+import java.util.List;
+
+/**
+ * Result of GET /api/notes/changes: notes created or changed and ids of
+ * notes deleted after the requested sequence number, plus the number to
+ * send as since on the next call.
+ */
+public class NoteChangesResponse {
+    private List<NoteView> upserts;
+    private List<Long> deleted;
+    private long seq;
+    private boolean hasMore;
+
+    public NoteChangesResponse(List<NoteView> upserts, List<Long> deleted, long seq, boolean hasMore) {
+        this.upserts = upserts;
+        this.deleted = deleted;
+        this.seq = seq;
+        this.hasMore = hasMore;
+    }
+
+    // Getters and Setters
+    public List<NoteView> getUpserts() {
+        return upserts;
+    }
+
+    public void setUpserts(List<NoteView> upserts) {
+        this.upserts = upserts;
+    }
+
+    public List<Long> getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(List<Long> deleted) {
+        this.deleted = deleted;
+    }
+
+    // High-water mark: every change up to this number is included; later ones may be sent again
+    public long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(long seq) {
+        this.seq = seq;
+    }
+
+    // True when the limit cut the result short; call again with the new seq
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
@@ -0,0 +1,65 @@
+package com.Sticky_notes.Sticky_notes.payload.response;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated note list. The cursor is opaque to clients;
+ * it encodes the id of the last note on the page so the next query can resume
+ * with {@code id < cursor} instead of an OFFSET.
+ */
+public class NotePageResponse<T> {
+    private List<T> items;
+    private String nextCursor;
+
+    public NotePageResponse(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Encodes the id of the last returned note as an opaque cursor.
+     */
+    public static String encodeCursor(Long lastId) {
+        if (lastId == null) {
+            return null;
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(lastId.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor produced by {@link #encodeCursor(Long)}.
+     * @throws IllegalArgumentException if the cursor was not issued by this API
+     */
+    public static Long decodeCursor(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            long id = Long.parseLong(decoded);
+            if (id <= 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return id;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    // Getters and Setters
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
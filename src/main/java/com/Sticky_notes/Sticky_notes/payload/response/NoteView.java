@@ -0,0 +1,30 @@
+package com.Sticky_notes.Sticky_notes.payload.response;
+
+import com.Sticky_notes.Sticky_notes.models.Note;
+
+/**
+ * Read-only projection of a note for list endpoints. Loaded by NoteRepository
+ * with a constructor expression, so no entity is managed or snapshotted for
+ * dirty checking. Serializes to the same JSON as {@link Note}.
+ */
+public record NoteView(
+        Long id,
+        Integer x,
+        Integer y,
+        String text,
+        boolean done,
+        String username,
+        Boolean isPrivate,
+        String boardType,
+        Long version) {
+
+    public static NoteView of(Note note) {
+        return new NoteView(note.getId(), note.getX(), note.getY(), note.getText(), note.isDone(),
+            note.getUsername(), note.getIsPrivate(), note.getBoardType(), note.getVersion());
+    }
+
+    // Same note at another position
+    public NoteView withPosition(int x, int y) {
+        return new NoteView(id, x, y, text, done, username, isPrivate, boardType, version);
+    }
+}
@@ -0,0 +1,14 @@
+package com.Sticky_notes.Sticky_notes.payload.response;
+
+import java.util.Map;
+
+/**
+ * Note counts of one user, summed over their boards.
+ * @param total All notes
+ * @param privateCount Private notes
+ * @param publicCount Public notes
+ * @param doneCount Notes marked done
+ * @param byBoard Notes per board type
+ */
+public record UserNoteStats(long total, long privateCount, long publicCount, long doneCount, Map<String, Long> byBoard) {
+}
@@ -0,0 +1,223 @@
+package com.Sticky_notes.Sticky_notes.realtime;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * What every {@link NoteEventBus} shares; implementations only move batches
+ * of messages between instances.
+ *
+ * Publishing never blocks on the transport: messages are queued and sent by
+ * one sender thread, which takes everything queued since its last send as
+ * one batch. Messages published within a transaction are queued together
+ * when it commits, so a transaction's messages always travel in one batch.
+ *
+ * On receipt, messages from this instance (transports may echo them back)
+ * and messages already delivered are dropped, and the time since publishing
+ * is recorded as notes.bus.latency.
+ */
+public abstract class AbstractNoteEventBus implements NoteEventBus {
+    private static final Logger logger = LoggerFactory.getLogger(AbstractNoteEventBus.class);
+
+    // How many received message keys are remembered to suppress redeliveries
+    private static final int SEEN_CAPACITY = 10_000;
+
+    private final String origin = UUID.randomUUID().toString();
+    private final AtomicLong lastSeq = new AtomicLong();
+    private final List<Consumer<NoteBusMessage>> receivers = new CopyOnWriteArrayList<>();
+
+    // Batches waiting for the sender thread, and whether a drain is scheduled
+    private final Queue<List<NoteBusMessage>> outbox = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final ExecutorService sender;
+
+    // Keys of messages already delivered, oldest first; guarded by itself
+    private final Map<String, Boolean> seen = new LinkedHashMap<>(256, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > SEEN_CAPACITY;
+        }
+    };
+
+    private final Counter published;
+    private final Counter received;
+    private final Counter duplicates;
+    private final Timer latency;
+
+    protected AbstractNoteEventBus(MeterRegistry meterRegistry) {
+        this.sender = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "note-bus-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.published = Counter.builder("notes.bus.published")
+            .description("Note messages sent to other instances")
+            .register(meterRegistry);
+        this.received = Counter.builder("notes.bus.received")
+            .description("Note messages received from other instances")
+            .register(meterRegistry);
+        this.duplicates = Counter.builder("notes.bus.duplicates")
+            .description("Redelivered note messages that were dropped")
+            .register(meterRegistry);
+        this.latency = Timer.builder("notes.bus.latency")
+            .description("Time from publishing a note message on one instance to receiving it on another")
+            .register(meterRegistry);
+    }
+
+    // Id of this instance on the bus
+    public String getOrigin() {
+        return origin;
+    }
+
+    @Override
+    public void publish(NoteBusMessage message) {
+        NoteBusMessage stamped = message.stamped(origin, lastSeq.incrementAndGet(), System.currentTimeMillis());
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && TransactionSynchronizationManager.isActualTransactionActive()) {
+            transactionBatch().add(stamped);
+        } else {
+            enqueue(List.of(stamped));
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<NoteBusMessage> receiver) {
+        receivers.add(receiver);
+    }
+
+    /**
+     * Sends a batch to the other instances. Called from the sender thread
+     * only, so implementations need not be thread-safe here.
+     */
+    protected abstract void send(List<NoteBusMessage> batch) throws Exception;
+
+    /**
+     * Delivers a batch received from the transport to the local receivers.
+     */
+    protected void receive(List<NoteBusMessage> batch) {
+        long now = System.currentTimeMillis();
+        for (NoteBusMessage message : batch) {
+            if (origin.equals(message.origin())) {
+                continue;
+            }
+            if (!firstDelivery(message)) {
+                duplicates.increment();
+                continue;
+            }
+            received.increment();
+            // Instances' clocks are not synchronized; a message that seems to come from the future counts as instant
+            latency.record(Math.max(0, now - message.sentAt()), TimeUnit.MILLISECONDS);
+            for (Consumer<NoteBusMessage> receiver : receivers) {
+                try {
+                    receiver.accept(message);
+                } catch (RuntimeException e) {
+                    logger.error("Error handling note message {}: {}", message.key(), e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdown();
+        try {
+            // Let queued messages go out before the transport closes
+            sender.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean firstDelivery(NoteBusMessage message) {
+        synchronized (seen) {
+            return seen.put(message.key(), Boolean.TRUE) == null;
+        }
+    }
+
+    // Messages of the current transaction, queued together once it commits
+    @SuppressWarnings("unchecked")
+    private List<NoteBusMessage> transactionBatch() {
+        List<NoteBusMessage> batch = (List<NoteBusMessage>) TransactionSynchronizationManager.getResource(this);
+        if (batch == null) {
+            List<NoteBusMessage> created = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(AbstractNoteEventBus.this);
+                }
+            });
+            batch = created;
+        }
+        return batch;
+    }
+
+    private void enqueue(List<NoteBusMessage> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        outbox.add(batch);
+        scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                sender.execute(this::drain);
+            } catch (RuntimeException e) {
+                // Shutting down
+                draining.set(false);
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            List<NoteBusMessage> batch = new ArrayList<>();
+            List<NoteBusMessage> queued;
+            while ((queued = outbox.poll()) != null) {
+                batch.addAll(queued);
+            }
+            if (!batch.isEmpty()) {
+                try {
+                    send(batch);
+                    published.increment(batch.size());
+                } catch (Exception e) {
+                    // Other instances miss these changes until their clients resync; do not retry out of order
+                    logger.error("Error sending {} note messages: {}", batch.size(), e.getMessage(), e);
+                }
+            }
+        } finally {
+            draining.set(false);
+            if (!outbox.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.Sticky_notes.Sticky_notes.realtime;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * Bounded buffer of the most recent events of one topic, used to replay what
+ * a reconnecting client missed. Not thread-safe; the hub guards it with its
+ * publish lock.
+ */
+final class EventRing {
+    private final int capacity;
+    private final ArrayDeque<NoteEvent> events;
+
+    // Highest seq that has been pushed out of the ring (0 if nothing was evicted)
+    private long evictedThrough;
+
+    EventRing(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.events = new ArrayDeque<>(this.capacity);
+    }
+
+    void add(NoteEvent event) {
+        if (events.size() == capacity) {
+            evictedThrough = events.removeFirst().getSeq();
+        }
+        events.addLast(event);
+    }
+
+    /**
+     * @return true if every event after {@code seq} is still in the ring
+     */
+    boolean canReplayAfter(long seq) {
+        return seq >= evictedThrough;
+    }
+
+    // Appends the buffered events newer than seq, oldest first
+    void collectAfter(long seq, List<NoteEvent> target) {
+        for (NoteEvent event : events) {
+            if (event.getSeq() > seq) {
+                target.add(event);
+            }
+        }
+    }
+
+    long getLastSeq() {
+        return events.isEmpty() ? evictedThrough : events.peekLast().getSeq();
+    }
+}
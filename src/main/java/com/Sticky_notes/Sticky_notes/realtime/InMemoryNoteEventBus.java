@@ -0,0 +1,52 @@
+package com.Sticky_notes.Sticky_notes.realtime;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-process {@link NoteEventBus}. Buses attached to the same
+ * {@link Network} see each other's messages, which lets tests run several
+ * "instances" in one JVM; the bean gets a network of its own, so on a single
+ * node nothing is delivered anywhere.
+ */
+@Component
+@ConditionalOnProperty(name = "app.notes.bus.type", havingValue = "memory", matchIfMissing = true)
+public class InMemoryNoteEventBus extends AbstractNoteEventBus {
+
+    /**
+     * The buses that can reach each other. Like a real transport, a batch is
+     * delivered to every member, the sender included.
+     */
+    public static final class Network {
+        private final List<InMemoryNoteEventBus> members = new CopyOnWriteArrayList<>();
+
+        void deliver(List<NoteBusMessage> batch) {
+            for (InMemoryNoteEventBus member : members) {
+                member.receive(batch);
+            }
+        }
+    }
+
+    private final Network network;
+
+    @Autowired
+    public InMemoryNoteEventBus(MeterRegistry meterRegistry) {
+        this(meterRegistry, new Network());
+    }
+
+    public InMemoryNoteEventBus(MeterRegistry meterRegistry, Network network) {
+        super(meterRegistry);
+        this.network = network;
+        network.members.add(this);
+    }
+
+    @Override
+    protected void send(List<NoteBusMessage> batch) {
+        network.deliver(batch);
+    }
+}
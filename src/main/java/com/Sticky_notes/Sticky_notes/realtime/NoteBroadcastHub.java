@@ -0,0 +1,546 @@
+package com.Sticky_notes.Sticky_notes.realtime;
+
+import com.Sticky_notes.Sticky_notes.Config.SseProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Topic-based fan-out for SSE note updates. Publishing only touches the
+ * subscribers of the note's topic and never blocks on the network: events
+ * are queued per subscriber and sent from a small sender pool, or from one
+ * virtual thread per busy subscriber when app.sse.virtual-threads is set.
+ *
+ * Every event carries an id, and the most recent events of each topic are
+ * kept in a ring buffer so a client reconnecting with Last-Event-ID gets
+ * exactly what it missed. If part of that range was already evicted, the
+ * client receives a "snapshot" event with the current state instead. A
+ * fresh connection can ask for a snapshot too, so one request both loads
+ * the board and follows it. A snapshot's id is the last event published
+ * before it was read; later events follow it, minus the ones it already
+ * reflects (see {@link SnapshotFilter}).
+ *
+ * Published events also go to the other instances over the
+ * {@link NoteEventBus}; {@link NoteClusterRelay} hands theirs to
+ * {@link #publishLocal}. Ids are per instance, so a client that reconnects
+ * to another instance gets a snapshot.
+ *
+ * Connections are looked after by one scheduled sweep: quiet ones get a
+ * heartbeat comment, and ones whose writes have stalled are reaped along
+ * with those that failed. Connections are capped per user and per
+ * instance, and on shutdown each is sent a retry hint and completed before
+ * the web server stops, so clients move to another instance.
+ */
+@Component
+public class NoteBroadcastHub implements SmartLifecycle, MeterBinder {
+    private static final Logger logger = LoggerFactory.getLogger(NoteBroadcastHub.class);
+
+    // SSE event name for a full-state resync after an unreplayable gap
+    public static final String SNAPSHOT_EVENT = "snapshot";
+
+    // Media type of the binary stream: a sequence of CBOR items (RFC 8742), one per event
+    public static final String CBOR_SEQ_VALUE = "application/cbor-seq";
+
+    // Why a connection was closed by the server
+    enum Reap {
+        // A write failed, or the container reported an error
+        FAILED,
+        // Nothing could be written for app.sse.idle-timeout-ms
+        IDLE,
+        // The outbound queue overflowed
+        SLOW
+    }
+
+    private final Map<String, Set<SseSubscriber>> subscribersByTopic = new ConcurrentHashMap<>();
+    private final Set<SseSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    // Open connections per owner; an owner's entry is removed when its count drops to zero
+    private final Map<String, Integer> connectionsByOwner = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private final Map<Reap, AtomicLong> reaps = new EnumMap<>(Reap.class);
+    private final AtomicLong rejected = new AtomicLong();
+
+    // False once shutdown has begun; new connections are then refused
+    private volatile boolean running = true;
+    private final SseProperties properties;
+    private final NoteEventBus eventBus;
+    private final ExecutorService sender;
+
+    // The application's CBOR mapper (see CborConfig), so binary streams encode notes like CBOR responses do
+    private final ObjectMapper cborMapper;
+
+    // Distinguishes ids issued by this process from those of a previous one
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    // Serializes id assignment with fan-out and with replay on subscribe, so no event is missed or repeated
+    private final ReentrantLock publishLock = new ReentrantLock();
+
+    // Guarded by publishLock
+    private long lastSeq;
+    private long droppedRingsThrough;
+    private final LinkedHashMap<String, EventRing> rings = new LinkedHashMap<>(16, 0.75f, true);
+
+    // A hub for this instance only
+    public NoteBroadcastHub(SseProperties properties) {
+        this(properties, null, new MappingJackson2CborHttpMessageConverter());
+    }
+
+    @Autowired
+    public NoteBroadcastHub(SseProperties properties, NoteEventBus eventBus,
+            MappingJackson2CborHttpMessageConverter cborConverter) {
+        this.properties = properties;
+        this.eventBus = eventBus;
+        this.cborMapper = cborConverter.getObjectMapper();
+        for (Reap reap : Reap.values()) {
+            reaps.put(reap, new AtomicLong());
+        }
+        if (properties.isVirtualThreads()) {
+            // A client blocked on a slow socket then parks one virtual thread instead of holding a pool thread
+            this.sender = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sse-sender-", 1).factory());
+        } else {
+            AtomicInteger threadCount = new AtomicInteger();
+            ThreadFactory threadFactory = runnable -> {
+                Thread thread = new Thread(runnable, "sse-sender-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            this.sender = Executors.newFixedThreadPool(Math.max(1, properties.getSenderThreads()), threadFactory);
+        }
+    }
+
+    /**
+     * Opens an SSE connection subscribed to the given topics.
+     * @param topicSnapshots Topic keys from {@link NoteTopics}, each with a loader for its current notes
+     * @param lastEventId Value of the Last-Event-ID header, or null on a fresh connection
+     * @return The emitter to return from the controller
+     */
+    public SseEmitter subscribe(Map<String, Supplier<? extends Collection<?>>> topicSnapshots, String lastEventId) {
+        return subscribe(topicSnapshots, lastEventId, null);
+    }
+
+    /**
+     * Same as {@link #subscribe(Map, String)}, counting the connection
+     * against its owner's limit.
+     * @param owner Authenticated username, or null for an anonymous viewer, who is only subject to the instance limit
+     * @throws ResponseStatusException 429 over the per-user limit, 503 over the instance limit or while shutting down
+     */
+    public SseEmitter subscribe(Map<String, Supplier<? extends Collection<?>>> topicSnapshots, String lastEventId,
+            String owner) {
+        return subscribe(topicSnapshots, lastEventId, owner, false);
+    }
+
+    /**
+     * Same as {@link #subscribe(Map, String, String)}, optionally starting
+     * a fresh connection with a snapshot of the topics' notes.
+     * @param initialSnapshot Send a "snapshot" event first when there is no Last-Event-ID
+     */
+    public SseEmitter subscribe(Map<String, Supplier<? extends Collection<?>>> topicSnapshots, String lastEventId,
+            String owner, boolean initialSnapshot) {
+        return subscribe(createEmitter(), topicSnapshots, lastEventId, owner, initialSnapshot);
+    }
+
+    /**
+     * Same as {@link #subscribe(Map, String)}, but events are written as a
+     * CBOR sequence: each event is one map with "id", "event" and "data".
+     * Ids, replay and snapshots behave exactly as for SSE.
+     */
+    public ResponseBodyEmitter subscribeCbor(Map<String, Supplier<? extends Collection<?>>> topicSnapshots, String lastEventId) {
+        return subscribeCbor(topicSnapshots, lastEventId, null);
+    }
+
+    // Binary counterpart of subscribe(Map, String, String), with the same limits
+    public ResponseBodyEmitter subscribeCbor(Map<String, Supplier<? extends Collection<?>>> topicSnapshots,
+            String lastEventId, String owner) {
+        return subscribeCbor(topicSnapshots, lastEventId, owner, false);
+    }
+
+    // Binary counterpart of subscribe(Map, String, String, boolean)
+    public ResponseBodyEmitter subscribeCbor(Map<String, Supplier<? extends Collection<?>>> topicSnapshots,
+            String lastEventId, String owner, boolean initialSnapshot) {
+        return subscribe(createCborEmitter(), topicSnapshots, lastEventId, owner, initialSnapshot);
+    }
+
+    private <E extends ResponseBodyEmitter> E subscribe(
+            E emitter, Map<String, Supplier<? extends Collection<?>>> topicSnapshots, String lastEventId, String owner,
+            boolean initialSnapshot) {
+        admit(owner);
+        SseSubscriber subscriber = new SseSubscriber(emitter, Set.copyOf(topicSnapshots.keySet()), owner,
+            properties.getQueueCapacity(), sender, cborMapper, failed -> unsubscribe(failed, Reap.FAILED));
+        subscribers.add(subscriber);
+
+        emitter.onCompletion(() -> unsubscribe(subscriber, null));
+        emitter.onTimeout(() -> {
+            // Complete instead of letting the container answer 503; the client resumes with Last-Event-ID
+            subscriber.close(null);
+            unsubscribe(subscriber, null);
+        });
+        emitter.onError(e -> unsubscribe(subscriber, Reap.FAILED));
+
+        Long resumeAfter = parseSeq(lastEventId);
+        List<String> snapshotTopics = new ArrayList<>();
+        String snapshotId;
+
+        publishLock.lock();
+        try {
+            register(subscriber);
+            snapshotId = eventId(lastSeq);
+
+            if (lastEventId != null) {
+                List<NoteEvent> missed = new ArrayList<>();
+                for (String topic : subscriber.getTopics()) {
+                    if (resumeAfter == null || !canReplay(topic, resumeAfter)) {
+                        snapshotTopics.add(topic);
+                    } else {
+                        EventRing ring = rings.get(topic);
+                        if (ring != null) {
+                            ring.collectAfter(resumeAfter, missed);
+                        }
+                    }
+                }
+                if (missed.size() >= properties.getQueueCapacity()) {
+                    // Too much to replay through the queue; a snapshot is cheaper
+                    snapshotTopics.clear();
+                    snapshotTopics.addAll(subscriber.getTopics());
+                    missed.clear();
+                }
+                // Topics share one sequence, so sorting restores publish order across them
+                missed.sort(Comparator.comparingLong(NoteEvent::getSeq));
+                for (NoteEvent event : missed) {
+                    subscriber.enqueue(event);
+                }
+            } else if (initialSnapshot) {
+                snapshotTopics.addAll(subscriber.getTopics());
+            }
+        } finally {
+            publishLock.unlock();
+        }
+
+        if (!snapshotTopics.isEmpty()) {
+            // Load outside the lock; live events queued meanwhile are sent after the snapshot
+            List<Object> notes = new ArrayList<>();
+            for (String topic : snapshotTopics) {
+                notes.addAll(topicSnapshots.get(topic).get());
+            }
+            if (lastEventId != null) {
+                logger.debug("Last-Event-ID {} not replayable for {}, sending snapshot", lastEventId, snapshotTopics);
+            }
+            NoteEvent snapshot = new NoteEvent(0, snapshotId, null, SNAPSHOT_EVENT, notes);
+            boolean queued;
+            publishLock.lock();
+            try {
+                // Under the lock, so no event is published between filtering the queue and installing the filter
+                queued = subscriber.enqueueSnapshot(snapshot, new SnapshotFilter(Set.copyOf(snapshotTopics), notes));
+            } finally {
+                publishLock.unlock();
+            }
+            if (!queued) {
+                subscriber.close(null);
+            }
+        }
+
+        subscriber.start();
+        logger.debug("SSE subscriber registered for topics {}", subscriber.getTopics());
+        return emitter;
+    }
+
+    /**
+     * Publishes an event to the topic's subscribers on every instance.
+     */
+    public void publish(String topic, Object payload) {
+        publishLocal(topic, payload);
+        if (eventBus != null) {
+            eventBus.publish(NoteBusMessage.broadcast(topic, payload));
+        }
+    }
+
+    /**
+     * Stamps and records an event, then queues it for every subscriber of the
+     * topic on this instance. Subscribers whose queue is full are
+     * disconnected rather than allowed to hold up the others; they can resume
+     * with Last-Event-ID.
+     */
+    public void publishLocal(String topic, Object payload) {
+        publishLock.lock();
+        try {
+            long seq = ++lastSeq;
+            NoteEvent event = new NoteEvent(seq, eventId(seq), topic, null, payload);
+            ringFor(topic).add(event);
+
+            Set<SseSubscriber> subscribers = subscribersByTopic.get(topic);
+            if (subscribers == null) {
+                return;
+            }
+            for (SseSubscriber subscriber : subscribers) {
+                if (subscriber.isClosed()) {
+                    continue;
+                }
+                if (!subscriber.enqueue(event)) {
+                    logger.warn("Dropping slow SSE subscriber on topics {}", subscriber.getTopics());
+                    subscriber.close(null);
+                    unsubscribe(subscriber, Reap.SLOW);
+                }
+            }
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    /**
+     * Sends a heartbeat to every connection that has been quiet for half the
+     * heartbeat interval, and reaps those with no successful write for the
+     * idle timeout: a client that vanished without closing its socket, or
+     * whose sender is stuck writing to it.
+     */
+    @Scheduled(fixedDelayString = "${app.sse.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        long now = System.nanoTime();
+        long quietNanos = TimeUnit.MILLISECONDS.toNanos(properties.getHeartbeatIntervalMs()) / 2;
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(properties.getIdleTimeoutMs());
+        for (SseSubscriber subscriber : subscribers) {
+            long silentNanos = now - subscriber.getLastWriteNanos();
+            if (subscriber.isClosed()) {
+                // Closed without the container telling us
+                unsubscribe(subscriber, null);
+            } else if (silentNanos > idleNanos) {
+                logger.debug("Reaping idle SSE subscriber on topics {}", subscriber.getTopics());
+                subscriber.close(null);
+                unsubscribe(subscriber, Reap.IDLE);
+            } else if (silentNanos >= quietNanos) {
+                subscriber.heartbeat();
+            }
+        }
+    }
+
+    // Number of live connections
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    // Connections closed by the server for the given reason since startup
+    long getReapCount(Reap reap) {
+        return reaps.get(reap).get();
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        Gauge.builder("sse.connections", subscribers, Set::size)
+            .description("Open SSE connections")
+            .register(registry);
+        for (Reap reap : Reap.values()) {
+            FunctionCounter.builder("sse.reaped", reaps.get(reap), AtomicLong::get)
+                .description("SSE connections closed by the server")
+                .tag("reason", reap.name().toLowerCase(Locale.ROOT))
+                .register(registry);
+        }
+        FunctionCounter.builder("sse.rejected", rejected, AtomicLong::get)
+            .description("SSE connections refused by a connection limit or during shutdown")
+            .register(registry);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    /**
+     * Refuses new connections, sends each open one a retry hint and waits up
+     * to app.sse.shutdown-drain-ms for them to complete, then closes the rest.
+     * Runs before the web server's graceful shutdown, which would otherwise
+     * wait for these never-ending requests until its timeout.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        for (SseSubscriber subscriber : subscribers) {
+            if (!subscriber.closeAfterQueued(properties.getReconnectDelayMs())) {
+                subscriber.close(null);
+            }
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getShutdownDrainMs());
+        while (subscribers.stream().anyMatch(subscriber -> !subscriber.isClosed()) && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        for (SseSubscriber subscriber : subscribers) {
+            subscriber.close(null);
+            unsubscribe(subscriber, null);
+        }
+        logger.info("SSE connections drained");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Stops ahead of the web server (lower phases stop later)
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE;
+    }
+
+    // Overridden in tests to capture what would be written to the socket
+    SseEmitter createEmitter() {
+        return new SseEmitter(properties.getTimeoutMs());
+    }
+
+    // Binary counterpart of createEmitter(); also overridden in tests
+    ResponseBodyEmitter createCborEmitter() {
+        return new ResponseBodyEmitter(properties.getTimeoutMs());
+    }
+
+    // Takes a connection slot for the owner, or refuses the connection
+    private void admit(String owner) {
+        if (!running) {
+            rejected.incrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Shutting down");
+        }
+        if (connections.incrementAndGet() > properties.getMaxConnections()) {
+            connections.decrementAndGet();
+            rejected.incrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many connections");
+        }
+        if (owner == null) {
+            return;
+        }
+        boolean[] admitted = { false };
+        connectionsByOwner.compute(owner, (key, count) -> {
+            int current = count != null ? count : 0;
+            if (current >= properties.getMaxConnectionsPerUser()) {
+                return count;
+            }
+            admitted[0] = true;
+            return current + 1;
+        });
+        if (!admitted[0]) {
+            connections.decrementAndGet();
+            rejected.incrementAndGet();
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many connections for " + owner);
+        }
+    }
+
+    private void release(String owner) {
+        connections.decrementAndGet();
+        if (owner != null) {
+            connectionsByOwner.computeIfPresent(owner, (key, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    private void register(SseSubscriber subscriber) {
+        for (String topic : subscriber.getTopics()) {
+            // compute() keeps registration atomic with the empty-set cleanup in unsubscribe()
+            subscribersByTopic.compute(topic, (key, subscribers) -> {
+                Set<SseSubscriber> target = subscribers != null ? subscribers : ConcurrentHashMap.newKeySet();
+                target.add(subscriber);
+                return target;
+            });
+        }
+    }
+
+    // Forgets a connection and frees its slot; only the first call for a subscriber has any effect
+    private void unsubscribe(SseSubscriber subscriber, Reap reap) {
+        if (!subscribers.remove(subscriber)) {
+            return;
+        }
+        release(subscriber.getOwner());
+        if (reap != null) {
+            reaps.get(reap).incrementAndGet();
+        }
+        subscriber.markClosed();
+        for (String topic : subscriber.getTopics()) {
+            subscribersByTopic.computeIfPresent(topic, (key, subscribers) -> {
+                subscribers.remove(subscriber);
+                return subscribers.isEmpty() ? null : subscribers;
+            });
+        }
+    }
+
+    // Caller holds publishLock
+    private EventRing ringFor(String topic) {
+        EventRing ring = rings.get(topic);
+        if (ring == null) {
+            ring = new EventRing(properties.getReplayBufferSize());
+            rings.put(topic, ring);
+            // Bound the number of rings: forget the least recently published topic
+            if (rings.size() > properties.getMaxReplayTopics()) {
+                Map.Entry<String, EventRing> eldest = rings.entrySet().iterator().next();
+                droppedRingsThrough = Math.max(droppedRingsThrough, eldest.getValue().getLastSeq());
+                rings.remove(eldest.getKey());
+            }
+        }
+        return ring;
+    }
+
+    // Caller holds publishLock
+    private boolean canReplay(String topic, long seq) {
+        if (seq > lastSeq) {
+            return false;
+        }
+        EventRing ring = rings.get(topic);
+        if (ring == null) {
+            // Either nothing was ever published on the topic, or its ring was dropped
+            return seq >= droppedRingsThrough;
+        }
+        return ring.canReplayAfter(seq);
+    }
+
+    private String eventId(long seq) {
+        return epoch + "-" + seq;
+    }
+
+    // Returns the seq of an id issued by this process, or null if it cannot be replayed from
+    private Long parseSeq(String lastEventId) {
+        if (lastEventId == null || !lastEventId.startsWith(epoch + "-")) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(epoch.length() + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+    }
+}
@@ -0,0 +1,169 @@
+package com.Sticky_notes.Sticky_notes.realtime;
+
+import com.Sticky_notes.Sticky_notes.models.Note;
+import com.Sticky_notes.Sticky_notes.services.NotePositionBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sends committed note changes to SSE viewers, off the writing thread.
+ * Writers publish a {@link NoteChangedEvent} in their transaction; once it
+ * commits the change is queued here and one broadcast thread hands it to
+ * {@link NoteBroadcastHub}, so a write never waits for fan-out however many
+ * viewers are connected. A rolled back change is never broadcast.
+ *
+ * Viewers are sent a {@link NoteDelta} with only the fields the change
+ * touched. The queue holds the latest change per note: a note changed again
+ * before its broadcast went out is sent once, in its final state, with
+ * every field either change touched. When more than
+ * app.notes.broadcast.queue-capacity notes are waiting, the writer drains
+ * the queue itself before returning, which slows writes down instead of
+ * letting the backlog grow. Only one thread drains at a time, so the
+ * changes of a note always reach viewers in order.
+ */
+@Component
+public class NoteBroadcaster {
+    private static final Logger logger = LoggerFactory.getLogger(NoteBroadcaster.class);
+
+    private final NoteBroadcastHub broadcastHub;
+    private final NotePositionBuffer positionBuffer;
+    private final int queueCapacity;
+    private final ExecutorService worker;
+
+    // Latest unsent change per note, oldest first; guarded by itself
+    private final Map<Long, NoteChangedEvent> pending = new LinkedHashMap<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final ReentrantLock drainLock = new ReentrantLock();
+
+    private final Counter coalesced;
+    private final Counter writerDrains;
+
+    public NoteBroadcaster(
+            NoteBroadcastHub broadcastHub,
+            NotePositionBuffer positionBuffer,
+            MeterRegistry meterRegistry,
+            @Value("${app.notes.broadcast.queue-capacity:10000}") int queueCapacity) {
+        this.broadcastHub = broadcastHub;
+        this.positionBuffer = positionBuffer;
+        this.queueCapacity = queueCapacity;
+        this.worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "note-broadcast");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.coalesced = Counter.builder("notes.broadcast.coalesced")
+            .description("Note changes superseded by a newer change before they were broadcast")
+            .register(meterRegistry);
+        this.writerDrains = Counter.builder("notes.broadcast.writer.drains")
+            .description("Times a writer drained a full broadcast queue itself")
+            .register(meterRegistry);
+        Gauge.builder("notes.broadcast.pending", this, NoteBroadcaster::getPendingCount)
+            .description("Note changes waiting to be broadcast")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Queues a committed change for broadcast. Runs immediately for changes
+     * published outside a transaction. Changes of other instances are
+     * broadcast through the event bus instead.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onNoteChanged(NoteChangedEvent event) {
+        if (!event.isBroadcast() || event.isRemote() || event.getNote() == null) {
+            return;
+        }
+        int waiting;
+        synchronized (pending) {
+            NoteChangedEvent earlier = pending.get(event.getNoteId());
+            if (earlier != null) {
+                pending.put(event.getNoteId(), earlier.followedBy(event));
+                coalesced.increment();
+            } else {
+                pending.put(event.getNoteId(), event);
+            }
+            waiting = pending.size();
+        }
+        if (waiting > queueCapacity) {
+            writerDrains.increment();
+            drain();
+        } else if (scheduled.compareAndSet(false, true)) {
+            worker.execute(() -> {
+                scheduled.set(false);
+                drain();
+            });
+        }
+    }
+
+    // Number of notes with a change waiting to be broadcast
+    public int getPendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdown();
+        try {
+            worker.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        drainLock.lock();
+        try {
+            NoteChangedEvent event;
+            while ((event = take()) != null) {
+                try {
+                    broadcast(event);
+                } catch (RuntimeException e) {
+                    logger.error("Error broadcasting change of note {}: {}", event.getNoteId(), e.getMessage(), e);
+                }
+            }
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    private NoteChangedEvent take() {
+        synchronized (pending) {
+            Iterator<NoteChangedEvent> oldest = pending.values().iterator();
+            if (!oldest.hasNext()) {
+                return null;
+            }
+            NoteChangedEvent event = oldest.next();
+            oldest.remove();
+            return event;
+        }
+    }
+
+    private void broadcast(NoteChangedEvent event) {
+        Note note = event.getNote();
+        String topic = NoteTopics.forNote(note);
+        if (event.isDeleted()) {
+            broadcastHub.publish(topic, NoteDelta.deleted(note.getId()));
+        } else {
+            // Viewers must see a position still waiting in the write-behind buffer, not the stored one
+            broadcastHub.publish(topic, NoteDelta.of(event.getChange(), positionBuffer.overlay(note)));
+        }
+    }
+}
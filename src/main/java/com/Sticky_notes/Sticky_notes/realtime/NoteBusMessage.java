@@ -0,0 +1,77 @@
+package com.Sticky_notes.Sticky_notes.realtime;
+
+import com.Sticky_notes.Sticky_notes.models.Note;
+
+/**
+ * One message on the {@link NoteEventBus}: either an SSE broadcast for a
+ * topic, or a {@link NoteChangedEvent} for the read-side caches of the other
+ * instances.
+ *
+ * @param origin Id of the instance that published it
+ * @param seq Sequence number within the origin; origin and seq identify the message
+ * @param sentAt Wall-clock time of publishing, in epoch milliseconds
+ * @param topic BROADCAST only: the {@link NoteTopics} key
+ * @param payload BROADCAST only: the event data, usually a {@link NoteDelta}, or null when it was too large
+ *                and the note must be reloaded
+ * @param note CHANGE only: as {@link NoteChangedEvent#getNote()}
+ */
+public record NoteBusMessage(
+        String origin,
+        long seq,
+        long sentAt,
+        Kind kind,
+        String topic,
+        Object payload,
+        Long noteId,
+        Note note,
+        boolean deleted,
+        Integer x,
+        Integer y) {
+
+    public enum Kind {
+        BROADCAST,
+        CHANGE
+    }
+
+    static NoteBusMessage broadcast(String topic, Object payload) {
+        Long noteId = payload instanceof NoteDelta delta ? delta.noteId() : null;
+        return new NoteBusMessage(null, 0, 0, Kind.BROADCAST, topic, payload, noteId, null, false, null, null);
+    }
+
+    static NoteBusMessage change(NoteChangedEvent event) {
+        return new NoteBusMessage(null, 0, 0, Kind.CHANGE, null, null, event.getNoteId(), event.getNote(),
+            event.isDeleted(), event.getX(), event.getY());
+    }
+
+    NoteBusMessage stamped(String origin, long seq, long sentAt) {
+        return new NoteBusMessage(origin, seq, sentAt, kind, topic, payload, noteId, note, deleted, x, y);
+    }
+
+    /**
+     * The same message without the note it carries, for transports with a
+     * size limit. Receivers reload a broadcast note by id; a change without
+     * its note is treated as a move of an unknown note, except a delete,
+     * which keeps the note minus its text.
+     */
+    NoteBusMessage withoutBody() {
+        if (kind == Kind.BROADCAST) {
+            return noteId != null ? new NoteBusMessage(origin, seq, sentAt, kind, topic, null, noteId, null, false, null, null) : this;
+        }
+        if (deleted && note != null) {
+            Note stub = new Note();
+            stub.setId(note.getId());
+            stub.setX(note.getX());
+            stub.setY(note.getY());
+            stub.setUsername(note.getUsername());
+            stub.setIsPrivate(note.getIsPrivate());
+            stub.setBoardType(note.getBoardType());
+            return new NoteBusMessage(origin, seq, sentAt, kind, topic, null, noteId, stub, true, x, y);
+        }
+        return new NoteBusMessage(origin, seq, sentAt, kind, topic, null, noteId, null, deleted, x, y);
+    }
+
+    // Identifies the message across instances
+    String key() {
+        return origin + ':' + seq;
+    }
+}
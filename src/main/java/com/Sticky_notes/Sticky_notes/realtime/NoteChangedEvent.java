@@ -0,0 +1,157 @@
+package com.Sticky_notes.Sticky_notes.realtime;
+
+import com.Sticky_notes.Sticky_notes.models.Note;
+
+/**
+ * Application event published whenever a note is created, moved, changed or
+ * deleted. Read-side caches listen to it to invalidate exactly the feeds the
+ * note appears in, and {@link NoteBroadcaster} tells SSE viewers. Writers
+ * publish it inside their transaction; listeners act once it commits.
+ * Events of other instances are republished here by
+ * {@link NoteClusterRelay}, marked as remote.
+ */
+public final class NoteChangedEvent {
+    /**
+     * Which fields a change touched. SSE viewers are sent a delta with just
+     * those fields ({@link NoteDelta}), so the kind must not claim less than
+     * what changed; UPDATED makes no claim and sends the whole note.
+     */
+    public enum Change {
+        CREATED,
+        // Only x and y
+        MOVED,
+        // Only the done flag
+        DONE,
+        UPDATED,
+        DELETED
+    }
+
+    private final Long noteId;
+    private final Note note;
+    private final Change change;
+    private final Integer x;
+    private final Integer y;
+    private final boolean broadcast;
+    private final boolean remote;
+
+    private NoteChangedEvent(Long noteId, Note note, Change change, Integer x, Integer y, boolean broadcast,
+            boolean remote) {
+        this.noteId = noteId;
+        this.note = note;
+        this.change = change;
+        this.x = x;
+        this.y = y;
+        this.broadcast = broadcast;
+        this.remote = remote;
+    }
+
+    // The note changed in an unspecified way; carries its new state
+    public static NoteChangedEvent of(Note note) {
+        return of(note, Change.UPDATED);
+    }
+
+    /**
+     * The note was created or changed; carries its new state.
+     * @param change What changed; DELETED is not allowed here, see {@link #deleted(Note)}
+     */
+    public static NoteChangedEvent of(Note note, Change change) {
+        if (change == Change.DELETED) {
+            throw new IllegalArgumentException("Use NoteChangedEvent.deleted for deletes");
+        }
+        return new NoteChangedEvent(note.getId(), note, change, note.getX(), note.getY(), true, false);
+    }
+
+    // The note was created; carries its new state
+    public static NoteChangedEvent created(Note note) {
+        return of(note, Change.CREATED);
+    }
+
+    /**
+     * The note was updated; the kind follows from what differs from its previous state.
+     */
+    public static NoteChangedEvent updated(Note note, boolean positionChanged, boolean doneChanged) {
+        Change change = positionChanged == doneChanged ? Change.UPDATED : positionChanged ? Change.MOVED : Change.DONE;
+        return of(note, change);
+    }
+
+    // The note was deleted; carries its last state
+    public static NoteChangedEvent deleted(Note note) {
+        return new NoteChangedEvent(note.getId(), note, Change.DELETED, note.getX(), note.getY(), true, false);
+    }
+
+    // A buffered position reached the database; caches must follow, but it is not broadcast
+    public static NoteChangedEvent flushed(Note note) {
+        return new NoteChangedEvent(note.getId(), note, Change.MOVED, note.getX(), note.getY(), false, false);
+    }
+
+    // A move of a note that was not loaded; listeners keyed by owner or board must assume any feed is affected
+    public static NoteChangedEvent moved(Long noteId, int x, int y) {
+        return new NoteChangedEvent(noteId, null, Change.MOVED, x, y, false, false);
+    }
+
+    // The same change, received from another instance; it is not sent back out
+    public NoteChangedEvent asRemote() {
+        return new NoteChangedEvent(noteId, note, change, x, y, broadcast, true);
+    }
+
+    /**
+     * One change with the effect of this one followed by a later change of
+     * the same note, for when only the final state is broadcast: it claims
+     * every field either touched.
+     */
+    public NoteChangedEvent followedBy(NoteChangedEvent later) {
+        if (later.change == Change.DELETED || later.note == null) {
+            return later;
+        }
+        Change merged = change == Change.CREATED ? Change.CREATED
+            : change == later.change ? later.change
+            : Change.UPDATED;
+        return new NoteChangedEvent(later.noteId, later.note, merged, later.x, later.y, later.broadcast, later.remote);
+    }
+
+    public Long getNoteId() {
+        return noteId;
+    }
+
+    // State of the note after the change (before it, for a delete), or null when unknown
+    public Note getNote() {
+        return note;
+    }
+
+    public boolean isDeleted() {
+        return change == Change.DELETED;
+    }
+
+    public Change getChange() {
+        return change;
+    }
+
+    // Position after the change
+    public Integer getX() {
+        return x;
+    }
+
+    public Integer getY() {
+        return y;
+    }
+
+    // Owner of the note, or null when unknown
+    public String getUsername() {
+        return note != null ? note.getUsername() : null;
+    }
+
+    // Board of the note, or null when unknown
+    public String getBoardType() {
+        return note != null ? note.getBoardType() : null;
+    }
+
+    // True when SSE viewers of the note's topic should be told
+    public boolean isBroadcast() {
+        return broadcast;
+    }
+
+    // True when the change was made on another instance
+    public boolean isRemote() {
+        return remote;
+    }
+}
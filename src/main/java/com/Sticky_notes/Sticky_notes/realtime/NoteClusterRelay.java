@@ -0,0 +1,71 @@
+package com.Sticky_notes.Sticky_notes.realtime;
+
+import com.Sticky_notes.Sticky_notes.repository.NoteRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Connects this instance to the {@link NoteEventBus}. Local
+ * {@link NoteChangedEvent}s are sent out so the other instances' caches and
+ * indexes stay current; their broadcasts and change events are replayed
+ * here as if they had happened locally. Broadcasts are sent out by
+ * {@link NoteBroadcastHub#publish} itself.
+ */
+@Component
+public class NoteClusterRelay {
+    private final NoteEventBus eventBus;
+    private final NoteBroadcastHub broadcastHub;
+    private final ApplicationEventPublisher eventPublisher;
+    private final NoteRepository noteRepository;
+
+    public NoteClusterRelay(
+            NoteEventBus eventBus,
+            NoteBroadcastHub broadcastHub,
+            ApplicationEventPublisher eventPublisher,
+            NoteRepository noteRepository) {
+        this.eventBus = eventBus;
+        this.broadcastHub = broadcastHub;
+        this.eventPublisher = eventPublisher;
+        this.noteRepository = noteRepository;
+        eventBus.subscribe(this::onMessage);
+    }
+
+    @EventListener
+    public void onNoteChanged(NoteChangedEvent event) {
+        if (!event.isRemote()) {
+            eventBus.publish(NoteBusMessage.change(event));
+        }
+    }
+
+    void onMessage(NoteBusMessage message) {
+        switch (message.kind()) {
+            case BROADCAST -> {
+                if (message.payload() != null) {
+                    broadcastHub.publishLocal(message.topic(), message.payload());
+                } else if (message.noteId() != null) {
+                    // Sent without the note to fit the transport; gone if deleted meanwhile. Which fields
+                    // changed is lost with it, so viewers get the whole note
+                    noteRepository.findById(message.noteId())
+                        .ifPresent(note -> broadcastHub.publishLocal(message.topic(), NoteDelta.updated(note)));
+                }
+            }
+            case CHANGE -> {
+                NoteChangedEvent event = toEvent(message);
+                if (event != null) {
+                    eventPublisher.publishEvent(event.asRemote());
+                }
+            }
+        }
+    }
+
+    private static NoteChangedEvent toEvent(NoteBusMessage message) {
+        if (message.note() != null) {
+            return message.deleted() ? NoteChangedEvent.deleted(message.note()) : NoteChangedEvent.of(message.note());
+        }
+        if (message.noteId() != null && message.x() != null && message.y() != null) {
+            return NoteChangedEvent.moved(message.noteId(), message.x(), message.y());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,70 @@
+package com.Sticky_notes.Sticky_notes.realtime;
+
+import com.Sticky_notes.Sticky_notes.models.Note;
+import com.Sticky_notes.Sticky_notes.payload.response.NoteView;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Locale;
+
+/**
+ * Payload of a live note event: only the fields a change touched, so a drag
+ * or a done toggle does not resend the note's text. Clients apply it as a
+ * patch to the note with that id. Serialized without null fields:
+ * <ul>
+ *     <li>{"type":"created","note":{...}} - a new note, in full</li>
+ *     <li>{"type":"moved","id":1,"x":10,"y":20,"version":3}</li>
+ *     <li>{"type":"done","id":1,"done":true,"version":4}</li>
+ *     <li>{"type":"updated","note":{...}} - several fields changed; replaces the note</li>
+ *     <li>{"type":"deleted","id":1}</li>
+ * </ul>
+ * Every delta but a delete carries the note's new version, which is also
+ * what a client sends in If-Match for its next conditional update.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record NoteDelta(
+        String type,
+        Long id,
+        Integer x,
+        Integer y,
+        Boolean done,
+        Long version,
+        NoteView note) {
+
+    public static final String CREATED = "created";
+    public static final String MOVED = "moved";
+    public static final String DONE = "done";
+    public static final String UPDATED = "updated";
+    public static final String DELETED = "deleted";
+
+    /**
+     * The delta for a change, taken from the note's state after it.
+     */
+    public static NoteDelta of(NoteChangedEvent.Change change, Note note) {
+        return switch (change) {
+            case MOVED -> new NoteDelta(MOVED, note.getId(), note.getX(), note.getY(), null, note.getVersion(), null);
+            case DONE -> new NoteDelta(DONE, note.getId(), null, null, note.isDone(), note.getVersion(), null);
+            case DELETED -> deleted(note.getId());
+            case CREATED, UPDATED -> new NoteDelta(change.name().toLowerCase(Locale.ROOT), null, null, null, null, null,
+                NoteView.of(note));
+        };
+    }
+
+    // The whole note, for when what changed is not known
+    public static NoteDelta updated(Note note) {
+        return of(NoteChangedEvent.Change.UPDATED, note);
+    }
+
+    public static NoteDelta deleted(Long id) {
+        return new NoteDelta(DELETED, id, null, null, null, null, null);
+    }
+
+    // Id of the note the delta applies to
+    public Long noteId() {
+        return note != null ? note.id() : id;
+    }
+
+    // Version of the note after the change, or null for a delete
+    public Long noteVersion() {
+        return note != null ? note.version() : version;
+    }
+}
@@ -0,0 +1,296 @@
+package com.Sticky_notes.Sticky_notes.realtime;
+
+import com.Sticky_notes.Sticky_notes.models.Note;
+import com.Sticky_notes.Sticky_notes.repository.NoteRepository;
+import com.Sticky_notes.Sticky_notes.services.NotePositionBuffer;
+import com.Sticky_notes.Sticky_notes.services.NoteService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collaborative drag stream over WebSocket. Viewers send every step of a
+ * drag; steps are coalesced per note and fanned out to the other viewers of
+ * the note's board once per tick, so nobody receives more than one position
+ * per note per tick however fast the dragging client sends.
+ *
+ * Steps are never written to the database. Only the drop is persisted, as a
+ * regular move that bumps the note's version and is broadcast over SSE; a
+ * drag that goes idle, or whose client disconnects, is dropped where it was.
+ * Drops are coalesced like steps: a note dropped any number of times within
+ * a tick is written once, at its last drop position, on that tick.
+ */
+@Component
+public class NoteDragChannel {
+    private static final Logger logger = LoggerFactory.getLogger(NoteDragChannel.class);
+
+    private final NoteRepository noteRepository;
+    private final NoteService noteService;
+    private final NotePositionBuffer positionBuffer;
+    private final long idleDropNanos;
+    private final int sendTimeLimitMs;
+    private final int bufferSizeLimit;
+
+    // Connected viewers, by session id and by topic
+    private final Map<String, Viewer> viewers = new ConcurrentHashMap<>();
+    private final Map<String, Set<Viewer>> viewersByTopic = new ConcurrentHashMap<>();
+
+    // Drags in progress, by note id
+    private final Map<Long, Drag> drags = new ConcurrentHashMap<>();
+
+    // Steps not yet fanned out, by topic then note id; a newer step of a note replaces the older one
+    private final Map<String, Map<Long, Step>> pendingByTopic = new ConcurrentHashMap<>();
+
+    private final Counter stepsReceived;
+    private final Counter framesSent;
+    private final Counter drops;
+
+    private record Viewer(WebSocketSession session, Set<String> topics) {
+    }
+
+    private record Step(long noteId, int x, int y, boolean drop, String origin) {
+    }
+
+    private static final class Drag {
+        private final long noteId;
+        private final String topic;
+        private final String sessionId;
+        private volatile int x;
+        private volatile int y;
+        private volatile long touchedAt;
+        // Set by a drop frame; the tick persists the drag. A later step resumes it
+        private volatile boolean dropped;
+
+        private Drag(long noteId, String topic, String sessionId) {
+            this.noteId = noteId;
+            this.topic = topic;
+            this.sessionId = sessionId;
+        }
+    }
+
+    public NoteDragChannel(
+            NoteRepository noteRepository,
+            NoteService noteService,
+            NotePositionBuffer positionBuffer,
+            MeterRegistry meterRegistry,
+            @Value("${app.notes.drag.idle-drop-ms:2000}") long idleDropMs,
+            @Value("${app.notes.drag.send-time-limit-ms:5000}") int sendTimeLimitMs,
+            @Value("${app.notes.drag.buffer-size-limit:65536}") int bufferSizeLimit) {
+        this.noteRepository = noteRepository;
+        this.noteService = noteService;
+        this.positionBuffer = positionBuffer;
+        this.idleDropNanos = idleDropMs * 1_000_000L;
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.stepsReceived = Counter.builder("notes.drag.steps")
+            .description("Drag steps received over WebSocket")
+            .register(meterRegistry);
+        this.framesSent = Counter.builder("notes.drag.frames")
+            .description("Coalesced drag frames sent to viewers")
+            .register(meterRegistry);
+        this.drops = Counter.builder("notes.drag.drops")
+            .description("Drags persisted as a single move")
+            .register(meterRegistry);
+        Gauge.builder("notes.drag.viewers", viewers, Map::size)
+            .description("Open drag WebSocket connections")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Registers an authenticated connection as a viewer of the given topics.
+     */
+    public void join(WebSocketSession session, Set<String> topics) {
+        // Fan-out runs on the tick thread while the session may be answering elsewhere; the decorator serializes sends
+        Viewer viewer = new Viewer(
+            new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMs, bufferSizeLimit), topics);
+        viewers.put(session.getId(), viewer);
+        for (String topic : topics) {
+            viewersByTopic.computeIfAbsent(topic, key -> ConcurrentHashMap.newKeySet()).add(viewer);
+        }
+    }
+
+    /**
+     * Removes a connection and drops every note it was still dragging.
+     */
+    public void leave(WebSocketSession session) {
+        Viewer viewer = viewers.remove(session.getId());
+        if (viewer == null) {
+            return;
+        }
+        for (String topic : viewer.topics()) {
+            viewersByTopic.computeIfPresent(topic, (key, set) -> {
+                set.remove(viewer);
+                return set.isEmpty() ? null : set;
+            });
+        }
+        for (Drag drag : drags.values()) {
+            if (drag.sessionId.equals(session.getId()) && drags.remove(drag.noteId, drag)) {
+                drop(drag.noteId, drag.topic, drag.x, drag.y, session.getId());
+            }
+        }
+    }
+
+    /**
+     * Accepts one drag step. The first step of a drag loads the note once to
+     * check it is on a board the viewer is watching.
+     * @param drop True for the last step of the drag, which is persisted on the next tick
+     * @return False when the note does not exist or is not visible to the viewer
+     */
+    public boolean step(WebSocketSession session, long noteId, int x, int y, boolean drop) {
+        Viewer viewer = viewers.get(session.getId());
+        if (viewer == null) {
+            return false;
+        }
+        Drag drag = drags.get(noteId);
+        if (drag == null || !drag.sessionId.equals(session.getId())) {
+            // A new drag, or this viewer took over a note someone else was dragging: last one wins
+            Optional<Note> note = noteRepository.findById(noteId);
+            if (note.isEmpty()) {
+                return false;
+            }
+            String topic = NoteTopics.forNote(note.get());
+            if (!viewer.topics().contains(topic)) {
+                return false;
+            }
+            drag = new Drag(noteId, topic, session.getId());
+            drags.put(noteId, drag);
+        }
+        drag.x = x;
+        drag.y = y;
+        drag.touchedAt = System.nanoTime();
+        drag.dropped = drop;
+        stepsReceived.increment();
+
+        // The drag stays registered until the tick persists a drop, so repeated drop frames reuse it
+        stage(drag.topic, new Step(noteId, x, y, drop, session.getId()));
+        return true;
+    }
+
+    /**
+     * Sends each topic's coalesced steps to its viewers, then persists the
+     * drags dropped since the last tick and drops those that have been idle
+     * for too long.
+     */
+    @Scheduled(fixedDelayString = "${app.notes.drag.fanout-interval-ms:50}")
+    public void tick() {
+        for (String topic : List.copyOf(pendingByTopic.keySet())) {
+            Map<Long, Step> taken = pendingByTopic.remove(topic);
+            if (taken != null && !taken.isEmpty()) {
+                fanOut(topic, taken.values());
+            }
+        }
+
+        long now = System.nanoTime();
+        for (Drag drag : drags.values()) {
+            if (drag.dropped) {
+                if (drags.remove(drag.noteId, drag)) {
+                    // Viewers were sent the drop when it was staged
+                    persist(drag.noteId, drag.x, drag.y);
+                }
+            } else if (now - drag.touchedAt > idleDropNanos && drags.remove(drag.noteId, drag)) {
+                drop(drag.noteId, drag.topic, drag.x, drag.y, drag.sessionId);
+            }
+        }
+    }
+
+    // Number of drags in progress
+    public int getDragCount() {
+        return drags.size();
+    }
+
+    private void stage(String topic, Step step) {
+        // compute() keeps this atomic with the tick taking the topic's map away
+        pendingByTopic.compute(topic, (key, steps) -> {
+            Map<Long, Step> target = steps != null ? steps : new ConcurrentHashMap<>();
+            target.put(step.noteId(), step);
+            return target;
+        });
+    }
+
+    // Persists the final position and tells the other viewers where the note landed
+    private void drop(long noteId, String topic, int x, int y, String origin) {
+        stage(topic, new Step(noteId, x, y, true, origin));
+        persist(noteId, x, y);
+    }
+
+    private void persist(long noteId, int x, int y) {
+        try {
+            // A buffered move from the REST endpoint must not land after the drop
+            positionBuffer.flush(noteId);
+            noteService.move(noteId, x, y).ifPresent(note -> {
+                // The move itself is broadcast over SSE once it commits
+                positionBuffer.refresh(note);
+                drops.increment();
+            });
+        } catch (RuntimeException e) {
+            logger.error("Error persisting drop of note {}: {}", noteId, e.getMessage(), e);
+        }
+    }
+
+    private void fanOut(String topic, Iterable<Step> steps) {
+        Set<Viewer> audience = viewersByTopic.get(topic);
+        if (audience == null) {
+            return;
+        }
+        for (Viewer viewer : audience) {
+            String frame = frame(steps, viewer.session().getId());
+            if (frame == null) {
+                continue;
+            }
+            try {
+                viewer.session().sendMessage(new TextMessage(frame));
+                framesSent.increment();
+            } catch (IOException | RuntimeException e) {
+                // Includes a viewer too slow to keep within the send limits
+                logger.debug("Closing drag viewer {}: {}", viewer.session().getId(), e.getMessage());
+                close(viewer);
+            }
+        }
+    }
+
+    /**
+     * Encodes steps as [[id,x,y],...], with a trailing 1 on drops:
+     * [id,x,y,1]. Steps sent by the receiving viewer itself are left out.
+     * @return The frame, or null when there is nothing for this viewer
+     */
+    private static String frame(Iterable<Step> steps, String viewerId) {
+        StringBuilder frame = null;
+        for (Step step : steps) {
+            if (step.origin().equals(viewerId)) {
+                continue;
+            }
+            frame = frame == null ? new StringBuilder("[") : frame.append(',');
+            frame.append('[').append(step.noteId()).append(',').append(step.x()).append(',').append(step.y());
+            if (step.drop()) {
+                frame.append(",1");
+            }
+            frame.append(']');
+        }
+        return frame != null ? frame.append(']').toString() : null;
+    }
+
+    private void close(Viewer viewer) {
+        try {
+            viewer.session().close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            logger.debug("Error closing drag viewer {}: {}", viewer.session().getId(), e.getMessage());
+        }
+        leave(viewer.session());
+    }
+}
@@ -0,0 +1,81 @@
+package com.Sticky_notes.Sticky_notes.realtime;
+
+import com.Sticky_notes.Sticky_notes.security.JwtHandshakeInterceptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.util.Set;
+
+/**
+ * WebSocket endpoint for {@link NoteDragChannel}. Each text frame is one
+ * drag step, [id,x,y], or the drop that ends a drag, [id,x,y,1]. Frames
+ * received are coalesced steps of other viewers in the same form, batched
+ * as [[id,x,y],...]. A malformed frame closes the connection.
+ */
+@Component
+public class NoteDragSocketHandler extends TextWebSocketHandler {
+    private static final Logger logger = LoggerFactory.getLogger(NoteDragSocketHandler.class);
+
+    private final NoteDragChannel channel;
+
+    public NoteDragSocketHandler(NoteDragChannel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void afterConnectionEstablished(WebSocketSession session) {
+        channel.join(session, (Set<String>) session.getAttributes().get(JwtHandshakeInterceptor.TOPICS_ATTRIBUTE));
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        long[] step = parseStep(message.getPayload());
+        if (step == null) {
+            session.close(CloseStatus.BAD_DATA.withReason("Expected [id,x,y] or [id,x,y,1]"));
+            return;
+        }
+        if (!channel.step(session, step[0], (int) step[1], (int) step[2], step[3] == 1)) {
+            // Deleted meanwhile, or not on the board this connection watches
+            logger.debug("Ignoring drag of note {} from {}", step[0], session.getAttributes()
+                .get(JwtHandshakeInterceptor.USERNAME_ATTRIBUTE));
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        channel.leave(session);
+    }
+
+    /**
+     * Parses [id,x,y] or [id,x,y,1].
+     * @return id, x, y and 1 for a drop (else 0), or null if the frame is malformed
+     */
+    static long[] parseStep(String payload) {
+        String trimmed = payload.trim();
+        if (trimmed.length() < 2 || trimmed.charAt(0) != '[' || trimmed.charAt(trimmed.length() - 1) != ']') {
+            return null;
+        }
+        String[] parts = trimmed.substring(1, trimmed.length() - 1).split(",");
+        if (parts.length != 3 && parts.length != 4) {
+            return null;
+        }
+        try {
+            long id = Long.parseLong(parts[0].trim());
+            int x = Integer.parseInt(parts[1].trim());
+            int y = Integer.parseInt(parts[2].trim());
+            long drop = parts.length == 4 ? Long.parseLong(parts[3].trim()) : 0;
+            if (drop != 0 && drop != 1) {
+                return null;
+            }
+            return new long[] { id, x, y, drop };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
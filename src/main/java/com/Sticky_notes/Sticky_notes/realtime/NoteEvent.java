@@ -0,0 +1,100 @@
+package com.Sticky_notes.Sticky_notes.realtime;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A broadcast stamped with its SSE event id. The id is "{epoch}-{seq}": seq
+ * increases monotonically across all topics of one hub, and the epoch changes
+ * on every restart so ids from a previous process are never mistaken for ours.
+ *
+ * Control events (heartbeats and the shutdown notice) have no id: they are
+ * written as SSE comments and are never recorded for replay.
+ */
+final class NoteEvent {
+    static final NoteEvent HEARTBEAT = new NoteEvent(0, null, null, "heartbeat", null);
+
+    private static final String GOODBYE_NAME = "shutdown";
+
+    private final long seq;
+    private final String id;
+    private final String topic;
+    private final String name;
+    private final Object payload;
+
+    // Encoded once and shared by every binary subscriber
+    private volatile byte[] cbor;
+
+    /**
+     * @param topic Topic the event was published on, or null for snapshots and control events
+     */
+    NoteEvent(long seq, String id, String topic, String name, Object payload) {
+        this.seq = seq;
+        this.id = id;
+        this.topic = topic;
+        this.name = name;
+        this.payload = payload;
+    }
+
+    // Last event of a connection the server is closing; the payload is the reconnect delay in milliseconds
+    static NoteEvent goodbye(long reconnectDelayMs) {
+        return new NoteEvent(0, null, null, GOODBYE_NAME, reconnectDelayMs);
+    }
+
+    boolean isControl() {
+        return id == null;
+    }
+
+    boolean isGoodbye() {
+        return isControl() && GOODBYE_NAME.equals(name);
+    }
+
+    long getSeq() {
+        return seq;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    String getTopic() {
+        return topic;
+    }
+
+    // SSE event name, or null for the default "message" event
+    String getName() {
+        return name;
+    }
+
+    Object getPayload() {
+        return payload;
+    }
+
+    /**
+     * The event as one CBOR data item: a map with "id", "event" (only for
+     * named events) and "data", mirroring the fields of an SSE frame.
+     * Control events have only "event", plus "data" for the shutdown notice.
+     * @param cborMapper The application's CBOR mapper; the first caller's encoding is kept
+     */
+    byte[] toCbor(ObjectMapper cborMapper) throws JsonProcessingException {
+        byte[] encoded = cbor;
+        if (encoded == null) {
+            Map<String, Object> frame = new LinkedHashMap<>();
+            if (id != null) {
+                frame.put("id", id);
+            }
+            if (name != null) {
+                frame.put("event", name);
+            }
+            if (payload != null || id != null) {
+                frame.put("data", payload);
+            }
+            encoded = cborMapper.writeValueAsBytes(frame);
+            cbor = encoded;
+        }
+        return encoded;
+    }
+}
@@ -0,0 +1,24 @@
+package com.Sticky_notes.Sticky_notes.realtime;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries note broadcasts and change events between application instances,
+ * so a viewer connected to one instance sees changes made on any other.
+ * The implementation is chosen with app.notes.bus.type: "memory" for a
+ * single node (the default) or "postgres" for LISTEN/NOTIFY.
+ */
+public interface NoteEventBus {
+
+    /**
+     * Sends a message to the other instances. Within a transaction, messages
+     * are sent together after it commits and dropped if it rolls back.
+     */
+    void publish(NoteBusMessage message);
+
+    /**
+     * Registers a receiver of messages from other instances. A message is
+     * delivered at most once, and never to the instance that published it.
+     */
+    void subscribe(Consumer<NoteBusMessage> receiver);
+}
@@ -0,0 +1,61 @@
+package com.Sticky_notes.Sticky_notes.realtime;
+
+import com.Sticky_notes.Sticky_notes.models.Note;
+
+import java.util.Set;
+
+/**
+ * Topic keys for note broadcasts. Every note maps to exactly one topic, so a
+ * subscriber never receives the same change twice and private notes only
+ * reach their owner's private topic.
+ */
+public final class NoteTopics {
+    // Public notes on the shared main board
+    public static final String MAIN = "main";
+
+    private NoteTopics() {
+    }
+
+    // Public notes on a user's profile board
+    public static String profile(String username) {
+        return "profile:" + username;
+    }
+
+    // Private notes of a user, on any board; only the owner may subscribe
+    public static String privateNotes(String username) {
+        return "private:" + username;
+    }
+
+    /**
+     * Topics a viewer of a board receives: the main board, or a user's public
+     * profile board plus that user's private notes when the viewer is the owner.
+     * @param board "main" (also when null) or "profile"
+     * @param username Owner of the profile board
+     * @param viewer Authenticated viewer, or null
+     * @return The topics, or null when a profile board is requested without a username
+     */
+    public static Set<String> forBoard(String board, String username, String viewer) {
+        if (!"profile".equals(board)) {
+            return Set.of(MAIN);
+        }
+        if (username == null || username.isEmpty()) {
+            return null;
+        }
+        return username.equals(viewer)
+            ? Set.of(profile(username), privateNotes(username))
+            : Set.of(profile(username));
+    }
+
+    /**
+     * Resolves the single topic that carries changes to the given note.
+     */
+    public static String forNote(Note note) {
+        if (Boolean.TRUE.equals(note.getIsPrivate())) {
+            return privateNotes(note.getUsername());
+        }
+        if ("profile".equals(note.getBoardType())) {
+            return profile(note.getUsername());
+        }
+        return MAIN;
+    }
+}
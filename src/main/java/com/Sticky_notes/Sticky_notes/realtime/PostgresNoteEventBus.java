@@ -0,0 +1,199 @@
+package com.Sticky_notes.Sticky_notes.realtime;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * {@link NoteEventBus} over Postgres LISTEN/NOTIFY, for several instances
+ * sharing one database. Each batch goes out as one NOTIFY whose payload is a
+ * JSON array of messages, split only when it would exceed the 8000-byte
+ * payload limit.
+ *
+ * Notifications are received on a dedicated connection opened with the
+ * pool's settings but outside it, so listening never takes a pool slot or a
+ * {@link com.Sticky_notes.Sticky_notes.Config.BoundedDataSource} permit. If
+ * that connection breaks it is reopened; what was sent in between is lost,
+ * and affected viewers catch up on their next resync.
+ */
+@Component
+@ConditionalOnProperty(name = "app.notes.bus.type", havingValue = "postgres")
+public class PostgresNoteEventBus extends AbstractNoteEventBus {
+    private static final Logger logger = LoggerFactory.getLogger(PostgresNoteEventBus.class);
+
+    // Postgres rejects payloads of 8000 bytes or more
+    static final int MAX_PAYLOAD_BYTES = 7900;
+
+    private static final TypeReference<List<NoteBusMessage>> BATCH_TYPE = new TypeReference<>() {
+    };
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final String channel;
+    private final int pollMs;
+    private final long reconnectDelayMs;
+
+    private volatile boolean running;
+    private Thread listener;
+
+    public PostgresNoteEventBus(
+            DataSource dataSource,
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${app.notes.bus.channel:note_events}") String channel,
+            @Value("${app.notes.bus.poll-ms:500}") int pollMs,
+            @Value("${app.notes.bus.reconnect-delay-ms:2000}") long reconnectDelayMs) {
+        super(meterRegistry);
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            // LISTEN takes an identifier, not a bind parameter
+            throw new IllegalArgumentException("Invalid app.notes.bus.channel: " + channel);
+        }
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.channel = channel;
+        this.pollMs = pollMs;
+        this.reconnectDelayMs = reconnectDelayMs;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startListening() {
+        running = true;
+        listener = Thread.ofPlatform().daemon().name("note-bus-listener").start(this::listen);
+    }
+
+    @PreDestroy
+    public void stopListening() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    @Override
+    protected void send(List<NoteBusMessage> batch) throws JsonProcessingException {
+        List<String> messages = new ArrayList<>(batch.size());
+        for (NoteBusMessage message : batch) {
+            String json = objectMapper.writeValueAsString(message);
+            if (utf8Length(json) + 2 > MAX_PAYLOAD_BYTES) {
+                json = objectMapper.writeValueAsString(message.withoutBody());
+            }
+            messages.add(json);
+        }
+        for (String payload : pack(messages, MAX_PAYLOAD_BYTES)) {
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, channel, payload);
+        }
+    }
+
+    /**
+     * Joins JSON messages into as few JSON arrays as possible, each at most
+     * maxBytes long in UTF-8. A message too long on its own still gets an
+     * array of its own.
+     */
+    static List<String> pack(List<String> messages, int maxBytes) {
+        List<String> payloads = new ArrayList<>();
+        StringBuilder current = new StringBuilder("[");
+        int currentBytes = 1;
+        for (String message : messages) {
+            int bytes = utf8Length(message);
+            if (current.length() > 1 && currentBytes + 1 + bytes + 1 > maxBytes) {
+                payloads.add(current.append(']').toString());
+                current = new StringBuilder("[");
+                currentBytes = 1;
+            }
+            if (current.length() > 1) {
+                current.append(',');
+                currentBytes++;
+            }
+            current.append(message);
+            currentBytes += bytes;
+        }
+        if (current.length() > 1) {
+            payloads.add(current.append(']').toString());
+        }
+        return payloads;
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = openListenerConnection(); Statement statement = connection.createStatement()) {
+                statement.execute("LISTEN " + channel);
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                logger.info("Listening for note messages on channel {}", channel);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollMs);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        handle(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("Note message listener connection failed, reconnecting: {}", e.getMessage());
+                try {
+                    Thread.sleep(reconnectDelayMs);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void handle(String payload) {
+        List<NoteBusMessage> batch;
+        try {
+            batch = objectMapper.readValue(payload, BATCH_TYPE);
+        } catch (JsonProcessingException e) {
+            logger.warn("Ignoring unreadable note notification: {}", e.getMessage());
+            return;
+        }
+        receive(batch);
+    }
+
+    // A plain driver connection with the pool's URL, credentials and driver properties
+    private Connection openListenerConnection() throws SQLException {
+        HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+        Properties properties = new Properties();
+        properties.putAll(pool.getDataSourceProperties());
+        if (pool.getUsername() != null) {
+            properties.setProperty("user", pool.getUsername());
+        }
+        if (pool.getPassword() != null) {
+            properties.setProperty("password", pool.getPassword());
+        }
+        return DriverManager.getConnection(pool.getJdbcUrl(), properties);
+    }
+
+    private static int utf8Length(String text) {
+        return text.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
@@ -0,0 +1,92 @@
+package com.Sticky_notes.Sticky_notes.realtime;
+
+import com.Sticky_notes.Sticky_notes.models.Note;
+import com.Sticky_notes.Sticky_notes.payload.response.NoteView;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Drops the live events a subscriber's snapshot already reflects. The
+ * snapshot is read after the subscriber was registered at a known event
+ * seq, so nothing published after that seq is missed. A change committed
+ * just before the read may still be waiting in {@link NoteBroadcaster},
+ * though, and would then arrive twice: once in the snapshot and once live.
+ *
+ * Every write bumps a note's version, so the filter keeps the version the
+ * subscriber holds of each note. An update at or below it is dropped, as
+ * is a delete of a note the subscriber does not have. Only events of the
+ * snapshotted topics are checked, and payloads that are not a note or a
+ * delete always pass. Not thread-safe; the hub guards it with its publish
+ * lock.
+ */
+final class SnapshotFilter {
+    private final Set<String> topics;
+
+    // Version of each note the subscriber holds, from the snapshot and from updates sent since
+    private final Map<Long, Long> versions = new HashMap<>();
+
+    private record NoteRef(Long id, Long version, boolean deleted) {
+    }
+
+    SnapshotFilter(Set<String> topics, Collection<?> snapshot) {
+        this.topics = topics;
+        for (Object payload : snapshot) {
+            NoteRef ref = refOf(payload);
+            if (ref != null && !ref.deleted()) {
+                versions.put(ref.id(), ref.version());
+            }
+        }
+    }
+
+    /**
+     * @return false if the subscriber already has the event's change
+     */
+    boolean admits(NoteEvent event) {
+        if (!topics.contains(event.getTopic())) {
+            return true;
+        }
+        NoteRef ref = refOf(event.getPayload());
+        if (ref == null) {
+            return true;
+        }
+        if (ref.deleted()) {
+            if (!versions.containsKey(ref.id())) {
+                return false;
+            }
+            versions.remove(ref.id());
+            return true;
+        }
+        Long held = versions.get(ref.id());
+        if (held != null && ref.version() != null && ref.version() <= held) {
+            return false;
+        }
+        versions.put(ref.id(), ref.version());
+        return true;
+    }
+
+    // The note a payload is about, or null for payloads that are not a note or a delete
+    private static NoteRef refOf(Object payload) {
+        if (payload instanceof Note note && note.getId() != null) {
+            return new NoteRef(note.getId(), note.getVersion(), false);
+        }
+        if (payload instanceof NoteView view && view.id() != null) {
+            return new NoteRef(view.id(), view.version(), false);
+        }
+        if (payload instanceof NoteDelta delta && delta.noteId() != null) {
+            return new NoteRef(delta.noteId(), delta.noteVersion(), NoteDelta.DELETED.equals(delta.type()));
+        }
+        // Broadcasts of other instances arrive as decoded JSON
+        if (payload instanceof Map<?, ?> map) {
+            boolean deleted = NoteDelta.DELETED.equals(map.get("type"));
+            Map<?, ?> fields = map.get("note") instanceof Map<?, ?> note ? note : map;
+            if (fields.get("id") instanceof Number id) {
+                Long version = fields.get("version") instanceof Number number ? number.longValue() : null;
+                return new NoteRef(id.longValue(), version, deleted);
+            }
+        }
+        return null;
+    }
+}
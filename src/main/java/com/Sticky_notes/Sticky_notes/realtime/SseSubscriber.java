@@ -0,0 +1,221 @@
+package com.Sticky_notes.Sticky_notes.realtime;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * One SSE connection with its own bounded outbound queue. The emitter is
+ * either an SseEmitter (text/event-stream) or a plain ResponseBodyEmitter
+ * that receives each event as a CBOR data item (application/cbor-seq). Publishers only
+ * enqueue; a sender task drains the queue, and at most one such task runs
+ * per subscriber, so sends stay ordered and a slow client only blocks itself.
+ *
+ * A subscriber starts paused so the hub can queue replayed events or a
+ * snapshot ahead of live traffic before anything is written to the socket.
+ *
+ * The time of the last successful write is tracked so the hub can send
+ * heartbeats to quiet connections and reap those whose writes stall.
+ */
+class SseSubscriber {
+    private static final Logger logger = LoggerFactory.getLogger(SseSubscriber.class);
+
+    private final ResponseBodyEmitter emitter;
+    private final Set<String> topics;
+    private final String owner;
+    private final Consumer<SseSubscriber> onSendFailure;
+    private final BlockingDeque<NoteEvent> queue;
+    private final Executor sender;
+    private final ObjectMapper cborMapper;
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private volatile long lastWriteNanos = System.nanoTime();
+
+    // Set once a snapshot is queued; guarded by the hub's publish lock, like every enqueue
+    private SnapshotFilter snapshotFilter;
+
+    /**
+     * @param owner Username the connection counts against, or null for an anonymous viewer
+     * @param cborMapper Encodes events for binary (non-SSE) emitters
+     * @param onSendFailure Called once the subscriber has closed itself after a failed write
+     */
+    SseSubscriber(ResponseBodyEmitter emitter, Set<String> topics, String owner, int queueCapacity,
+            Executor sender, ObjectMapper cborMapper, Consumer<SseSubscriber> onSendFailure) {
+        this.emitter = emitter;
+        this.topics = topics;
+        this.owner = owner;
+        this.queue = new LinkedBlockingDeque<>(queueCapacity);
+        this.sender = sender;
+        this.cborMapper = cborMapper;
+        this.onSendFailure = onSendFailure;
+    }
+
+    ResponseBodyEmitter getEmitter() {
+        return emitter;
+    }
+
+    Set<String> getTopics() {
+        return topics;
+    }
+
+    String getOwner() {
+        return owner;
+    }
+
+    boolean isClosed() {
+        return closed.get();
+    }
+
+    // System.nanoTime() of the last successful write, or of the subscription if nothing was written yet
+    long getLastWriteNanos() {
+        return lastWriteNanos;
+    }
+
+    /**
+     * Queues a heartbeat unless events are already waiting, in which case
+     * the sender is busy with them (or stuck, which the hub detects from
+     * the last write time).
+     */
+    void heartbeat() {
+        if (!closed.get() && queue.isEmpty() && queue.offerLast(NoteEvent.HEARTBEAT)) {
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * Queues a final retry hint, after which the connection is completed so
+     * the client reconnects, to another instance if this one is stopping.
+     * @return false if the queue is full; the caller should close outright
+     */
+    boolean closeAfterQueued(long reconnectDelayMs) {
+        if (closed.get() || !queue.offerLast(NoteEvent.goodbye(reconnectDelayMs))) {
+            return false;
+        }
+        scheduleDrain();
+        return true;
+    }
+
+    /**
+     * Queues an event and makes sure a sender is scheduled once started.
+     * Events the subscriber's snapshot already reflects are skipped.
+     * @return false if the queue is full and the subscriber should be dropped
+     */
+    boolean enqueue(NoteEvent event) {
+        if (closed.get()) {
+            return false;
+        }
+        if (snapshotFilter != null && !snapshotFilter.admits(event)) {
+            return true;
+        }
+        if (!queue.offerLast(event)) {
+            return false;
+        }
+        scheduleDrain();
+        return true;
+    }
+
+    /**
+     * Queues a snapshot ahead of everything already waiting, i.e. the live
+     * events that arrived while it was loading, and drops those of them it
+     * already reflects. Later events pass the same filter. The caller holds
+     * the hub's publish lock.
+     */
+    boolean enqueueSnapshot(NoteEvent snapshot, SnapshotFilter filter) {
+        if (closed.get()) {
+            return false;
+        }
+        // Oldest first, so the filter sees each note's changes in order
+        queue.removeIf(event -> !filter.admits(event));
+        if (!queue.offerFirst(snapshot)) {
+            return false;
+        }
+        snapshotFilter = filter;
+        scheduleDrain();
+        return true;
+    }
+
+    // Lets queued events flow to the client
+    void start() {
+        started.set(true);
+        scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+        if (started.get() && !queue.isEmpty() && draining.compareAndSet(false, true)) {
+            sender.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        do {
+            NoteEvent event;
+            while (!closed.get() && (event = queue.pollFirst()) != null) {
+                try {
+                    send(event);
+                    lastWriteNanos = System.nanoTime();
+                    if (event.isGoodbye()) {
+                        close(null);
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    logger.debug("SSE send failed, closing subscriber: {}", e.getMessage());
+                    close(e);
+                    onSendFailure.accept(this);
+                }
+            }
+            draining.set(false);
+            // Re-check: a publisher may have enqueued after the last poll but before the flag was cleared
+        } while (!closed.get() && !queue.isEmpty() && draining.compareAndSet(false, true));
+    }
+
+    private void send(NoteEvent event) throws IOException {
+        if (emitter instanceof SseEmitter sseEmitter && event.isControl()) {
+            // Comment lines are ignored by EventSource but keep proxies and the socket check alive
+            SseEmitter.SseEventBuilder builder = SseEmitter.event().comment(event.getName());
+            if (event.isGoodbye()) {
+                builder.reconnectTime((Long) event.getPayload());
+            }
+            sseEmitter.send(builder);
+        } else if (emitter instanceof SseEmitter sseEmitter) {
+            SseEmitter.SseEventBuilder builder = SseEmitter.event().id(event.getId());
+            if (event.getName() != null) {
+                builder.name(event.getName());
+            }
+            sseEmitter.send(builder.data(event.getPayload()));
+        } else {
+            // CBOR items are self-delimiting, so frames are simply concatenated
+            emitter.send(event.toCbor(cborMapper), MediaType.APPLICATION_OCTET_STREAM);
+        }
+    }
+
+    /**
+     * Closes the connection; the emitter's completion callback unregisters it from the hub.
+     */
+    void close(Throwable cause) {
+        if (closed.compareAndSet(false, true)) {
+            queue.clear();
+            if (cause != null) {
+                emitter.completeWithError(cause);
+            } else {
+                emitter.complete();
+            }
+        }
+    }
+
+    // Marks the subscriber closed after the container has already finished the emitter
+    void markClosed() {
+        closed.set(true);
+        queue.clear();
+    }
+}
@@ -0,0 +1,12 @@
+package com.Sticky_notes.Sticky_notes.repository;
+
+import com.Sticky_notes.Sticky_notes.models.NoteChangeHorizon;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for the tombstone pruning horizon used by delta sync.
+ */
+@Repository
+public interface NoteChangeHorizonRepository extends JpaRepository<NoteChangeHorizon, Integer> {
+}
@@ -1,6 +1,7 @@
 package com.Sticky_notes.Sticky_notes.repository;
 
 import com.Sticky_notes.Sticky_notes.models.NoteManagment;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
@@ -12,4 +13,7 @@ public interface NoteManagmentRepository extends JpaRepository<NoteManagment, Lo
     
     @Query("SELECT DISTINCT n.status FROM NoteManagment n")
     List<String> findDistinctStatuses();
+
+    // Page of all notes, oldest first
+    List<NoteManagment> findByIdGreaterThanOrderById(Long afterId, Limit limit);
 }
\ No newline at end of file
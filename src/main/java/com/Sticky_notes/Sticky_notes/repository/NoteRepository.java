@@ -1,9 +1,16 @@
 package com.Sticky_notes.Sticky_notes.repository;
 
 import com.Sticky_notes.Sticky_notes.models.Note;
+import com.Sticky_notes.Sticky_notes.payload.response.NoteView;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -53,4 +60,112 @@ public interface NoteRepository extends JpaRepository<Note, Long> {
     
     // Find non-done notes by username and board type
     List<Note> findByUsernameAndDoneFalseAndBoardType(String username, String boardType);
+
+    // Keyset pagination: newest first, resuming below the id of the previous page's last note
+
+    // Page of public notes by board type
+    List<Note> findByIsPrivateFalseAndBoardTypeAndIdLessThanOrderByIdDesc(String boardType, Long beforeId, Limit limit);
+
+    // Page of public notes by username and board type
+    List<Note> findByUsernameAndIsPrivateFalseAndBoardTypeAndIdLessThanOrderByIdDesc(String username, String boardType, Long beforeId, Limit limit);
+
+    // Page of private notes by username and board type
+    List<Note> findByUsernameAndIsPrivateTrueAndBoardTypeAndIdLessThanOrderByIdDesc(String username, String boardType, Long beforeId, Limit limit);
+
+    // Page of notes by username and board type
+    List<Note> findByUsernameAndBoardTypeAndIdLessThanOrderByIdDesc(String username, String boardType, Long beforeId, Limit limit);
+
+    // NoteView projections of the list queries above, for read-only endpoints: rows are mapped
+    // straight into records, skipping the persistence context and dirty-checking snapshots
+
+    // Public notes by board type
+    List<NoteView> findViewsByIsPrivateFalseAndBoardType(String boardType);
+
+    // Public notes by username and board type
+    List<NoteView> findViewsByUsernameAndIsPrivateFalseAndBoardType(String username, String boardType);
+
+    // Private notes by username and board type
+    List<NoteView> findViewsByUsernameAndIsPrivateTrueAndBoardType(String username, String boardType);
+
+    // Notes by username and board type
+    List<NoteView> findViewsByUsernameAndBoardType(String username, String boardType);
+
+    // Private notes by username
+    List<NoteView> findViewsByUsernameAndIsPrivateTrue(String username);
+
+    // Public notes by username
+    List<NoteView> findViewsByUsernameAndIsPrivateFalse(String username);
+
+    // Done notes by username and board type
+    List<NoteView> findViewsByUsernameAndDoneTrueAndBoardType(String username, String boardType);
+
+    // Non-done notes by username and board type
+    List<NoteView> findViewsByUsernameAndDoneFalseAndBoardType(String username, String boardType);
+
+    // Private notes on a user's profile board, or all their private notes when none is on it (notes from
+    // before board types); the fallback is the NOT EXISTS branch, so only returned rows are read
+    @Query("SELECT new com.Sticky_notes.Sticky_notes.payload.response.NoteView("
+        + "n.id, n.x, n.y, n.text, n.done, n.username, n.isPrivate, n.boardType, n.version) "
+        + "FROM Note n WHERE n.username = :username AND n.isPrivate = true AND (n.boardType = 'profile' "
+        + "OR NOT EXISTS (SELECT 1 FROM Note p WHERE p.username = :username AND p.isPrivate = true AND p.boardType = 'profile'))")
+    List<NoteView> findPrivateProfileViewsByUsername(@Param("username") String username);
+
+    // Page of public notes by board type
+    List<NoteView> findViewsByIsPrivateFalseAndBoardTypeAndIdLessThanOrderByIdDesc(String boardType, Long beforeId, Limit limit);
+
+    // Page of public notes by username and board type
+    List<NoteView> findViewsByUsernameAndIsPrivateFalseAndBoardTypeAndIdLessThanOrderByIdDesc(String username, String boardType, Long beforeId, Limit limit);
+
+    // Page of private notes by username and board type
+    List<NoteView> findViewsByUsernameAndIsPrivateTrueAndBoardTypeAndIdLessThanOrderByIdDesc(String username, String boardType, Long beforeId, Limit limit);
+
+    // Page of notes by username and board type
+    List<NoteView> findViewsByUsernameAndBoardTypeAndIdLessThanOrderByIdDesc(String username, String boardType, Long beforeId, Limit limit);
+
+    // Notes by id, in no particular order (search and viewport results from the in-memory indexes)
+    List<NoteView> findViewsByIdIn(Collection<Long> ids);
+
+    // Delta sync: notes written after a change sequence number, oldest change first
+
+    // Changes on a board
+    List<Note> findByBoardTypeAndChangeSeqGreaterThanOrderByChangeSeq(String boardType, Long since, Limit limit);
+
+    // Changes on a user's board
+    List<Note> findByUsernameAndBoardTypeAndChangeSeqGreaterThanOrderByChangeSeq(String username, String boardType, Long since, Limit limit);
+
+    // Targeted updates: one statement, no entity load or dirty check; a 0 return means the note does not exist.
+    // Native so they can stamp change_seq and bump the version like every other write
+
+    // Move a note
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE note SET x = :x, y = :y, version = version + 1, change_seq = nextval('note_change_seq') WHERE id = :id", nativeQuery = true)
+    int updatePosition(@Param("id") Long id, @Param("x") int x, @Param("y") int y);
+
+    // Move a note only if it is still at the given version; 0 means it changed or does not exist
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE note SET x = :x, y = :y, version = version + 1, change_seq = nextval('note_change_seq') "
+        + "WHERE id = :id AND version = :version", nativeQuery = true)
+    int updatePositionIfVersion(@Param("id") Long id, @Param("x") int x, @Param("y") int y, @Param("version") long version);
+
+    // Mark a note as done; 0 also when it already was, so the caller knows whether the done count changed
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE note SET done = true, version = version + 1, change_seq = nextval('note_change_seq') "
+        + "WHERE id = :id AND done = false", nativeQuery = true)
+    int markDone(@Param("id") Long id);
+
+    // Mark a note as done only if it is still at the given version (and not done yet)
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE note SET done = true, version = version + 1, change_seq = nextval('note_change_seq') "
+        + "WHERE id = :id AND version = :version AND done = false", nativeQuery = true)
+    int markDoneIfVersion(@Param("id") Long id, @Param("version") long version);
+
+    // Stamps rows written before change_seq existed, so a full delta sync (since=0) returns them
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE note SET change_seq = nextval('note_change_seq') WHERE change_seq IS NULL", nativeQuery = true)
+    int assignMissingChangeSeqs();
 }
@@ -0,0 +1,18 @@
+package com.Sticky_notes.Sticky_notes.repository;
+
+import com.Sticky_notes.Sticky_notes.models.NoteStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for the per-user note counters. Counters are only read through
+ * it; NoteStatsService writes them with SQL increments.
+ */
+@Repository
+public interface NoteStatsRepository extends JpaRepository<NoteStats, Long> {
+
+    // Counters of every board of a user (one row per board)
+    List<NoteStats> findByUsername(String username);
+}
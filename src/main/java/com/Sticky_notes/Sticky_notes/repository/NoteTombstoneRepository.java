@@ -0,0 +1,21 @@
+package com.Sticky_notes.Sticky_notes.repository;
+
+import com.Sticky_notes.Sticky_notes.models.NoteTombstone;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for deleted-note records used by delta sync.
+ */
+@Repository
+public interface NoteTombstoneRepository extends JpaRepository<NoteTombstone, Long> {
+
+    // Deletions on a board after a change sequence number, oldest first
+    List<NoteTombstone> findByBoardTypeAndSeqGreaterThanOrderBySeq(String boardType, Long since, Limit limit);
+
+    // Deletions on a user's board after a change sequence number, oldest first
+    List<NoteTombstone> findByUsernameAndBoardTypeAndSeqGreaterThanOrderBySeq(String username, String boardType, Long since, Limit limit);
+}
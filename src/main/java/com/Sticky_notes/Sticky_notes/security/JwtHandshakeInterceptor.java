@@ -0,0 +1,72 @@
+package com.Sticky_notes.Sticky_notes.security;
+
+import com.Sticky_notes.Sticky_notes.realtime.NoteTopics;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.StringUtils;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Authenticates a WebSocket connection once, at the handshake, with the same
+ * JWT the REST API uses. Browsers cannot set headers on a WebSocket, so the
+ * token may also be passed as the access_token query parameter.
+ *
+ * The board to watch comes from the board and username parameters, as for
+ * /api/notes/sse; the resolved username and topics are stored as session
+ * attributes.
+ */
+@Component
+public class JwtHandshakeInterceptor implements HandshakeInterceptor {
+    public static final String USERNAME_ATTRIBUTE = "username";
+    public static final String TOPICS_ATTRIBUTE = "topics";
+
+    private final JwtTokenProvider tokenProvider;
+
+    public JwtHandshakeInterceptor(JwtTokenProvider tokenProvider) {
+        this.tokenProvider = tokenProvider;
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+            WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        MultiValueMap<String, String> params = UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams();
+        String token = tokenOf(request, params);
+        if (token == null || !tokenProvider.validateToken(token)) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+        String username = tokenProvider.getUsernameFromToken(token);
+        Set<String> topics = NoteTopics.forBoard(params.getFirst("board"), params.getFirst("username"), username);
+        if (topics == null) {
+            response.setStatusCode(HttpStatus.BAD_REQUEST);
+            return false;
+        }
+        attributes.put(USERNAME_ATTRIBUTE, username);
+        attributes.put(TOPICS_ATTRIBUTE, topics);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+            WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    // Bearer token from the Authorization header, else from access_token
+    private static String tokenOf(ServerHttpRequest request, MultiValueMap<String, String> params) {
+        String bearerToken = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
+            return bearerToken.substring(7);
+        }
+        String token = params.getFirst("access_token");
+        return StringUtils.hasText(token) ? token : null;
+    }
+}
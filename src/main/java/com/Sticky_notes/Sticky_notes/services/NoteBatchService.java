@@ -0,0 +1,220 @@
+package com.Sticky_notes.Sticky_notes.services;
+
+import com.Sticky_notes.Sticky_notes.models.Note;
+import com.Sticky_notes.Sticky_notes.payload.request.NoteBatchRequest;
+import com.Sticky_notes.Sticky_notes.realtime.NoteChangedEvent;
+import com.Sticky_notes.Sticky_notes.repository.NoteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Applies a bulk note mutation in one transaction. Each kind of operation is
+ * sent as a single JDBC batch, so N creates cost one round trip instead of N
+ * requests and N transactions.
+ */
+@Service
+public class NoteBatchService {
+    private static final Logger logger = LoggerFactory.getLogger(NoteBatchService.class);
+
+    // Every write stamps change_seq and the version, as the Note mapping does for JPA writes
+    private static final String INSERT_SQL =
+        "INSERT INTO note (x, y, text, done, username, is_private, board_type, version, change_seq) "
+        + "VALUES (?, ?, ?, ?, ?, ?, ?, 0, nextval('note_change_seq'))";
+    private static final String UPDATE_SQL =
+        "UPDATE note SET x = ?, y = ?, done = ?, version = version + 1, change_seq = nextval('note_change_seq') WHERE id = ?";
+    private static final String DELETE_SQL = "DELETE FROM note WHERE id = ?";
+
+    private final NoteRepository noteRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final NotePositionBuffer positionBuffer;
+    private final NoteChangeLog changeLog;
+    private final NoteStatsService noteStats;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public NoteBatchService(NoteRepository noteRepository, JdbcTemplate jdbcTemplate, NotePositionBuffer positionBuffer,
+            NoteChangeLog changeLog, NoteStatsService noteStats, ApplicationEventPublisher eventPublisher) {
+        this.noteRepository = noteRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.positionBuffer = positionBuffer;
+        this.changeLog = changeLog;
+        this.noteStats = noteStats;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Notes touched by a batch, for the response and for broadcasting.
+     */
+    public static class Result {
+        private final List<Note> created;
+        private final List<Note> updated;
+        private final List<Note> deleted;
+
+        Result(List<Note> created, List<Note> updated, List<Note> deleted) {
+            this.created = created;
+            this.updated = updated;
+            this.deleted = deleted;
+        }
+
+        public List<Note> getCreated() {
+            return created;
+        }
+
+        public List<Note> getUpdated() {
+            return updated;
+        }
+
+        public List<Note> getDeleted() {
+            return deleted;
+        }
+    }
+
+    /**
+     * Applies the batch. Creates are expected to have their defaults applied
+     * already. Several updates of the same note are merged in order, and a
+     * note that is also deleted is only deleted.
+     * @throws NoSuchElementException If an update or delete targets a missing note; nothing is written
+     */
+    @Transactional
+    public Result apply(NoteBatchRequest request) {
+        Set<Long> deleteIds = new LinkedHashSet<>(request.getDelete());
+        Map<Long, List<NoteBatchRequest.NoteUpdate>> updatesById = new LinkedHashMap<>();
+        for (NoteBatchRequest.NoteUpdate update : request.getUpdate()) {
+            if (!deleteIds.contains(update.getId())) {
+                updatesById.computeIfAbsent(update.getId(), id -> new ArrayList<>()).add(update);
+            }
+        }
+
+        // One query loads every target: existence check, current state and SSE topic
+        Set<Long> targetIds = new LinkedHashSet<>(updatesById.keySet());
+        targetIds.addAll(deleteIds);
+        Map<Long, Note> targets = new LinkedHashMap<>();
+        if (!targetIds.isEmpty()) {
+            for (Note note : noteRepository.findAllById(targetIds)) {
+                targets.put(note.getId(), note);
+            }
+        }
+        if (targets.size() < targetIds.size()) {
+            targetIds.removeAll(targets.keySet());
+            throw new NoSuchElementException("Notes not found: " + targetIds);
+        }
+
+        List<Note> created = insertAll(request.getCreate());
+        created.forEach(noteStats::noteAdded);
+
+        List<Note> updated = new ArrayList<>(updatesById.size());
+        // Viewers are only sent the fields an update changed
+        List<NoteChangedEvent> updateEvents = new ArrayList<>(updatesById.size());
+        for (Map.Entry<Long, List<NoteBatchRequest.NoteUpdate>> entry : updatesById.entrySet()) {
+            // Start from the pending drag position so a done-only update does not undo it
+            // Copied so the managed entity is not dirty-checked into a second UPDATE
+            Note note = NotePositionBuffer.copyOf(positionBuffer.overlay(targets.get(entry.getKey())));
+            for (NoteBatchRequest.NoteUpdate update : entry.getValue()) {
+                if (update.getX() != null) {
+                    note.setX(update.getX());
+                }
+                if (update.getY() != null) {
+                    note.setY(update.getY());
+                }
+                if (update.getDone() != null) {
+                    note.setDone(update.getDone());
+                }
+            }
+            // The batch supersedes any buffered move
+            positionBuffer.cancel(note.getId());
+            note.setVersion(note.getVersion() + 1);
+            Note before = targets.get(note.getId());
+            boolean doneChanged = note.isDone() != before.isDone();
+            if (doneChanged) {
+                noteStats.doneChanged(note, note.isDone());
+            }
+            updated.add(note);
+            boolean positionChanged = !note.getX().equals(before.getX()) || !note.getY().equals(before.getY());
+            updateEvents.add(NoteChangedEvent.updated(note, positionChanged, doneChanged));
+        }
+        if (!updated.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, updated, updated.size(), (ps, note) -> {
+                ps.setInt(1, note.getX());
+                ps.setInt(2, note.getY());
+                ps.setBoolean(3, note.isDone());
+                ps.setLong(4, note.getId());
+            });
+        }
+
+        List<Note> deleted = new ArrayList<>(deleteIds.size());
+        List<Object[]> deleteRows = new ArrayList<>(deleteIds.size());
+        for (Long id : deleteIds) {
+            positionBuffer.cancel(id);
+            deleted.add(targets.get(id));
+            deleteRows.add(new Object[] { id });
+        }
+        if (!deleteRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_SQL, deleteRows);
+            changeLog.recordDeletions(deleted);
+        }
+
+        // Handled once the batch commits
+        created.forEach(note -> eventPublisher.publishEvent(NoteChangedEvent.created(note)));
+        updateEvents.forEach(eventPublisher::publishEvent);
+        deleted.forEach(note -> eventPublisher.publishEvent(NoteChangedEvent.deleted(note)));
+
+        logger.debug("Applied note batch: {} created, {} updated, {} deleted",
+            created.size(), updated.size(), deleted.size());
+        return new Result(created, updated, deleted);
+    }
+
+    // Inserts all notes in one batch and copies the generated ids back, in order
+    private List<Note> insertAll(List<Note> notes) {
+        if (notes.isEmpty()) {
+            return List.of();
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+            connection -> connection.prepareStatement(INSERT_SQL, new String[] { "id" }),
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    Note note = notes.get(i);
+                    ps.setInt(1, note.getX());
+                    ps.setInt(2, note.getY());
+                    ps.setString(3, note.getText());
+                    ps.setBoolean(4, note.isDone());
+                    ps.setString(5, note.getUsername());
+                    ps.setBoolean(6, note.getIsPrivate());
+                    ps.setString(7, note.getBoardType());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return notes.size();
+                }
+            },
+            keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != notes.size()) {
+            throw new IllegalStateException("Expected " + notes.size() + " generated ids, got " + keys.size());
+        }
+        for (int i = 0; i < notes.size(); i++) {
+            notes.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+            notes.get(i).setVersion(0L);
+        }
+        return notes;
+    }
+}
@@ -0,0 +1,266 @@
+package com.Sticky_notes.Sticky_notes.services;
+
+import com.Sticky_notes.Sticky_notes.models.Note;
+import com.Sticky_notes.Sticky_notes.models.NoteChangeHorizon;
+import com.Sticky_notes.Sticky_notes.models.NoteTombstone;
+import com.Sticky_notes.Sticky_notes.payload.response.NoteChangesResponse;
+import com.Sticky_notes.Sticky_notes.payload.response.NoteView;
+import com.Sticky_notes.Sticky_notes.realtime.NoteChangedEvent;
+import com.Sticky_notes.Sticky_notes.repository.NoteChangeHorizonRepository;
+import com.Sticky_notes.Sticky_notes.repository.NoteRepository;
+import com.Sticky_notes.Sticky_notes.repository.NoteTombstoneRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Delta sync over the note change sequence. Every note insert and update
+ * stamps the row with the next value of note_change_seq, and every delete
+ * leaves a tombstone numbered from the same sequence, so "what changed on
+ * this board after N" is two index range scans.
+ *
+ * Sequence numbers are taken when a write runs, not when it commits, so a
+ * write still in flight can commit a number below one a reader has already
+ * seen. The seq handed back to clients is therefore held back to a value
+ * sampled at least app.notes.changes.settle-ms ago, longer than any note
+ * write transaction runs: everything at or below it has committed. Changes
+ * above it are still returned, and returned again on the next call.
+ *
+ * Tombstones older than app.notes.changes.tombstone-retention-days are
+ * pruned; a client whose since predates the pruned range has to resync in
+ * full (see isExpired).
+ */
+@Service
+public class NoteChangeLog {
+    private static final Logger logger = LoggerFactory.getLogger(NoteChangeLog.class);
+
+    private static final String INSERT_TOMBSTONE_SQL =
+        "INSERT INTO note_tombstone (seq, note_id, username, board_type, is_private, deleted_at) "
+            + "VALUES (nextval('" + NoteTombstone.CHANGE_SEQUENCE + "'), ?, ?, ?, ?, ?)";
+    // Burns one number per sample; only the ordering matters, gaps are harmless
+    private static final String SAMPLE_SEQ_SQL = "SELECT nextval('" + NoteTombstone.CHANGE_SEQUENCE + "')";
+    private static final String LAST_EXPIRED_TOMBSTONE_SQL = "SELECT MAX(seq) FROM note_tombstone WHERE deleted_at < ?";
+    private static final String PRUNE_TOMBSTONES_SQL = "DELETE FROM note_tombstone WHERE seq <= ?";
+    private static final String CREATE_HORIZON_SQL =
+        "INSERT INTO note_change_horizon (id, pruned_through) VALUES (?, 0) ON CONFLICT DO NOTHING";
+    // Only moves forward, so concurrent prunes on several instances agree
+    private static final String ADVANCE_HORIZON_SQL =
+        "UPDATE note_change_horizon SET pruned_through = ? WHERE id = ? AND pruned_through < ?";
+
+    private final NoteRepository noteRepository;
+    private final NoteTombstoneRepository tombstoneRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final NotePositionBuffer positionBuffer;
+    private final NoteStatsService noteStats;
+    private final ApplicationEventPublisher eventPublisher;
+    private final NoteChangeHorizonRepository horizonRepository;
+    private final long settleNanos;
+    private final Duration tombstoneRetention;
+    // {System.nanoTime(), sequence value} pairs, oldest first
+    private final Deque<long[]> seqSamples = new ArrayDeque<>();
+
+    public NoteChangeLog(NoteRepository noteRepository, NoteTombstoneRepository tombstoneRepository,
+            JdbcTemplate jdbcTemplate, NotePositionBuffer positionBuffer, NoteStatsService noteStats,
+            ApplicationEventPublisher eventPublisher, NoteChangeHorizonRepository horizonRepository,
+            @Value("${app.notes.changes.settle-ms:5000}") long settleMs,
+            @Value("${app.notes.changes.tombstone-retention-days:30}") long tombstoneRetentionDays) {
+        this.noteRepository = noteRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.positionBuffer = positionBuffer;
+        this.noteStats = noteStats;
+        this.eventPublisher = eventPublisher;
+        this.horizonRepository = horizonRepository;
+        this.settleNanos = settleMs * 1_000_000;
+        this.tombstoneRetention = Duration.ofDays(tombstoneRetentionDays);
+    }
+
+    // Rows from before the change_seq column have none until stamped once
+    @EventListener(ApplicationReadyEvent.class)
+    public void assignMissingChangeSeqs() {
+        int stamped = noteRepository.assignMissingChangeSeqs();
+        if (stamped > 0) {
+            logger.info("Assigned change sequence numbers to {} existing notes", stamped);
+        }
+    }
+
+    /**
+     * Samples the change sequence so changesSince knows which numbers have
+     * settled. Does nothing when app.notes.changes.settle-ms is 0.
+     */
+    @Scheduled(fixedDelayString = "${app.notes.changes.sample-interval-ms:1000}")
+    public void sampleChangeSeq() {
+        if (settleNanos == 0) {
+            return;
+        }
+        Long seq = jdbcTemplate.queryForObject(SAMPLE_SEQ_SQL, Long.class);
+        long now = System.nanoTime();
+        synchronized (seqSamples) {
+            seqSamples.addLast(new long[] { now, seq });
+            // Keep the newest sample that has already settled, drop the ones before it
+            long[] oldest = seqSamples.pollFirst();
+            while (!seqSamples.isEmpty() && now - seqSamples.peekFirst()[0] >= settleNanos) {
+                oldest = seqSamples.pollFirst();
+            }
+            seqSamples.addFirst(oldest);
+        }
+    }
+
+    /**
+     * Highest sequence number below which every write has committed or
+     * rolled back: the newest sample taken at least settle-ms ago, 0 before
+     * there is one, or unbounded when settle-ms is 0.
+     */
+    long settledSeq() {
+        if (settleNanos == 0) {
+            return Long.MAX_VALUE;
+        }
+        long now = System.nanoTime();
+        long settled = 0;
+        synchronized (seqSamples) {
+            for (long[] sample : seqSamples) {
+                if (now - sample[0] < settleNanos) {
+                    break;
+                }
+                settled = sample[1];
+            }
+        }
+        return settled;
+    }
+
+    /**
+     * Drops tombstones older than the retention period and records how far
+     * they went, so stale clients are sent to a full resync.
+     */
+    @Scheduled(cron = "${app.notes.changes.prune-cron:0 45 3 * * *}")
+    @Transactional
+    public void pruneTombstones() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(tombstoneRetention));
+        Long through = jdbcTemplate.queryForObject(LAST_EXPIRED_TOMBSTONE_SQL, Long.class, cutoff);
+        if (through == null) {
+            return;
+        }
+        jdbcTemplate.update(CREATE_HORIZON_SQL, NoteChangeHorizon.ID);
+        jdbcTemplate.update(ADVANCE_HORIZON_SQL, through, NoteChangeHorizon.ID, through);
+        int pruned = jdbcTemplate.update(PRUNE_TOMBSTONES_SQL, through);
+        logger.info("Pruned {} note tombstones up to change sequence {}", pruned, through);
+    }
+
+    /**
+     * Whether tombstones after since may already have been pruned, so a delta
+     * from there could miss deletions and the client must start again from 0.
+     */
+    @Transactional(readOnly = true)
+    public boolean isExpired(long since) {
+        if (since == 0) {
+            return false;
+        }
+        return horizonRepository.findById(NoteChangeHorizon.ID)
+            .map(horizon -> since < horizon.getPrunedThrough())
+            .orElse(false);
+    }
+
+    /**
+     * Deletes a note, records its tombstone and uncounts it, in one
+     * transaction; viewers are told once it commits.
+     */
+    @Transactional
+    public void delete(Note note) {
+        // Reloaded so the counters see the row as it is deleted; the delete is versioned, so it cannot change meanwhile
+        noteRepository.findById(note.getId()).ifPresent(current -> {
+            noteRepository.delete(current);
+            tombstoneRepository.save(new NoteTombstone(current));
+            noteStats.noteRemoved(current);
+            eventPublisher.publishEvent(NoteChangedEvent.deleted(current));
+        });
+    }
+
+    /**
+     * Records tombstones for notes deleted by a JDBC batch and uncounts them;
+     * joins the caller's transaction.
+     */
+    @Transactional
+    public void recordDeletions(List<Note> notes) {
+        if (notes.isEmpty()) {
+            return;
+        }
+        notes.forEach(noteStats::noteRemoved);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_TOMBSTONE_SQL, notes, notes.size(), (ps, note) -> {
+            ps.setLong(1, note.getId());
+            ps.setString(2, note.getUsername());
+            ps.setString(3, note.getBoardType());
+            ps.setBoolean(4, Boolean.TRUE.equals(note.getIsPrivate()));
+            ps.setTimestamp(5, now);
+        });
+    }
+
+    /**
+     * Changes on a board after a sequence number, oldest first. Notes the
+     * viewer may not see are skipped, as are their deletions. The returned
+     * seq never passes settledSeq(), so changes after it may come again.
+     * @param since Sequence number from the previous response, or 0 for everything
+     * @param boardType "main" or "profile"
+     * @param username Only this user's notes, or null for the whole board
+     * @param viewer Authenticated user, or null
+     * @param limit Maximum number of changes (upserts plus deletions) to return
+     */
+    @Transactional(readOnly = true)
+    public NoteChangesResponse changesSince(long since, String boardType, String username, String viewer, int limit) {
+        List<Note> written = username != null
+            ? noteRepository.findByUsernameAndBoardTypeAndChangeSeqGreaterThanOrderByChangeSeq(username, boardType, since, Limit.of(limit + 1))
+            : noteRepository.findByBoardTypeAndChangeSeqGreaterThanOrderByChangeSeq(boardType, since, Limit.of(limit + 1));
+        List<NoteTombstone> removed = username != null
+            ? tombstoneRepository.findByUsernameAndBoardTypeAndSeqGreaterThanOrderBySeq(username, boardType, since, Limit.of(limit + 1))
+            : tombstoneRepository.findByBoardTypeAndSeqGreaterThanOrderBySeq(boardType, since, Limit.of(limit + 1));
+
+        // Merge both ranges by sequence number, stopping at the limit
+        List<NoteView> upserts = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        long seq = since;
+        int w = 0;
+        int r = 0;
+        for (int taken = 0; taken < limit && (w < written.size() || r < removed.size()); taken++) {
+            boolean nextIsWrite = r >= removed.size()
+                || (w < written.size() && written.get(w).getChangeSeq() < removed.get(r).getSeq());
+            if (nextIsWrite) {
+                Note note = written.get(w++);
+                seq = note.getChangeSeq();
+                if (NoteSearchIndex.isVisible(note, viewer)) {
+                    upserts.add(NoteView.of(positionBuffer.overlay(note)));
+                }
+            } else {
+                NoteTombstone tombstone = removed.get(r++);
+                seq = tombstone.getSeq();
+                if (!Boolean.TRUE.equals(tombstone.getIsPrivate()) || (viewer != null && viewer.equals(tombstone.getUsername()))) {
+                    deleted.add(tombstone.getNoteId());
+                }
+            }
+        }
+        boolean hasMore = w < written.size() || r < removed.size();
+        long settled = settledSeq();
+        if (seq > settled) {
+            // A write still in flight may yet commit below seq; resend from the settled point
+            seq = Math.max(since, settled);
+            // Calling again at once would only repeat this page
+            hasMore = hasMore && seq > since;
+        }
+        return new NoteChangesResponse(upserts, deleted, seq, hasMore);
+    }
+}
@@ -0,0 +1,167 @@
+package com.Sticky_notes.Sticky_notes.services;
+
+import com.Sticky_notes.Sticky_notes.payload.response.NoteView;
+import com.Sticky_notes.Sticky_notes.repository.NoteRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache for note list queries (as NoteView projections), keyed by query, board type,
+ * username and privacy. Instead of deleting entries on writes, each entry is
+ * stamped with the {@link NoteVersions} version of its scope when loaded;
+ * entries stamped with an older version are simply reloaded on next read.
+ *
+ * Size is bounded with LRU eviction. Hits, misses and evictions are exported
+ * as notes.feed.cache.* metrics.
+ */
+@Service
+public class NoteFeedCache {
+    private final NoteRepository noteRepository;
+    private final NoteVersions versions;
+    private final boolean enabled;
+    private final int maxEntries;
+
+    // Access-ordered for LRU eviction; guarded by itself
+    private final LinkedHashMap<FeedKey, Entry> entries;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    private record FeedKey(String query, String boardType, String username, Boolean isPrivate) {
+    }
+
+    private record Entry(String version, List<NoteView> notes) {
+    }
+
+    public NoteFeedCache(
+            NoteRepository noteRepository,
+            NoteVersions versions,
+            MeterRegistry meterRegistry,
+            @Value("${app.notes.feed-cache.enabled:true}") boolean enabled,
+            @Value("${app.notes.feed-cache.max-entries:1000}") int maxEntries) {
+        this.noteRepository = noteRepository;
+        this.versions = versions;
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.hits = Counter.builder("notes.feed.cache.hits")
+            .description("Note list reads answered from the cache")
+            .register(meterRegistry);
+        this.misses = Counter.builder("notes.feed.cache.misses")
+            .description("Note list reads that went to the database")
+            .register(meterRegistry);
+        this.evictions = Counter.builder("notes.feed.cache.evictions")
+            .description("Cached note lists dropped to stay within max-entries")
+            .register(meterRegistry);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<FeedKey, Entry> eldest) {
+                if (size() > NoteFeedCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        Gauge.builder("notes.feed.cache.size", this, NoteFeedCache::size)
+            .description("Note lists currently cached")
+            .register(meterRegistry);
+    }
+
+    // Cached versions of the NoteRepository list queries used by the note endpoints
+
+    public List<NoteView> findByIsPrivateFalseAndBoardType(String boardType) {
+        return getOrLoad("findByIsPrivateFalseAndBoardType", boardType, null, false,
+            () -> noteRepository.findViewsByIsPrivateFalseAndBoardType(boardType));
+    }
+
+    public List<NoteView> findByUsernameAndIsPrivateFalseAndBoardType(String username, String boardType) {
+        return getOrLoad("findByUsernameAndIsPrivateFalseAndBoardType", boardType, username, false,
+            () -> noteRepository.findViewsByUsernameAndIsPrivateFalseAndBoardType(username, boardType));
+    }
+
+    public List<NoteView> findByUsernameAndIsPrivateTrueAndBoardType(String username, String boardType) {
+        return getOrLoad("findByUsernameAndIsPrivateTrueAndBoardType", boardType, username, true,
+            () -> noteRepository.findViewsByUsernameAndIsPrivateTrueAndBoardType(username, boardType));
+    }
+
+    public List<NoteView> findByUsernameAndBoardType(String username, String boardType) {
+        return getOrLoad("findByUsernameAndBoardType", boardType, username, null,
+            () -> noteRepository.findViewsByUsernameAndBoardType(username, boardType));
+    }
+
+    public List<NoteView> findByUsernameAndIsPrivateTrue(String username) {
+        return getOrLoad("findByUsernameAndIsPrivateTrue", null, username, true,
+            () -> noteRepository.findViewsByUsernameAndIsPrivateTrue(username));
+    }
+
+    public List<NoteView> findByUsernameAndIsPrivateFalse(String username) {
+        return getOrLoad("findByUsernameAndIsPrivateFalse", null, username, false,
+            () -> noteRepository.findViewsByUsernameAndIsPrivateFalse(username));
+    }
+
+    public List<NoteView> findPrivateProfileViewsByUsername(String username) {
+        return getOrLoad("findPrivateProfileViewsByUsername", null, username, true,
+            () -> noteRepository.findPrivateProfileViewsByUsername(username));
+    }
+
+    public List<NoteView> findByUsernameAndDoneTrueAndBoardType(String username, String boardType) {
+        return getOrLoad("findByUsernameAndDoneTrueAndBoardType", boardType, username, null,
+            () -> noteRepository.findViewsByUsernameAndDoneTrueAndBoardType(username, boardType));
+    }
+
+    public List<NoteView> findByUsernameAndDoneFalseAndBoardType(String username, String boardType) {
+        return getOrLoad("findByUsernameAndDoneFalseAndBoardType", boardType, username, null,
+            () -> noteRepository.findViewsByUsernameAndDoneFalseAndBoardType(username, boardType));
+    }
+
+    /**
+     * Returns the cached result of a list query, loading it on a miss or when
+     * a note in its scope changed since it was cached.
+     * @param query Name of the repository query, to tell apart queries with the same arguments
+     * @param boardType Board filter, or null
+     * @param username Owner filter, or null for feeds spanning all users
+     * @param isPrivate Privacy filter, or null
+     * @param loader Runs the query
+     * @return An unmodifiable list
+     */
+    public List<NoteView> getOrLoad(String query, String boardType, String username, Boolean isPrivate,
+            Supplier<List<NoteView>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        FeedKey key = new FeedKey(query, boardType, username, isPrivate);
+
+        // The version is read before loading: a write racing with the load leaves the entry already stale
+        String currentVersion = versions.stamp(NoteVersions.scopeOf(boardType, username));
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.version().equals(currentVersion)) {
+                hits.increment();
+                return entry.notes();
+            }
+        }
+
+        misses.increment();
+        List<NoteView> notes = List.copyOf(loader.get());
+        synchronized (entries) {
+            entries.put(key, new Entry(currentVersion, notes));
+        }
+        return notes;
+    }
+
+    // Number of cached lists
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
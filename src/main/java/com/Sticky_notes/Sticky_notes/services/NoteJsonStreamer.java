@@ -0,0 +1,124 @@
+package com.Sticky_notes.Sticky_notes.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.function.UnaryOperator;
+
+/**
+ * Writes a query's rows to the response as a JSON array (or a CBOR
+ * indefinite-length array), so memory per request does not grow with the
+ * number of notes. Rows are read in keyset pages, each in its own short
+ * read-only transaction, and written after that transaction has ended: a
+ * slow client never holds a pooled connection. Pages are independent
+ * reads, so a note written while a stream is running may or may not be in
+ * it.
+ *
+ * At most app.notes.stream.max-concurrent streams run at once, further
+ * requests get 503, and a stream still running after
+ * app.notes.stream.timeout-ms is cut off. A slot is taken when the body
+ * starts running, not when it is built, so a body that never runs (request
+ * timed out or dropped before dispatch, executor rejection) holds none.
+ */
+@Service
+public class NoteJsonStreamer {
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectWriter rowWriter;
+    private final ObjectWriter cborRowWriter;
+    private final int pageSize;
+    private final long timeoutNanos;
+    private final Semaphore streams;
+
+    /**
+     * One keyset page of a streamed query.
+     */
+    @FunctionalInterface
+    public interface PageQuery<T> {
+        /**
+         * @param last Last row of the previous page, or null for the first page
+         * @param limit Page size
+         * @return The rows after last in key order, at most limit of them
+         */
+        List<T> next(T last, Limit limit);
+    }
+
+    public NoteJsonStreamer(
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            MappingJackson2CborHttpMessageConverter cborConverter,
+            @Value("${app.notes.stream.page-size:500}") int pageSize,
+            @Value("${app.notes.stream.max-concurrent:4}") int maxConcurrent,
+            @Value("${app.notes.stream.timeout-ms:60000}") long timeoutMs) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // Rows are flushed once per page, not one by one
+        this.rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.cborRowWriter = cborConverter.getObjectMapper().writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.pageSize = pageSize;
+        this.timeoutNanos = timeoutMs * 1_000_000;
+        this.streams = new Semaphore(maxConcurrent);
+    }
+
+    // JSON form of stream(MediaType, PageQuery, UnaryOperator)
+    public <T> StreamingResponseBody stream(PageQuery<T> query, UnaryOperator<T> mapper) {
+        return stream(MediaType.APPLICATION_JSON, query, mapper);
+    }
+
+    /**
+     * Builds a response body that pages through the query and streams its rows.
+     * @param format application/json or application/cbor
+     * @param query Reads one page; called inside a read-only transaction
+     * @param mapper Applied to each row before it is written
+     * @return A body that, when run, fails with a 503 ResponseStatusException before writing
+     *         anything if the maximum number of streams is already running
+     */
+    public <T> StreamingResponseBody stream(MediaType format, PageQuery<T> query, UnaryOperator<T> mapper) {
+        ObjectWriter writer = MediaType.APPLICATION_CBOR.equalsTypeAndSubtype(format) ? cborRowWriter : rowWriter;
+        return outputStream -> {
+            if (!streams.tryAcquire()) {
+                // Nothing written yet, so the response can still become a 503
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many streams");
+            }
+            try (JsonGenerator generator = writer.createGenerator(outputStream)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                long deadline = System.nanoTime() + timeoutNanos;
+                generator.writeStartArray();
+                T last = null;
+                List<T> page;
+                do {
+                    if (System.nanoTime() - deadline > 0) {
+                        // Typically a client reading too slowly; ending here leaves the array unterminated
+                        throw new IOException("Stream timed out");
+                    }
+                    T after = last;
+                    page = readOnlyTransaction.execute(status -> query.next(after, Limit.of(pageSize)));
+                    for (T row : page) {
+                        writer.writeValue(generator, mapper.apply(row));
+                    }
+                    generator.flush();
+                    if (!page.isEmpty()) {
+                        last = page.get(page.size() - 1);
+                    }
+                } while (page.size() == pageSize);
+                generator.writeEndArray();
+            } finally {
+                streams.release();
+            }
+        };
+    }
+}
@@ -3,6 +3,7 @@ package com.Sticky_notes.Sticky_notes.services;
 import com.Sticky_notes.Sticky_notes.models.NoteManagment;
 import com.Sticky_notes.Sticky_notes.repository.NoteManagmentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -31,21 +32,39 @@ public class NoteManagmentService {
         return noteRepository.findByUsername(username);
     }
 
+    /**
+     * Creates a note, or replaces an existing one. A replacement carrying a
+     * version only succeeds if the note is still at that version; without
+     * one it applies to whatever version was just read.
+     * @throws ObjectOptimisticLockingFailureException If the note changed since that version
+     */
     public NoteManagment saveOrUpdateNote(NoteManagment note) {
         if (note.getId() == null) {
             // New note
             note.setCreatedAt(LocalDateTime.now());
+            note.setVersion(null);
         } else {
             // Existing note - preserve creation date
             noteRepository.findById(note.getId())
-                .ifPresent(existingNote -> note.setCreatedAt(existingNote.getCreatedAt()));
+                .ifPresent(existingNote -> {
+                    note.setCreatedAt(existingNote.getCreatedAt());
+                    if (note.getVersion() == null) {
+                        note.setVersion(existingNote.getVersion());
+                    }
+                });
         }
         note.setUpdatedAt(LocalDateTime.now());
         return noteRepository.save(note);
     }
 
-    public Optional<NoteManagment> updateNoteStatus(Long id, String status) {
+    /**
+     * Sets a note's status.
+     * @param expectedVersion Version the caller last saw, or null for an unconditional update
+     * @throws ObjectOptimisticLockingFailureException If the note is no longer at expectedVersion
+     */
+    public Optional<NoteManagment> updateNoteStatus(Long id, String status, Long expectedVersion) {
         return noteRepository.findById(id).map(note -> {
+            checkVersion(note, expectedVersion);
             note.setStatus(status);
             note.setDone("done".equalsIgnoreCase(status));
             note.setUpdatedAt(LocalDateTime.now());
@@ -53,8 +72,14 @@ public class NoteManagmentService {
         });
     }
 
-    public Optional<NoteManagment> updateNotePosition(Long id, int x, int y) {
+    /**
+     * Moves a note.
+     * @param expectedVersion Version the caller last saw, or null for an unconditional update
+     * @throws ObjectOptimisticLockingFailureException If the note is no longer at expectedVersion
+     */
+    public Optional<NoteManagment> updateNotePosition(Long id, int x, int y, Long expectedVersion) {
         return noteRepository.findById(id).map(note -> {
+            checkVersion(note, expectedVersion);
             note.setX(x);
             note.setY(y);
             note.setUpdatedAt(LocalDateTime.now());
@@ -70,4 +95,11 @@ public class NoteManagmentService {
             noteRepository.save(note);
         });
     }
-}
\ No newline at end of file
+
+    // Rejects a stale write early; the versioned UPDATE still catches writes racing with this one
+    private static void checkVersion(NoteManagment note, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(note.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(NoteManagment.class, note.getId());
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.Sticky_notes.Sticky_notes.services;
+
+import com.Sticky_notes.Sticky_notes.models.Note;
+import com.Sticky_notes.Sticky_notes.payload.response.NoteView;
+import com.Sticky_notes.Sticky_notes.realtime.NoteChangedEvent;
+import com.Sticky_notes.Sticky_notes.repository.NoteRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind buffer for note drag updates. Positions are staged in memory
+ * keyed by note id (last write wins) and flushed to the database as one JDBC
+ * batch of UPDATEs, on a short interval or once enough notes are pending;
+ * either way the batch runs on the scheduler, never on the thread that staged
+ * the move. Reads overlay pending positions so clients always see their own moves.
+ *
+ * A copy of each note being dragged is kept until it has been idle for a
+ * while, so a long drag reads the note from the database only once. Change
+ * events, including those of other instances, keep that copy current: a
+ * deleted note's pending move is dropped, an updated note's copy replaced.
+ */
+@Service
+public class NotePositionBuffer {
+    private static final Logger logger = LoggerFactory.getLogger(NotePositionBuffer.class);
+
+    private static final String UPDATE_POSITION_SQL =
+        "UPDATE note SET x = ?, y = ?, version = version + 1, change_seq = nextval('note_change_seq') WHERE id = ?";
+
+    private final NoteRepository noteRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final int flushThreshold;
+    private final long idleRetentionNanos;
+
+    // Positions not yet written, by note id
+    private final Map<Long, PendingPosition> pending = new ConcurrentHashMap<>();
+
+    // Notes dragged recently, used to answer moves without reloading them
+    private final Map<Long, RecentNote> recent = new ConcurrentHashMap<>();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final TaskScheduler taskScheduler;
+
+    // Set while a threshold flush is queued, so a burst of moves queues only one
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+
+    // Immutable, so a flush can tell whether it wrote the latest value
+    private static final class PendingPosition {
+        private final int x;
+        private final int y;
+
+        private PendingPosition(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    private static final class RecentNote {
+        private final Note note;
+        private volatile long touchedAt;
+
+        private RecentNote(Note note) {
+            this.note = note;
+            this.touchedAt = System.nanoTime();
+        }
+
+        // The same note after a flush wrote its position, which bumps the version
+        private RecentNote written(PendingPosition position) {
+            Note copy = withPosition(note, position.x, position.y);
+            copy.setVersion(note.getVersion() != null ? note.getVersion() + 1 : null);
+            RecentNote next = new RecentNote(copy);
+            next.touchedAt = touchedAt;
+            return next;
+        }
+    }
+
+    public NotePositionBuffer(
+            NoteRepository noteRepository,
+            JdbcTemplate jdbcTemplate,
+            ApplicationEventPublisher eventPublisher,
+            TaskScheduler taskScheduler,
+            @Value("${app.notes.position-write-behind.enabled:true}") boolean enabled,
+            @Value("${app.notes.position-write-behind.flush-threshold:500}") int flushThreshold,
+            @Value("${app.notes.position-write-behind.idle-retention-ms:5000}") long idleRetentionMs) {
+        this.noteRepository = noteRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.taskScheduler = taskScheduler;
+        this.enabled = enabled;
+        this.flushThreshold = flushThreshold;
+        this.idleRetentionNanos = idleRetentionMs * 1_000_000L;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Stages a new position. Only the first move of a drag reads the database
+     * (to check the note exists and to build the response).
+     * @return The note with its new position, or empty if it does not exist
+     */
+    public Optional<Note> stage(Long id, int x, int y) {
+        RecentNote known = recent.get(id);
+        if (known == null) {
+            Optional<Note> loaded = noteRepository.findById(id);
+            if (loaded.isEmpty()) {
+                return Optional.empty();
+            }
+            known = recent.computeIfAbsent(id, key -> new RecentNote(copyOf(loaded.get())));
+        }
+        known.touchedAt = System.nanoTime();
+        pending.put(id, new PendingPosition(x, y));
+
+        if (pending.size() >= flushThreshold) {
+            requestFlush();
+        }
+        return Optional.of(withPosition(known.note, x, y));
+    }
+
+    // Runs a flush on the scheduler as soon as it is free; the caller does not wait for it
+    private void requestFlush() {
+        if (!flushQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            taskScheduler.schedule(() -> {
+                // Cleared first, so moves staged during this flush can queue the next one
+                flushQueued.set(false);
+                flush();
+            }, Instant.now());
+        } catch (TaskRejectedException e) {
+            // The interval flush still picks the positions up
+            flushQueued.set(false);
+            logger.debug("Threshold flush not queued: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Drops a pending move, e.g. because the note is being deleted.
+     */
+    public void cancel(Long id) {
+        pending.remove(id);
+        recent.remove(id);
+    }
+
+    /**
+     * Replaces the buffered copy of a note after another write path changed it.
+     */
+    public void refresh(Note note) {
+        recent.computeIfPresent(note.getId(), (key, current) -> new RecentNote(copyOf(note)));
+    }
+
+    /**
+     * Follows writes made by other paths or other instances once they
+     * commit. The buffer's own flushes come back here too, as the state it
+     * already holds.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onNoteChanged(NoteChangedEvent event) {
+        Long id = event.getNoteId();
+        if (id == null) {
+            return;
+        }
+        if (event.isDeleted()) {
+            cancel(id);
+        } else if (event.getNote() != null) {
+            refresh(event.getNote());
+        } else {
+            // Changed in a way the event does not carry; the next move reloads the note
+            recent.remove(id);
+        }
+    }
+
+    /**
+     * Returns the note as clients should see it: with its pending position if
+     * one is staged. The argument is never modified.
+     */
+    public Note overlay(Note note) {
+        PendingPosition staged = note.getId() != null ? pending.get(note.getId()) : null;
+        return staged != null ? withPosition(note, staged.x, staged.y) : note;
+    }
+
+    // List form of overlay(Note); returns the same list when nothing is pending
+    public List<Note> overlay(List<Note> notes) {
+        if (pending.isEmpty()) {
+            return notes;
+        }
+        List<Note> result = new ArrayList<>(notes.size());
+        for (Note note : notes) {
+            result.add(overlay(note));
+        }
+        return result;
+    }
+
+    // overlay(Note) for projections
+    public NoteView overlay(NoteView note) {
+        PendingPosition staged = note.id() != null ? pending.get(note.id()) : null;
+        return staged != null ? note.withPosition(staged.x, staged.y) : note;
+    }
+
+    // List form of overlay(NoteView); returns the same list when nothing is pending
+    public List<NoteView> overlayViews(List<NoteView> notes) {
+        if (pending.isEmpty()) {
+            return notes;
+        }
+        List<NoteView> result = new ArrayList<>(notes.size());
+        for (NoteView note : notes) {
+            result.add(overlay(note));
+        }
+        return result;
+    }
+
+    /**
+     * Writes all pending positions in one JDBC batch. Notes moved again while
+     * the batch was running stay pending for the next flush.
+     */
+    @Scheduled(fixedDelayString = "${app.notes.position-write-behind.flush-interval-ms:200}")
+    public void flush() {
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            if (!pending.isEmpty()) {
+                List<Map.Entry<Long, PendingPosition>> batch = new ArrayList<>(pending.size());
+                for (Map.Entry<Long, PendingPosition> entry : pending.entrySet()) {
+                    batch.add(Map.entry(entry.getKey(), entry.getValue()));
+                }
+                List<Object[]> rows = new ArrayList<>(batch.size());
+                for (Map.Entry<Long, PendingPosition> entry : batch) {
+                    rows.add(new Object[] { entry.getValue().x, entry.getValue().y, entry.getKey() });
+                }
+                int[] counts = jdbcTemplate.batchUpdate(UPDATE_POSITION_SQL, rows);
+                for (Map.Entry<Long, PendingPosition> entry : batch) {
+                    // Only remove the exact value written; a newer move keeps its entry
+                    pending.remove(entry.getKey(), entry.getValue());
+                }
+                logger.debug("Flushed {} pending note positions", rows.size());
+
+                // Stored positions changed: cached feeds of these notes are now stale
+                for (int i = 0; i < batch.size(); i++) {
+                    Map.Entry<Long, PendingPosition> entry = batch.get(i);
+                    if (counts[i] == 0) {
+                        dropDeleted(entry.getKey());
+                    } else {
+                        publishWritten(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+
+            long now = System.nanoTime();
+            recent.values().removeIf(entry -> now - entry.touchedAt > idleRetentionNanos);
+        } catch (Exception e) {
+            // Entries stay pending and are retried on the next tick
+            logger.error("Error flushing note positions: {}", e.getMessage(), e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the pending position of one note now, if it has one. Conditional
+     * writes call this first, so the version they compare against already
+     * counts every move that was acknowledged.
+     */
+    public void flush(Long id) {
+        // Blocking, unlike the scheduled flush: the caller needs the row written before it goes on
+        flushLock.lock();
+        try {
+            PendingPosition staged = pending.remove(id);
+            if (staged != null) {
+                int updated;
+                try {
+                    updated = jdbcTemplate.update(UPDATE_POSITION_SQL, staged.x, staged.y, id);
+                } catch (RuntimeException e) {
+                    pending.putIfAbsent(id, staged);
+                    throw e;
+                }
+                if (updated == 0) {
+                    dropDeleted(id);
+                } else {
+                    publishWritten(id, staged);
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Number of positions not yet written to the database
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    // The note was deleted before its move was written; nothing changed, so nothing is published
+    private void dropDeleted(Long id) {
+        recent.remove(id);
+        logger.debug("Dropped the pending position of deleted note {}", id);
+    }
+
+    private void publishWritten(Long id, PendingPosition written) {
+        RecentNote known = recent.computeIfPresent(id, (key, current) -> current.written(written));
+        eventPublisher.publishEvent(known != null
+            ? NoteChangedEvent.flushed(copyOf(known.note))
+            : NoteChangedEvent.moved(id, written.x, written.y));
+    }
+
+    private static Note withPosition(Note source, int x, int y) {
+        Note copy = copyOf(source);
+        copy.setX(x);
+        copy.setY(y);
+        return copy;
+    }
+
+    // Detached copy of a note; also used by NoteBatchService
+    static Note copyOf(Note source) {
+        Note copy = new Note();
+        copy.setId(source.getId());
+        copy.setX(source.getX());
+        copy.setY(source.getY());
+        copy.setText(source.getText());
+        copy.setDone(source.isDone());
+        copy.setUsername(source.getUsername());
+        copy.setIsPrivate(source.getIsPrivate());
+        copy.setBoardType(source.getBoardType());
+        copy.setVersion(source.getVersion());
+        copy.setChangeSeq(source.getChangeSeq());
+        return copy;
+    }
+}
@@ -0,0 +1,377 @@
+package com.Sticky_notes.Sticky_notes.services;
+
+import com.Sticky_notes.Sticky_notes.models.Note;
+import com.Sticky_notes.Sticky_notes.payload.response.NoteView;
+import com.Sticky_notes.Sticky_notes.realtime.NoteChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over note text, used by GET /api/notes/search
+ * instead of a LIKE '%q%' table scan. It is loaded from the database once at
+ * startup and then kept current from {@link NoteChangedEvent}s.
+ *
+ * Every query term must match (AND). A term matches a word exactly or, from
+ * {@link #MIN_PREFIX_LENGTH} characters, as a prefix. Results are ranked by
+ * the rarity of the query terms (idf), with exact word matches and short
+ * notes scoring higher.
+ */
+@Service
+public class NoteSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(NoteSearchIndex.class);
+
+    // Shorter terms only match whole words, so "a" does not expand to half the dictionary
+    static final int MIN_PREFIX_LENGTH = 2;
+
+    // Weight of a prefix expansion relative to an exact word match
+    private static final double PREFIX_WEIGHT = 0.5;
+
+    private static final int FETCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private final Map<Long, Doc> docs = new HashMap<>();
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private boolean ready;
+    // Notes deleted while the initial load was running, so the load does not bring them back
+    private Set<Long> deletedDuringLoad = new HashSet<>();
+
+    // Searchable fields of an indexed note
+    private static final class Doc {
+        private final String username;
+        private final boolean isPrivate;
+        private final String boardType;
+        private final String text;
+        private final String[] words;
+
+        private Doc(String username, boolean isPrivate, String boardType, String text) {
+            this.username = username;
+            this.isPrivate = isPrivate;
+            this.boardType = boardType;
+            this.text = text;
+            this.words = tokenize(text).toArray(new String[0]);
+        }
+
+        private boolean sameAs(Doc other) {
+            return other != null && isPrivate == other.isPrivate
+                && Objects.equals(username, other.username)
+                && Objects.equals(boardType, other.boardType)
+                && Objects.equals(text, other.text);
+        }
+    }
+
+    // Ids of the notes containing a word; a growable array keeps 1M-note indexes compact
+    private static final class Postings {
+        private long[] ids = new long[2];
+        private int size;
+
+        private void add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        private void remove(long id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    ids[i] = ids[--size];
+                    return;
+                }
+            }
+        }
+    }
+
+    public NoteSearchIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Loads every note into the index. Runs once the application is ready;
+     * until it finishes {@link #isReady()} is false. The transaction lets the
+     * Postgres driver honour the fetch size instead of buffering every row.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            docs.clear();
+            terms.clear();
+            ready = false;
+            deletedDuringLoad = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // Rows are added in chunks so live updates are not blocked for the whole load
+        List<Object[]> chunk = new ArrayList<>(FETCH_SIZE);
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement("SELECT id, text, username, is_private, board_type FROM note");
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, resultSet -> {
+            chunk.add(new Object[] {
+                resultSet.getLong(1), resultSet.getString(2), resultSet.getString(3),
+                resultSet.getBoolean(4), resultSet.getString(5)
+            });
+            if (chunk.size() == FETCH_SIZE) {
+                loadChunk(chunk);
+                chunk.clear();
+            }
+        });
+        loadChunk(chunk);
+
+        lock.writeLock().lock();
+        try {
+            ready = true;
+            deletedDuringLoad = new HashSet<>();
+            logger.info("Indexed {} notes for search in {} ms", docs.size(), (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return ready;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // After commit, so a read racing the write cannot cache the old state again
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onNoteChanged(NoteChangedEvent event) {
+        Note note = event.getNote();
+        if (note == null || note.getId() == null) {
+            // Position-only change; text and visibility are unaffected
+            return;
+        }
+        if (event.isDeleted()) {
+            remove(note.getId());
+        } else {
+            index(note);
+        }
+    }
+
+    // Adds or replaces a note; a no-op when its searchable fields did not change
+    public void index(Note note) {
+        Doc doc = new Doc(note.getUsername(), Boolean.TRUE.equals(note.getIsPrivate()), note.getBoardType(), note.getText());
+        lock.writeLock().lock();
+        try {
+            put(note.getId(), doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                deletedDuringLoad.add(id);
+            }
+            Doc previous = docs.remove(id);
+            if (previous != null) {
+                unlink(id, previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ranked search over the notes a viewer may see.
+     * @param query Free text; split into words like the indexed text
+     * @param viewer Authenticated username, or null for guests; only the viewer's own private notes are visible
+     * @param owner Restrict to notes of this user, or null
+     * @param boardType Restrict to this board, or null
+     * @param offset Number of ranked results to skip
+     * @param limit Maximum number of ids to return
+     * @return Note ids, best match first
+     */
+    public List<Long> search(String query, String viewer, String owner, String boardType, int offset, int limit) {
+        Set<String> queryTerms = tokenize(query);
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = null;
+            for (String term : queryTerms) {
+                Map<Long, Double> termScores = scoreTerm(term, scores);
+                if (termScores.isEmpty()) {
+                    return List.of();
+                }
+                scores = termScores;
+            }
+
+            List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.size());
+            for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                Doc doc = docs.get(entry.getKey());
+                if (isVisible(doc, viewer) && (owner == null || owner.equals(doc.username))
+                        && (boardType == null || boardType.equals(doc.boardType))) {
+                    // Shorter notes are more about the matched words
+                    entry.setValue(entry.getValue() / Math.sqrt(Math.max(1, doc.words.length)));
+                    ranked.add(entry);
+                }
+            }
+            ranked.sort(Map.Entry.<Long, Double>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())));
+
+            List<Long> ids = new ArrayList<>(Math.min(limit, ranked.size()));
+            for (int i = offset; i < ranked.size() && ids.size() < limit; i++) {
+                ids.add(ranked.get(i).getKey());
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Number of indexed notes
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Private notes are only visible to their owner
+    public static boolean isVisible(Note note, String viewer) {
+        return !Boolean.TRUE.equals(note.getIsPrivate()) || (viewer != null && viewer.equals(note.getUsername()));
+    }
+
+    // Same check on a projection
+    public static boolean isVisible(NoteView note, String viewer) {
+        return !Boolean.TRUE.equals(note.isPrivate()) || (viewer != null && viewer.equals(note.username()));
+    }
+
+    /**
+     * Lowercased words of a text, split on anything that is not a letter or digit.
+     */
+    static Set<String> tokenize(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        if (text == null) {
+            return words;
+        }
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private void loadChunk(List<Object[]> rows) {
+        lock.writeLock().lock();
+        try {
+            for (Object[] row : rows) {
+                Long id = (Long) row[0];
+                // A live update already indexed a newer state, or the note is gone
+                if (!docs.containsKey(id) && !deletedDuringLoad.contains(id)) {
+                    put(id, new Doc((String) row[2], (Boolean) row[3], (String) row[4], (String) row[1]));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock
+    private void put(Long id, Doc doc) {
+        Doc previous = docs.get(id);
+        if (doc.sameAs(previous)) {
+            return;
+        }
+        if (previous != null) {
+            unlink(id, previous);
+        }
+        docs.put(id, doc);
+        for (String word : doc.words) {
+            terms.computeIfAbsent(word, key -> new Postings()).add(id);
+        }
+    }
+
+    // Caller holds the write lock
+    private void unlink(Long id, Doc doc) {
+        for (String word : doc.words) {
+            Postings postings = terms.get(word);
+            if (postings != null) {
+                postings.remove(id);
+                if (postings.size == 0) {
+                    terms.remove(word);
+                }
+            }
+        }
+    }
+
+    /**
+     * Scores the notes matching one query term: its idf, halved when a note
+     * only contains a longer word starting with it. When candidates is given, only those notes are considered and
+     * their previous score is added.
+     */
+    private Map<Long, Double> scoreTerm(String term, Map<Long, Double> candidates) {
+        Map<Long, Double> scores = new HashMap<>();
+        NavigableMap<String, Postings> matches = term.length() >= MIN_PREFIX_LENGTH
+            ? terms.subMap(term, true, term + Character.MAX_VALUE, false)
+            : terms.subMap(term, true, term, true);
+        // The term's rarity is that of everything it matches, so a rare expansion does not outrank a common one
+        long matchedDocs = 0;
+        for (Postings postings : matches.values()) {
+            matchedDocs += postings.size;
+        }
+        double idf = Math.log(1 + (double) Math.max(1, docs.size()) / Math.max(1, matchedDocs));
+
+        for (Map.Entry<String, Postings> match : matches.entrySet()) {
+            Postings postings = match.getValue();
+            double weight = idf * (match.getKey().equals(term) ? 1.0 : PREFIX_WEIGHT);
+            for (int i = 0; i < postings.size; i++) {
+                long id = postings.ids[i];
+                if (candidates != null && !candidates.containsKey(id)) {
+                    continue;
+                }
+                scores.merge(id, weight, Math::max);
+            }
+        }
+        if (candidates != null) {
+            scores.replaceAll((id, score) -> score + candidates.get(id));
+        }
+        return scores;
+    }
+
+    private static boolean isVisible(Doc doc, String viewer) {
+        return !doc.isPrivate || (viewer != null && viewer.equals(doc.username));
+    }
+}
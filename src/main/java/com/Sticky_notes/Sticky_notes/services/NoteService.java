@@ -1,17 +1,26 @@
 package com.Sticky_notes.Sticky_notes.services;
 
 import com.Sticky_notes.Sticky_notes.models.Note;
+import com.Sticky_notes.Sticky_notes.realtime.NoteChangedEvent;
 import com.Sticky_notes.Sticky_notes.repository.NoteRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class NoteService {
     private final NoteRepository noteRepository;
+    private final NoteStatsService noteStats;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public NoteService(NoteRepository noteRepository) {
+    public NoteService(NoteRepository noteRepository, NoteStatsService noteStats, ApplicationEventPublisher eventPublisher) {
         this.noteRepository = noteRepository;
+        this.noteStats = noteStats;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<Note> getAllnotes() {
@@ -19,13 +28,61 @@ public class NoteService {
     }
 
     public Note addnote(Note note) {
-        return noteRepository.save(note);
+        return create(note);
+    }
+
+    /**
+     * Saves a new note and counts it for its owner in the same transaction;
+     * viewers are told once it commits.
+     */
+    @Transactional
+    public Note create(Note note) {
+        Note saved = noteRepository.save(note);
+        noteStats.noteAdded(saved);
+        eventPublisher.publishEvent(NoteChangedEvent.created(saved));
+        return saved;
+    }
+
+    /**
+     * Marks a note as done and counts it in its owner's done total, in one
+     * transaction. Only the done column is written, and only if the note was
+     * not done yet, so a pending drag position is never overwritten.
+     * @param expectedVersion Version the caller last saw, or null for an unconditional update
+     * @return The note as stored, or empty if it does not exist
+     * @throws ObjectOptimisticLockingFailureException If the note is no longer at expectedVersion
+     */
+    @Transactional
+    public Optional<Note> markDone(Long id, Long expectedVersion) {
+        boolean flipped = (expectedVersion != null
+            ? noteRepository.markDoneIfVersion(id, expectedVersion)
+            : noteRepository.markDone(id)) == 1;
+        Optional<Note> note = noteRepository.findById(id);
+        if (flipped) {
+            noteStats.doneChanged(note.get(), true);
+        } else if (note.isPresent() && expectedVersion != null && !expectedVersion.equals(note.get().getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Note.class, id);
+        }
+        note.ifPresent(done -> eventPublisher.publishEvent(NoteChangedEvent.of(done, NoteChangedEvent.Change.DONE)));
+        return note;
+    }
+
+    /**
+     * Writes a note's position straight to the database, bypassing the
+     * write-behind buffer; used for the drop at the end of a drag.
+     * @return The note as stored, or empty if it does not exist
+     */
+    @Transactional
+    public Optional<Note> move(Long id, int x, int y) {
+        if (noteRepository.updatePosition(id, x, y) == 0) {
+            return Optional.empty();
+        }
+        Optional<Note> note = noteRepository.findById(id);
+        note.ifPresent(moved -> eventPublisher.publishEvent(NoteChangedEvent.of(moved, NoteChangedEvent.Change.MOVED)));
+        return note;
     }
 
     public Note markAsDone(Long id) {
-        Note note = noteRepository.findById(id).orElseThrow();
-        note.setDone(true);
-        return noteRepository.save(note);
+        return markDone(id, null).orElseThrow();
     }
     
     public void deletenote(Long id) {
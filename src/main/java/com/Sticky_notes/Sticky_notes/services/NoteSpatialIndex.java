@@ -0,0 +1,294 @@
+package com.Sticky_notes.Sticky_notes.services;
+
+import com.Sticky_notes.Sticky_notes.models.Note;
+import com.Sticky_notes.Sticky_notes.realtime.NoteChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory uniform grid of note positions, one per board, used by
+ * GET /api/notes/viewport to find the notes inside a rectangle without
+ * loading the whole board. Loaded at startup and kept current from
+ * {@link NoteChangedEvent}s (create, move, delete).
+ *
+ * The main board has one grid; every user's profile board has its own.
+ */
+@Service
+public class NoteSpatialIndex {
+    private static final Logger logger = LoggerFactory.getLogger(NoteSpatialIndex.class);
+
+    private static final int FETCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int cellSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private final Map<String, Map<Long, List<Entry>>> grids = new HashMap<>();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private boolean ready;
+    // Notes deleted while the initial load was running, so the load does not bring them back
+    private Set<Long> deletedDuringLoad = new HashSet<>();
+
+    // Position and visibility of one note
+    private record Entry(long id, int x, int y, boolean isPrivate, String username, String board) {
+    }
+
+    public NoteSpatialIndex(
+            JdbcTemplate jdbcTemplate,
+            @Value("${app.notes.viewport.cell-size:512}") int cellSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Grid key of a board: "main", or "profile:{username}" for a profile board.
+     */
+    public static String boardKey(String boardType, String username) {
+        return "profile".equals(boardType) ? "profile:" + username : "main";
+    }
+
+    /**
+     * Loads every note position. Runs once the application is ready; until it
+     * finishes {@link #isReady()} is false.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            grids.clear();
+            entries.clear();
+            ready = false;
+            deletedDuringLoad = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // Rows are added in chunks so live updates are not blocked for the whole load
+        List<Entry> chunk = new ArrayList<>(FETCH_SIZE);
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement("SELECT id, x, y, is_private, username, board_type FROM note");
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, resultSet -> {
+            String username = resultSet.getString(5);
+            chunk.add(new Entry(resultSet.getLong(1), resultSet.getInt(2), resultSet.getInt(3),
+                resultSet.getBoolean(4), username, boardKey(resultSet.getString(6), username)));
+            if (chunk.size() == FETCH_SIZE) {
+                loadChunk(chunk);
+                chunk.clear();
+            }
+        });
+        loadChunk(chunk);
+
+        lock.writeLock().lock();
+        try {
+            ready = true;
+            deletedDuringLoad = new HashSet<>();
+            logger.info("Indexed {} note positions in {} ms", entries.size(), (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return ready;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // After commit, so a read racing the write cannot cache the old state again
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onNoteChanged(NoteChangedEvent event) {
+        if (event.getNoteId() == null) {
+            return;
+        }
+        if (event.isDeleted()) {
+            remove(event.getNoteId());
+        } else if (event.getNote() != null) {
+            index(event.getNote());
+        } else if (event.getX() != null && event.getY() != null) {
+            move(event.getNoteId(), event.getX(), event.getY());
+        }
+    }
+
+    // Adds a note or updates its position and visibility
+    public void index(Note note) {
+        if (note.getX() == null || note.getY() == null) {
+            return;
+        }
+        Entry entry = new Entry(note.getId(), note.getX(), note.getY(), Boolean.TRUE.equals(note.getIsPrivate()),
+            note.getUsername(), boardKey(note.getBoardType(), note.getUsername()));
+        lock.writeLock().lock();
+        try {
+            put(entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Moves an indexed note; unknown ids are ignored
+    public void move(Long id, int x, int y) {
+        lock.writeLock().lock();
+        try {
+            Entry current = entries.get(id);
+            if (current != null) {
+                put(new Entry(id, x, y, current.isPrivate(), current.username(), current.board()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                deletedDuringLoad.add(id);
+            }
+            Entry previous = entries.remove(id);
+            if (previous != null) {
+                unlink(previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the notes of a board whose position lies inside the rectangle
+     * (bounds inclusive), newest first.
+     * @param board Key from {@link #boardKey(String, String)}
+     * @param viewer Authenticated username, or null; private notes are only returned to their owner
+     * @param limit Maximum number of ids
+     */
+    public List<Long> query(String board, String viewer, int minX, int minY, int maxX, int maxY, int limit) {
+        List<Long> ids = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Map<Long, List<Entry>> grid = grids.get(board);
+            if (grid == null || minX > maxX || minY > maxY) {
+                return ids;
+            }
+            long minCellX = cellOf(minX);
+            long maxCellX = cellOf(maxX);
+            long minCellY = cellOf(minY);
+            long maxCellY = cellOf(maxY);
+            long rectangleCells = (maxCellX - minCellX + 1) * (maxCellY - minCellY + 1);
+
+            if (rectangleCells > grid.size()) {
+                // Zoomed far out: walking the occupied cells is cheaper than walking the rectangle
+                for (List<Entry> cell : grid.values()) {
+                    collect(cell, viewer, minX, minY, maxX, maxY, ids);
+                }
+            } else {
+                for (long cx = minCellX; cx <= maxCellX; cx++) {
+                    for (long cy = minCellY; cy <= maxCellY; cy++) {
+                        List<Entry> cell = grid.get(cellKey(cx, cy));
+                        if (cell != null) {
+                            collect(cell, viewer, minX, minY, maxX, maxY, ids);
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        ids.sort((a, b) -> Long.compare(b, a));
+        return ids.size() > limit ? new ArrayList<>(ids.subList(0, limit)) : ids;
+    }
+
+    // Number of indexed notes
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void collect(List<Entry> cell, String viewer, int minX, int minY, int maxX, int maxY, List<Long> ids) {
+        for (Entry entry : cell) {
+            if (entry.x() >= minX && entry.x() <= maxX && entry.y() >= minY && entry.y() <= maxY
+                    && (!entry.isPrivate() || (viewer != null && viewer.equals(entry.username())))) {
+                ids.add(entry.id());
+            }
+        }
+    }
+
+    private void loadChunk(List<Entry> chunk) {
+        lock.writeLock().lock();
+        try {
+            for (Entry entry : chunk) {
+                // A live update already indexed a newer position, or the note is gone
+                if (!entries.containsKey(entry.id()) && !deletedDuringLoad.contains(entry.id())) {
+                    put(entry);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock
+    private void put(Entry entry) {
+        Entry previous = entries.put(entry.id(), entry);
+        if (previous != null) {
+            unlink(previous);
+        }
+        grids.computeIfAbsent(entry.board(), key -> new HashMap<>())
+            .computeIfAbsent(cellKey(cellOf(entry.x()), cellOf(entry.y())), key -> new ArrayList<>())
+            .add(entry);
+    }
+
+    // Caller holds the write lock
+    private void unlink(Entry entry) {
+        Map<Long, List<Entry>> grid = grids.get(entry.board());
+        if (grid == null) {
+            return;
+        }
+        long key = cellKey(cellOf(entry.x()), cellOf(entry.y()));
+        List<Entry> cell = grid.get(key);
+        if (cell != null) {
+            cell.removeIf(candidate -> candidate.id() == entry.id());
+            if (cell.isEmpty()) {
+                grid.remove(key);
+            }
+        }
+        if (grid.isEmpty()) {
+            grids.remove(entry.board());
+        }
+    }
+
+    private long cellOf(int coordinate) {
+        return Math.floorDiv(coordinate, cellSize);
+    }
+
+    // Packs two cell coordinates (each well within 32 bits) into one map key
+    private static long cellKey(long cellX, long cellY) {
+        return (cellX << 32) ^ (cellY & 0xffffffffL);
+    }
+}
@@ -0,0 +1,175 @@
+package com.Sticky_notes.Sticky_notes.services;
+
+import com.Sticky_notes.Sticky_notes.models.Note;
+import com.Sticky_notes.Sticky_notes.models.NoteStats;
+import com.Sticky_notes.Sticky_notes.payload.response.UserNoteStats;
+import com.Sticky_notes.Sticky_notes.repository.NoteStatsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-user note counters (total, private, done, per board) in the note_stats
+ * table. Write paths apply deltas in their own transaction, as atomic
+ * "count = count + ?" updates, so a counter never disagrees with a committed
+ * set of notes and concurrent writers never lose an increment.
+ *
+ * Writes that bypass these hooks (manual SQL, restores) are repaired by
+ * {@link #rebuild()}, which recomputes every counter from the note table.
+ * It runs on a schedule and at startup when the table is still empty, on
+ * every instance, so only one rebuild runs at a time: across instances
+ * through a Postgres advisory lock, within one through a local lock. A
+ * rebuild that finds either taken is skipped, since the running one
+ * produces the same counters.
+ */
+@Service
+public class NoteStatsService {
+    private static final Logger logger = LoggerFactory.getLogger(NoteStatsService.class);
+
+    // Notes without a board are listed on the main board
+    private static final String DEFAULT_BOARD = "main";
+
+    private static final String INCREMENT_SQL = "UPDATE note_stats SET note_count = note_count + ?, "
+        + "private_count = private_count + ?, done_count = done_count + ? WHERE username = ? AND board_type = ?";
+    private static final String CREATE_ROW_SQL = "INSERT INTO note_stats "
+        + "(username, board_type, note_count, private_count, done_count) VALUES (?, ?, 0, 0, 0) ON CONFLICT DO NOTHING";
+    private static final String CLEAR_SQL = "DELETE FROM note_stats";
+    private static final String REBUILD_SQL = "INSERT INTO note_stats "
+        + "(username, board_type, note_count, private_count, done_count) "
+        + "SELECT username, COALESCE(board_type, '" + DEFAULT_BOARD + "'), COUNT(*), "
+        + "SUM(CASE WHEN is_private THEN 1 ELSE 0 END), SUM(CASE WHEN done THEN 1 ELSE 0 END) "
+        + "FROM note GROUP BY username, COALESCE(board_type, '" + DEFAULT_BOARD + "')";
+
+    // Held until the rebuild's transaction ends; the key only has to differ from other advisory locks in the database
+    private static final long REBUILD_LOCK_KEY = 0x4e6f74655374L;
+    private static final String TRY_REBUILD_LOCK_SQL = "SELECT pg_try_advisory_xact_lock(?)";
+
+    private final NoteStatsRepository statsRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final ReentrantLock rebuilding = new ReentrantLock();
+
+    // Whether the database is Postgres, so advisory locks exist; looked up on the first rebuild
+    private volatile Boolean postgres;
+
+    public NoteStatsService(NoteStatsRepository statsRepository, JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager) {
+        this.statsRepository = statsRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    // Counts a new note
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void noteAdded(Note note) {
+        apply(note, 1, isPrivate(note) ? 1 : 0, note.isDone() ? 1 : 0);
+    }
+
+    // Uncounts a deleted note, as it was when deleted
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void noteRemoved(Note note) {
+        apply(note, -1, isPrivate(note) ? -1 : 0, note.isDone() ? -1 : 0);
+    }
+
+    // Counts a note whose done flag was just flipped to the given value
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void doneChanged(Note note, boolean done) {
+        apply(note, 0, 0, done ? 1 : -1);
+    }
+
+    /**
+     * Counters of one user, from at most one row per board.
+     */
+    @Transactional(readOnly = true)
+    public UserNoteStats forUser(String username) {
+        long total = 0;
+        long privateCount = 0;
+        long doneCount = 0;
+        Map<String, Long> byBoard = new LinkedHashMap<>();
+        for (NoteStats stats : statsRepository.findByUsername(username)) {
+            total += stats.getNoteCount();
+            privateCount += stats.getPrivateCount();
+            doneCount += stats.getDoneCount();
+            byBoard.put(stats.getBoardType(), stats.getNoteCount());
+        }
+        return new UserNoteStats(total, privateCount, total - privateCount, doneCount, byBoard);
+    }
+
+    /**
+     * Recomputes every counter from the note table in one transaction;
+     * readers keep seeing the old counters until it commits. Skipped while
+     * another rebuild runs.
+     */
+    @Scheduled(cron = "${app.notes.stats.rebuild-cron:0 30 3 * * *}")
+    public void rebuild() {
+        replaceAll(false);
+    }
+
+    // The table starts empty when the feature is first deployed
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        replaceAll(true);
+    }
+
+    private void replaceAll(boolean onlyIfEmpty) {
+        if (!rebuilding.tryLock()) {
+            logger.info("Skipping note counter rebuild: one is already running");
+            return;
+        }
+        try {
+            transaction.executeWithoutResult(status -> {
+                if (!tryRebuildLock()) {
+                    logger.info("Skipping note counter rebuild: another instance is running one");
+                    return;
+                }
+                // Checked under the lock, so a rebuild that just finished elsewhere is not repeated
+                if (onlyIfEmpty && statsRepository.count() > 0) {
+                    return;
+                }
+                long started = System.nanoTime();
+                jdbcTemplate.update(CLEAR_SQL);
+                int rows = jdbcTemplate.update(REBUILD_SQL);
+                logger.info("Rebuilt note counters: {} user boards in {} ms", rows, (System.nanoTime() - started) / 1_000_000);
+            });
+        } finally {
+            rebuilding.unlock();
+        }
+    }
+
+    // Takes the cluster-wide rebuild lock for the current transaction; other databases run a single instance
+    private boolean tryRebuildLock() {
+        if (postgres == null) {
+            postgres = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName()));
+        }
+        return !postgres || Boolean.TRUE.equals(jdbcTemplate.queryForObject(TRY_REBUILD_LOCK_SQL, Boolean.class, REBUILD_LOCK_KEY));
+    }
+
+    private void apply(Note note, int total, int privateDelta, int done) {
+        String boardType = note.getBoardType() != null ? note.getBoardType() : DEFAULT_BOARD;
+        Object[] args = { total, privateDelta, done, note.getUsername(), boardType };
+        if (jdbcTemplate.update(INCREMENT_SQL, args) == 0) {
+            // First note of this user on this board; a concurrent first insert is fine, the update below waits for it
+            jdbcTemplate.update(CREATE_ROW_SQL, note.getUsername(), boardType);
+            jdbcTemplate.update(INCREMENT_SQL, args);
+        }
+    }
+
+    private static boolean isPrivate(Note note) {
+        return Boolean.TRUE.equals(note.getIsPrivate());
+    }
+}
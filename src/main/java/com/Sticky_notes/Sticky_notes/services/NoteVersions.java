@@ -0,0 +1,91 @@
+package com.Sticky_notes.Sticky_notes.services;
+
+import com.Sticky_notes.Sticky_notes.realtime.NoteChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version counters for note feeds. Every feed belongs to a scope: a user's
+ * notes, or a whole board for feeds spanning all users. Each
+ * {@link NoteChangedEvent} bumps the scopes of the changed note, so a feed
+ * whose version is unchanged is known to be unchanged without querying it.
+ * Used by {@link NoteFeedCache} and for ETags on the list endpoints.
+ */
+@Component
+public class NoteVersions {
+    private static final Logger logger = LoggerFactory.getLogger(NoteVersions.class);
+
+    // Counters restart with the process; the epoch keeps old ETags from matching new versions
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    // Bumped when a change cannot be attributed to a user; changes every scope
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<String, AtomicLong> scopeVersions = new ConcurrentHashMap<>();
+
+    // Feeds filtered by user depend only on that user's notes; other feeds depend on the whole board
+    public static String scopeOf(String boardType, String username) {
+        return username != null ? userScope(username) : boardScope(boardType);
+    }
+
+    public static String userScope(String username) {
+        return "user:" + username;
+    }
+
+    public static String boardScope(String boardType) {
+        return "board:" + boardType;
+    }
+
+    /**
+     * Current version of a scope, as an opaque string that changes whenever a
+     * note in the scope changes.
+     */
+    public String stamp(String scope) {
+        AtomicLong version = scopeVersions.get(scope);
+        return generation.get() + "." + (version != null ? version.get() : 0L);
+    }
+
+    /**
+     * Strong ETag for a feed in the given scope.
+     */
+    public String etag(String scope) {
+        return etag(scope, MediaType.APPLICATION_JSON);
+    }
+
+    /**
+     * Strong ETag for a feed in the given scope and format. A strong tag
+     * promises identical bytes, so the CBOR form of a feed is tagged apart
+     * from its JSON form.
+     */
+    public String etag(String scope, MediaType format) {
+        String suffix = MediaType.APPLICATION_CBOR.equalsTypeAndSubtype(format) ? "-cbor" : "";
+        return "\"" + epoch + "-" + stamp(scope) + suffix + "\"";
+    }
+
+    // After commit, so a read racing the write cannot cache the old state again. First, so feeds are
+    // stale before the change is broadcast: an SSE snapshot read after the broadcast must not miss it
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onNoteChanged(NoteChangedEvent event) {
+        if (event.getUsername() == null) {
+            generation.incrementAndGet();
+            logger.debug("Note {} changed with unknown owner, all feed versions bumped", event.getNoteId());
+            return;
+        }
+        bump(userScope(event.getUsername()));
+        bump(boardScope(event.getBoardType()));
+    }
+
+    private void bump(String scope) {
+        scopeVersions.computeIfAbsent(scope, key -> new AtomicLong()).incrementAndGet();
+    }
+}
@@ -0,0 +1,14 @@
+-- Baseline: the note table as the Note entity maps it, so later migrations can index it on a new database.
+-- Existing databases are baselined at this version and skip it; ddl-auto=update still manages the other tables.
+CREATE TABLE IF NOT EXISTS note (
+    id BIGSERIAL PRIMARY KEY,
+    x INT NOT NULL,
+    y INT NOT NULL,
+    text VARCHAR(255) NOT NULL,
+    done BOOLEAN NOT NULL DEFAULT FALSE,
+    username VARCHAR(255) NOT NULL,
+    is_private BOOLEAN NOT NULL DEFAULT FALSE,
+    board_type VARCHAR(255) DEFAULT 'main',
+    version BIGINT NOT NULL DEFAULT 0,
+    change_seq BIGINT
+);
@@ -0,0 +1,3 @@
+-- Partial index for the guest main-board feed (not expressible in JPA, so not created by ddl-auto).
+-- Only public main-board rows are indexed, so the hottest query walks a much smaller tree.
+CREATE INDEX IF NOT EXISTS idx_note_main_public_id ON note (id DESC) WHERE board_type = 'main' AND is_private = FALSE;
@@ -14,13 +14,52 @@ CREATE TABLE IF NOT EXISTS board (
     FOREIGN KEY (user_id) REFERENCES users(id)
 );
 
--- Create note table if not exists
+-- Create note table if not exists (mirrors the Note entity)
 CREATE TABLE IF NOT EXISTS note (
-    id SERIAL PRIMARY KEY,
-    content TEXT,
-    color VARCHAR(50),
-    position_x INT,
-    position_y INT,
-    board_id BIGINT,
-    FOREIGN KEY (board_id) REFERENCES board(id)
-);
\ No newline at end of file
+    id BIGSERIAL PRIMARY KEY,
+    x INT NOT NULL,
+    y INT NOT NULL,
+    text VARCHAR(255) NOT NULL,
+    done BOOLEAN NOT NULL DEFAULT FALSE,
+    username VARCHAR(255) NOT NULL,
+    is_private BOOLEAN NOT NULL DEFAULT FALSE,
+    board_type VARCHAR(255) DEFAULT 'main',
+    version BIGINT NOT NULL DEFAULT 0,
+    change_seq BIGINT
+);
+
+-- Change sequence shared by note writes and tombstones, read by GET /api/notes/changes
+CREATE SEQUENCE IF NOT EXISTS note_change_seq;
+
+-- One row per deleted note so delta sync can report deletions
+CREATE TABLE IF NOT EXISTS note_tombstone (
+    seq BIGINT PRIMARY KEY,
+    note_id BIGINT NOT NULL,
+    username VARCHAR(255),
+    board_type VARCHAR(255),
+    is_private BOOLEAN,
+    deleted_at TIMESTAMP
+);
+
+-- Composite indexes, one per query shape in NoteRepository (also declared on the Note entity)
+CREATE INDEX IF NOT EXISTS idx_note_board_private_id ON note (board_type, is_private, id DESC);
+CREATE INDEX IF NOT EXISTS idx_note_user_private_board_id ON note (username, is_private, board_type, id DESC);
+CREATE INDEX IF NOT EXISTS idx_note_user_board_id ON note (username, board_type, id DESC);
+CREATE INDEX IF NOT EXISTS idx_note_user_board_done ON note (username, board_type, done);
+CREATE INDEX IF NOT EXISTS idx_note_board_change_seq ON note (board_type, change_seq);
+CREATE INDEX IF NOT EXISTS idx_note_user_board_change_seq ON note (username, board_type, change_seq);
+CREATE INDEX IF NOT EXISTS idx_note_tombstone_board_seq ON note_tombstone (board_type, seq);
+CREATE INDEX IF NOT EXISTS idx_note_tombstone_user_board_seq ON note_tombstone (username, board_type, seq);
+
+-- The partial index idx_note_main_public_id is created by Flyway (db/migration/V2__note_public_id_partial_index.sql)
+
+-- Per-user note counters, one row per user and board (NoteStats); rebuilt from note when empty
+CREATE TABLE IF NOT EXISTS note_stats (
+    id BIGSERIAL PRIMARY KEY,
+    username VARCHAR(255) NOT NULL,
+    board_type VARCHAR(255) NOT NULL,
+    note_count BIGINT NOT NULL DEFAULT 0,
+    private_count BIGINT NOT NULL DEFAULT 0,
+    done_count BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT uk_note_stats_user_board UNIQUE (username, board_type)
+);
@@ -0,0 +1,93 @@
+package com.Sticky_notes.Sticky_notes.Config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BoundedDataSourceTest {
+
+    @Mock
+    private DataSource target;
+
+    private BoundedDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        dataSource = new BoundedDataSource(target, 2, 100);
+    }
+
+    @Test
+    void callerBeyondTheLimitTimesOut() throws SQLException {
+        // Arrange
+        dataSource.getConnection();
+        dataSource.getConnection();
+
+        // Act / Assert
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        assertEquals(1, dataSource.getTimeoutCount());
+        verify(target, times(2)).getConnection();
+    }
+
+    @Test
+    void closingAConnectionLetsAWaiterIn() throws Exception {
+        // Arrange: a long timeout so the waiter is still queued when the permit comes back
+        dataSource = new BoundedDataSource(target, 1, 5_000);
+        Connection held = dataSource.getConnection();
+        CompletableFuture<Connection> waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                return dataSource.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (dataSource.getWaitingCount() == 0) {
+            Thread.onSpinWait();
+        }
+
+        // Act
+        held.close();
+
+        // Assert
+        assertNotNull(waiter.get(5, TimeUnit.SECONDS));
+        assertEquals(0, dataSource.getAvailablePermits());
+    }
+
+    @Test
+    void closingTwiceReleasesOnePermit() throws SQLException {
+        // Arrange
+        Connection connection = dataSource.getConnection();
+
+        // Act
+        connection.close();
+        connection.close();
+
+        // Assert
+        assertEquals(2, dataSource.getAvailablePermits());
+        Connection raw = ((ConnectionProxy) connection).getTargetConnection();
+        verify(raw, times(2)).close();
+    }
+
+    @Test
+    void failedCheckoutGivesThePermitBack() throws SQLException {
+        // Arrange
+        when(target.getConnection()).thenThrow(new SQLException("pool is down"));
+
+        // Act / Assert
+        assertThrows(SQLException.class, dataSource::getConnection);
+        assertEquals(2, dataSource.getAvailablePermits());
+    }
+}
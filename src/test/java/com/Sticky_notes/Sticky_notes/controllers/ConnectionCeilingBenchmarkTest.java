@@ -0,0 +1,233 @@
+package com.Sticky_notes.Sticky_notes.controllers;
+
+import com.Sticky_notes.Sticky_notes.Config.BoundedDataSource;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.NestedTestConfiguration;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.context.NestedTestConfiguration.EnclosingConfiguration.OVERRIDE;
+
+/**
+ * Connection ceiling of one instance with platform threads and with virtual
+ * threads. Every client opens a request that blocks on the server, as a slow
+ * JDBC call would; the most requests inside the handler at the same time is
+ * the ceiling. A second round has every request check out a database
+ * connection, to show the bounded pool queues callers instead of failing them.
+ * Run with: mvn test -Pbenchmark -Dfrontend.skip=true
+ */
+@Tag("benchmark")
+class ConnectionCeilingBenchmarkTest {
+
+    private static final int CLIENTS = 1000;
+    private static final int DB_CLIENTS = 300;
+    private static final long DB_HOLD_MS = 20;
+    private static final String HOLD_PATH = "/api/notes/load-test/hold";
+
+    private static final AtomicInteger inFlight = new AtomicInteger();
+    private static final AtomicInteger peakInFlight = new AtomicInteger();
+    private static final AtomicInteger connectionsInUse = new AtomicInteger();
+    private static final AtomicInteger peakConnections = new AtomicInteger();
+    private static final AtomicBoolean ranOnVirtualThread = new AtomicBoolean();
+    private static volatile CountDownLatch release = new CountDownLatch(0);
+
+    /**
+     * Blocks until released, or holds a database connection for a moment.
+     * A test component, so other test contexts do not pick it up by scanning.
+     */
+    @TestComponent
+    @RestController
+    static class HoldEndpoint {
+        private final DataSource dataSource;
+
+        HoldEndpoint(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        @GetMapping(HOLD_PATH)
+        public ResponseEntity<Void> hold(@RequestParam(defaultValue = "false") boolean db) throws Exception {
+            peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            ranOnVirtualThread.set(Thread.currentThread().isVirtual());
+            try {
+                if (db) {
+                    try (Connection connection = dataSource.getConnection()) {
+                        peakConnections.accumulateAndGet(connectionsInUse.incrementAndGet(), Math::max);
+                        Thread.sleep(DB_HOLD_MS);
+                        connectionsInUse.decrementAndGet();
+                    }
+                } else {
+                    release.await(60, TimeUnit.SECONDS);
+                }
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            return ResponseEntity.noContent().build();
+        }
+    }
+
+    abstract static class Round {
+        @LocalServerPort
+        private int port;
+
+        @Autowired
+        private DataSource dataSource;
+
+        private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+
+        abstract boolean virtualThreads();
+
+        @Test
+        void blockingRequestCeiling() throws Exception {
+            // Arrange
+            reset();
+            release = new CountDownLatch(1);
+
+            // Act: open every request, wait until no more get in, then let them all finish
+            List<CompletableFuture<HttpResponse<Void>>> responses = send(CLIENTS, false);
+            int ceiling = awaitCeiling();
+            release.countDown();
+            long completed = completed(responses);
+
+            // Assert
+            System.out.printf("%s threads: %d of %d blocking requests in flight at once%n",
+                mode(), ceiling, CLIENTS);
+            assertEquals(CLIENTS, completed);
+            assertEquals(virtualThreads(), ranOnVirtualThread.get());
+            if (virtualThreads()) {
+                assertEquals(CLIENTS, ceiling);
+            } else {
+                assertTrue(ceiling < CLIENTS, "platform threads should cap concurrent requests");
+            }
+        }
+
+        @Test
+        void databaseBoundRequestsQueueForConnections() throws Exception {
+            // Arrange
+            reset();
+            BoundedDataSource bounded = assertInstanceOf(BoundedDataSource.class, dataSource);
+
+            // Act
+            long start = System.nanoTime();
+            long completed = completed(send(DB_CLIENTS, true));
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+            // Assert: nobody timed out and the pool was never asked for more than it has
+            System.out.printf("%s threads: %d database-bound requests in %d ms, at most %d of %d connections in use%n",
+                mode(), DB_CLIENTS, elapsedMs, peakConnections.get(), bounded.getMaxConnections());
+            assertEquals(DB_CLIENTS, completed);
+            assertTrue(peakConnections.get() <= bounded.getMaxConnections());
+            assertEquals(0, bounded.getTimeoutCount());
+        }
+
+        private String mode() {
+            return virtualThreads() ? "Virtual" : "Platform";
+        }
+
+        private List<CompletableFuture<HttpResponse<Void>>> send(int count, boolean db) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + HOLD_PATH + "?db=" + db))
+                .timeout(Duration.ofSeconds(120))
+                .build();
+            List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+            }
+            return responses;
+        }
+
+        // Waits until every request is in, or the count stopped growing for two seconds
+        private static int awaitCeiling() throws InterruptedException {
+            int last = -1;
+            long stableSince = System.nanoTime();
+            while (inFlight.get() < CLIENTS) {
+                int now = inFlight.get();
+                if (now != last) {
+                    last = now;
+                    stableSince = System.nanoTime();
+                } else if (System.nanoTime() - stableSince > TimeUnit.SECONDS.toNanos(2)) {
+                    break;
+                }
+                Thread.sleep(20);
+            }
+            return peakInFlight.get();
+        }
+
+        private static long completed(List<CompletableFuture<HttpResponse<Void>>> responses) {
+            return responses.stream()
+                .map(CompletableFuture::join)
+                .filter(response -> response.statusCode() == 204)
+                .count();
+        }
+
+        private static void reset() {
+            inFlight.set(0);
+            peakInFlight.set(0);
+            connectionsInUse.set(0);
+            peakConnections.set(0);
+            ranOnVirtualThread.set(false);
+        }
+    }
+
+    @Nested
+    @NestedTestConfiguration(OVERRIDE)
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=false",
+        "logging.level.org.springframework=INFO",
+        "logging.level.org.hibernate=INFO",
+        "logging.level.com.Sticky_notes=INFO"
+    })
+    @ActiveProfiles("test")
+    @Import(HoldEndpoint.class)
+    class PlatformThreads extends Round {
+        @Override
+        boolean virtualThreads() {
+            return false;
+        }
+    }
+
+    @Nested
+    @NestedTestConfiguration(OVERRIDE)
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=true",
+        "app.sse.virtual-threads=true",
+        "logging.level.org.springframework=INFO",
+        "logging.level.org.hibernate=INFO",
+        "logging.level.com.Sticky_notes=INFO"
+    })
+    @ActiveProfiles("test")
+    @Import(HoldEndpoint.class)
+    class VirtualThreads extends Round {
+        @Override
+        boolean virtualThreads() {
+            return true;
+        }
+    }
+}
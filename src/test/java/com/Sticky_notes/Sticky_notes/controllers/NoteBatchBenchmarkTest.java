@@ -0,0 +1,120 @@
+package com.Sticky_notes.Sticky_notes.controllers;
+
+import com.Sticky_notes.Sticky_notes.repository.NoteRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Creates, marks done and deletes the same number of notes through the
+ * single-note endpoints and through /api/notes/batch, and prints both timings.
+ * Run with: mvn test -Pbenchmark -Dfrontend.skip=true
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "logging.level.com.Sticky_notes=INFO")
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@WithMockUser(username = "benchuser")
+class NoteBatchBenchmarkTest {
+
+    private static final int NOTES = 500;
+    private static final int ROUNDS = 3;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    void clean() {
+        noteRepository.deleteAll();
+    }
+
+    private String noteJson(int i) {
+        return "{\"x\":" + i + ",\"y\":" + i + ",\"text\":\"bench " + i + "\",\"username\":\"benchuser\"}";
+    }
+
+    private long singleCalls() throws Exception {
+        long start = System.nanoTime();
+        List<Long> ids = new ArrayList<>(NOTES);
+        for (int i = 0; i < NOTES; i++) {
+            String body = mockMvc.perform(post("/api/notes").contentType(APPLICATION_JSON).content(noteJson(i)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+            ids.add(objectMapper.readTree(body).get("id").asLong());
+        }
+        for (Long id : ids) {
+            mockMvc.perform(put("/api/notes/" + id + "/done")).andExpect(status().isOk());
+        }
+        for (Long id : ids) {
+            mockMvc.perform(delete("/api/notes/" + id)).andExpect(status().isNoContent());
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long batchCalls() throws Exception {
+        long start = System.nanoTime();
+        StringBuilder creates = new StringBuilder("{\"create\":[");
+        for (int i = 0; i < NOTES; i++) {
+            creates.append(i > 0 ? "," : "").append(noteJson(i));
+        }
+        String body = mockMvc.perform(post("/api/notes/batch").contentType(APPLICATION_JSON).content(creates.append("]}").toString()))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+
+        List<Long> ids = new ArrayList<>(NOTES);
+        for (JsonNode created : objectMapper.readTree(body).get("created")) {
+            ids.add(created.get("id").asLong());
+        }
+        StringBuilder updates = new StringBuilder("{\"update\":[");
+        for (int i = 0; i < ids.size(); i++) {
+            updates.append(i > 0 ? "," : "").append("{\"id\":").append(ids.get(i)).append(",\"done\":true}");
+        }
+        mockMvc.perform(post("/api/notes/batch").contentType(APPLICATION_JSON).content(updates.append("]}").toString()))
+            .andExpect(status().isOk());
+        mockMvc.perform(post("/api/notes/batch").contentType(APPLICATION_JSON).content("{\"delete\":" + ids + "}"))
+            .andExpect(status().isOk());
+        return System.nanoTime() - start;
+    }
+
+    @Test
+    void batchEndpointVersusSingleNoteCalls() throws Exception {
+        // Warm up both paths once
+        singleCalls();
+        batchCalls();
+
+        long single = Long.MAX_VALUE;
+        long batch = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            single = Math.min(single, singleCalls());
+            batch = Math.min(batch, batchCalls());
+        }
+
+        System.out.printf("%d notes created, marked done and deleted: single calls %d ms, batch %d ms (%.1fx)%n",
+            NOTES, single / 1_000_000, batch / 1_000_000, (double) single / batch);
+        assertEquals(0, noteRepository.count());
+        assertTrue(batch < single, "Batch endpoint should beat single-note calls");
+    }
+}
@@ -0,0 +1,144 @@
+package com.Sticky_notes.Sticky_notes.controllers;
+
+import com.Sticky_notes.Sticky_notes.models.Note;
+import com.Sticky_notes.Sticky_notes.payload.response.NoteView;
+import com.Sticky_notes.Sticky_notes.repository.NoteRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Round trips through the CBOR encoding: what a CBOR client reads and writes
+ * must decode to exactly what a JSON client sees.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@WithMockUser(username = "cboruser")
+class NoteCborTest {
+
+    private final CBORMapper cborMapper = new CBORMapper();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Seeded through the API so cached feeds see the writes
+    @BeforeEach
+    void seed() throws Exception {
+        clean();
+        for (int i = 0; i < 5; i++) {
+            Note note = new Note();
+            note.setX(i * 10);
+            note.setY(-i);
+            note.setText("note ünïcödé " + i);
+            note.setDone(i % 2 == 0);
+            note.setUsername("cboruser");
+            mockMvc.perform(post("/api/notes").contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(note)))
+                .andExpect(status().isCreated());
+        }
+    }
+
+    @AfterEach
+    void clean() throws Exception {
+        for (Note note : noteRepository.findAll()) {
+            mockMvc.perform(delete("/api/notes/" + note.getId())).andExpect(status().isNoContent());
+        }
+    }
+
+    private List<NoteView> jsonList(String url) throws Exception {
+        String body = mockMvc.perform(get(url).accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        return Arrays.asList(objectMapper.readValue(body, NoteView[].class));
+    }
+
+    @Test
+    void cborListDecodesToTheJsonList() throws Exception {
+        // Act
+        byte[] body = mockMvc.perform(get("/api/notes").accept(MediaType.APPLICATION_CBOR))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+            .andReturn().getResponse().getContentAsByteArray();
+
+        // Assert
+        assertEquals(jsonList("/api/notes"), Arrays.asList(cborMapper.readValue(body, NoteView[].class)));
+    }
+
+    @Test
+    void streamedCborListDecodesToTheJsonList() throws Exception {
+        // Act
+        MvcResult started = mockMvc.perform(get("/api/notes?stream=true").accept(MediaType.APPLICATION_CBOR))
+            .andReturn();
+        byte[] body = mockMvc.perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+            .andReturn().getResponse().getContentAsByteArray();
+
+        // Assert
+        assertEquals(jsonList("/api/notes"), Arrays.asList(cborMapper.readValue(body, NoteView[].class)));
+    }
+
+    @Test
+    void jsonStaysTheDefault() throws Exception {
+        mockMvc.perform(get("/api/notes").header(HttpHeaders.ACCEPT, "*/*"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        mockMvc.perform(get("/api/notes"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void noteCreatedFromCborComesBackInCbor() throws Exception {
+        // Arrange
+        Note note = new Note();
+        note.setX(3);
+        note.setY(4);
+        note.setText("sent as cbor");
+        note.setUsername("cboruser");
+
+        // Act
+        byte[] body = mockMvc.perform(post("/api/notes")
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(MediaType.APPLICATION_CBOR)
+                .content(cborMapper.writeValueAsBytes(note)))
+            .andExpect(status().isCreated())
+            .andReturn().getResponse().getContentAsByteArray();
+
+        // Assert
+        Note created = cborMapper.readValue(body, Note.class);
+        assertNotNull(created.getId());
+        assertEquals("sent as cbor", created.getText());
+        assertEquals(3, created.getX());
+        assertEquals("main", created.getBoardType());
+    }
+}
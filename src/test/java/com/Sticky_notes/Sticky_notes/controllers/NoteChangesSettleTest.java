@@ -0,0 +1,121 @@
+package com.Sticky_notes.Sticky_notes.controllers;
+
+import com.Sticky_notes.Sticky_notes.repository.NoteRepository;
+import com.Sticky_notes.Sticky_notes.repository.NoteTombstoneRepository;
+import com.Sticky_notes.Sticky_notes.services.NoteChangeLog;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@WithMockUser(username = "syncuser")
+// Samples are taken by the test, not the scheduler
+@TestPropertySource(properties = { "app.notes.changes.settle-ms=200", "app.notes.changes.sample-interval-ms=3600000" })
+class NoteChangesSettleTest {
+    private static final long SETTLE_MS = 200;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private NoteTombstoneRepository tombstoneRepository;
+
+    @Autowired
+    private NoteChangeLog changeLog;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    @AfterEach
+    void clean() {
+        noteRepository.deleteAll();
+        tombstoneRepository.deleteAll();
+    }
+
+    private long create(String text) throws Exception {
+        String body = mockMvc.perform(post("/api/notes").contentType(APPLICATION_JSON)
+                .content("{\"x\":1,\"y\":1,\"text\":\"" + text + "\",\"username\":\"syncuser\"}"))
+            .andExpect(status().isCreated())
+            .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("id").asLong();
+    }
+
+    private JsonNode changes(long since) throws Exception {
+        String body = mockMvc.perform(get("/api/notes/changes?since=" + since))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private List<Long> upsertIds(JsonNode response) {
+        List<Long> ids = new ArrayList<>();
+        response.get("upserts").forEach(node -> ids.add(node.get("id").asLong()));
+        return ids;
+    }
+
+    @Test
+    void writeCommittingBelowAReturnedChangeIsNotSkipped() throws Exception {
+        // Arrange: a settled sample, then a write takes a number but has not committed yet
+        changeLog.sampleChangeSeq();
+        Thread.sleep(SETTLE_MS + 50);
+        long inFlightSeq = jdbcTemplate.queryForObject("SELECT nextval('note_change_seq')", Long.class);
+        long committed = create("committed");
+
+        // Act: a client syncs before the in-flight write commits
+        JsonNode first = changes(0);
+        long late = create("late");
+        jdbcTemplate.update("UPDATE note SET change_seq = ? WHERE id = ?", inFlightSeq, late);
+        JsonNode second = changes(first.get("seq").asLong());
+
+        // Assert: the first seq stayed below the in-flight number, so the late write is picked up
+        assertEquals(List.of(committed), upsertIds(first));
+        assertTrue(first.get("seq").asLong() < inFlightSeq);
+        assertFalse(first.get("hasMore").asBoolean());
+        assertEquals(List.of(late, committed), upsertIds(second));
+    }
+
+    @Test
+    void seqAdvancesOnceChangesHaveSettled() throws Exception {
+        // Arrange
+        long note = create("note");
+        long noteSeq = noteRepository.findById(note).orElseThrow().getChangeSeq();
+        changeLog.sampleChangeSeq();
+        Thread.sleep(SETTLE_MS + 50);
+
+        // Act
+        JsonNode response = changes(0);
+
+        // Assert
+        assertEquals(List.of(note), upsertIds(response));
+        assertEquals(noteSeq, response.get("seq").asLong());
+        assertEquals(0, changes(noteSeq).get("upserts").size());
+    }
+}
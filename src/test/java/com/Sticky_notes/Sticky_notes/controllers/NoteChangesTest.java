@@ -0,0 +1,214 @@
+package com.Sticky_notes.Sticky_notes.controllers;
+
+import com.Sticky_notes.Sticky_notes.repository.NoteRepository;
+import com.Sticky_notes.Sticky_notes.repository.NoteChangeHorizonRepository;
+import com.Sticky_notes.Sticky_notes.repository.NoteTombstoneRepository;
+import com.Sticky_notes.Sticky_notes.services.NoteChangeLog;
+import com.Sticky_notes.Sticky_notes.services.NotePositionBuffer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@WithMockUser(username = "syncuser")
+class NoteChangesTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private NoteTombstoneRepository tombstoneRepository;
+
+    @Autowired
+    private NotePositionBuffer positionBuffer;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private NoteChangeLog changeLog;
+
+    @Autowired
+    private NoteChangeHorizonRepository horizonRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    @AfterEach
+    void clean() {
+        positionBuffer.flush();
+        noteRepository.deleteAll();
+        tombstoneRepository.deleteAll();
+        horizonRepository.deleteAll();
+    }
+
+    private long create(String text, boolean isPrivate) throws Exception {
+        String body = mockMvc.perform(post("/api/notes").contentType(APPLICATION_JSON)
+                .content("{\"x\":1,\"y\":1,\"text\":\"" + text + "\",\"username\":\"syncuser\",\"isPrivate\":" + isPrivate + "}"))
+            .andExpect(status().isCreated())
+            .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("id").asLong();
+    }
+
+    private JsonNode changes(String query) throws Exception {
+        String body = mockMvc.perform(get("/api/notes/changes?" + query))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private List<Long> ids(JsonNode array, String field) {
+        List<Long> ids = new ArrayList<>();
+        array.forEach(node -> ids.add(field != null ? node.get(field).asLong() : node.asLong()));
+        return ids;
+    }
+
+    @Test
+    void onlyChangesAfterSinceAreReturned() throws Exception {
+        // Arrange: a client synced after three creates
+        long first = create("first", false);
+        long second = create("second", false);
+        long third = create("third", false);
+        JsonNode full = changes("since=0");
+        assertEquals(List.of(first, second, third), ids(full.get("upserts"), "id"));
+        long since = full.get("seq").asLong();
+
+        // Act: one move (written behind), one done, one delete
+        mockMvc.perform(put("/api/notes/" + first).contentType(APPLICATION_JSON).content("{\"x\":50,\"y\":60}"))
+            .andExpect(status().isOk());
+        positionBuffer.flush();
+        mockMvc.perform(put("/api/notes/" + second + "/done")).andExpect(status().isOk());
+        mockMvc.perform(delete("/api/notes/" + third)).andExpect(status().isNoContent());
+        JsonNode delta = changes("since=" + since);
+
+        // Assert
+        assertEquals(List.of(first, second), ids(delta.get("upserts"), "id"));
+        assertEquals(50, delta.get("upserts").get(0).get("x").asInt());
+        assertTrue(delta.get("upserts").get(1).get("done").asBoolean());
+        assertEquals(List.of(third), ids(delta.get("deleted"), null));
+        assertFalse(delta.get("hasMore").asBoolean());
+        assertTrue(delta.get("seq").asLong() > since);
+
+        // Nothing new: same seq, empty lists
+        JsonNode idle = changes("since=" + delta.get("seq").asLong());
+        assertEquals(0, idle.get("upserts").size());
+        assertEquals(0, idle.get("deleted").size());
+        assertEquals(delta.get("seq").asLong(), idle.get("seq").asLong());
+    }
+
+    @Test
+    void batchWritesAreTracked() throws Exception {
+        // Arrange
+        long kept = create("kept", false);
+        long dropped = create("dropped", false);
+        long since = changes("since=0").get("seq").asLong();
+
+        // Act
+        mockMvc.perform(post("/api/notes/batch").contentType(APPLICATION_JSON)
+                .content("{\"create\":[{\"x\":1,\"y\":1,\"text\":\"new\",\"username\":\"syncuser\"}],"
+                    + "\"update\":[{\"id\":" + kept + ",\"done\":true}],\"delete\":[" + dropped + "]}"))
+            .andExpect(status().isOk());
+        JsonNode delta = changes("since=" + since);
+
+        // Assert
+        assertEquals(2, delta.get("upserts").size());
+        assertTrue(ids(delta.get("upserts"), "id").contains(kept));
+        assertFalse(ids(delta.get("upserts"), "id").contains(dropped));
+        assertEquals(List.of(dropped), ids(delta.get("deleted"), null));
+    }
+
+    @Test
+    void limitPagesThroughChangesInOrder() throws Exception {
+        // Arrange
+        List<Long> created = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            created.add(create("n" + i, false));
+        }
+
+        // Act
+        List<Long> seen = new ArrayList<>();
+        long since = 0;
+        JsonNode page;
+        do {
+            page = changes("since=" + since + "&limit=2");
+            seen.addAll(ids(page.get("upserts"), "id"));
+            since = page.get("seq").asLong();
+        } while (page.get("hasMore").asBoolean());
+
+        // Assert
+        assertEquals(created, seen);
+    }
+
+    @Test
+    @WithMockUser(username = "someoneelse")
+    void otherUsersPrivateNotesAreNotSynced() throws Exception {
+        // Arrange
+        create("public", false);
+        long hidden = create("private", true);
+        mockMvc.perform(delete("/api/notes/" + hidden)).andExpect(status().isNoContent());
+
+        // Act
+        JsonNode full = changes("since=0");
+
+        // Assert
+        assertEquals(1, full.get("upserts").size());
+        assertEquals("public", full.get("upserts").get(0).get("text").asText());
+        assertEquals(0, full.get("deleted").size());
+    }
+
+    @Test
+    void sinceBeforePrunedTombstonesNeedsAFullResync() throws Exception {
+        // Arrange: a client synced, then two notes were deleted long ago and one recently
+        create("kept", false);
+        long stale = changes("since=0").get("seq").asLong();
+        long old = create("old", false);
+        long older = create("older", false);
+        mockMvc.perform(delete("/api/notes/" + old)).andExpect(status().isNoContent());
+        mockMvc.perform(delete("/api/notes/" + older)).andExpect(status().isNoContent());
+        jdbcTemplate.update("UPDATE note_tombstone SET deleted_at = deleted_at - INTERVAL '60' DAY");
+        long recent = changes("since=0").get("seq").asLong();
+        long fresh = create("fresh", false);
+        mockMvc.perform(delete("/api/notes/" + fresh)).andExpect(status().isNoContent());
+
+        // Act
+        changeLog.pruneTombstones();
+
+        // Assert
+        assertEquals(1, tombstoneRepository.count());
+        mockMvc.perform(get("/api/notes/changes?since=" + stale)).andExpect(status().isGone());
+        assertEquals(List.of(fresh), ids(changes("since=" + recent).get("deleted"), null));
+        assertEquals(1, changes("since=0").get("upserts").size());
+    }
+
+    @Test
+    void profileBoardNeedsAUsername() throws Exception {
+        mockMvc.perform(get("/api/notes/changes?since=0&board=profile")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/notes/changes?since=-1")).andExpect(status().isBadRequest());
+    }
+}
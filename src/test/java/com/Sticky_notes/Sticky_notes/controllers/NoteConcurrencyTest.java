@@ -0,0 +1,169 @@
+package com.Sticky_notes.Sticky_notes.controllers;
+
+import com.Sticky_notes.Sticky_notes.models.Note;
+import com.Sticky_notes.Sticky_notes.models.NoteManagment;
+import com.Sticky_notes.Sticky_notes.repository.NoteManagmentRepository;
+import com.Sticky_notes.Sticky_notes.repository.NoteRepository;
+import com.Sticky_notes.Sticky_notes.repository.NoteTombstoneRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * Many writers doing read-modify-write on one note, each step conditional on
+ * the version it read. Every write moves the note one step right of where the
+ * writer saw it, so a silently lost update would leave x short of the number
+ * of acknowledged writes.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class NoteConcurrencyTest {
+
+    private static final int WRITERS = 8;
+    private static final int WRITES_PER_WRITER = 20;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private NoteTombstoneRepository tombstoneRepository;
+
+    @Autowired
+    private NoteManagmentRepository noteManagmentRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // What a writer last saw of the note
+    private record Seen(int x, String etag) {
+    }
+
+    @BeforeEach
+    @AfterEach
+    void clean() {
+        noteRepository.deleteAll();
+        tombstoneRepository.deleteAll();
+        noteManagmentRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentConditionalMovesLoseNoUpdate() throws Exception {
+        // Arrange
+        MockHttpServletResponse created = mockMvc.perform(post("/api/notes").contentType(APPLICATION_JSON)
+                .content("{\"x\":0,\"y\":0,\"text\":\"contended\",\"username\":\"writer\"}"))
+            .andReturn().getResponse();
+        long id = objectMapper.readTree(created.getContentAsString()).get("id").asLong();
+        Seen initial = new Seen(0, created.getHeader("ETag"));
+
+        // Act
+        int conflicts = runWriters(initial, (seen, x) -> put("/api/notes/" + id)
+            .contentType(APPLICATION_JSON)
+            .header("If-Match", seen.etag())
+            .content("{\"x\":" + x + ",\"y\":0}"));
+
+        // Assert
+        Note stored = noteRepository.findById(id).orElseThrow();
+        assertEquals(WRITERS * WRITES_PER_WRITER, stored.getX());
+        assertEquals(WRITERS * WRITES_PER_WRITER, stored.getVersion());
+        assertTrue(conflicts > 0, "writers never collided, the test proves nothing");
+    }
+
+    @Test
+    void concurrentConditionalManagedNoteMovesLoseNoUpdate() throws Exception {
+        // Arrange
+        NoteManagment note = new NoteManagment();
+        note.setTitle("contended");
+        note.setUsername("writer");
+        note.setX(0);
+        long id = noteManagmentRepository.save(note).getId();
+        MockHttpServletResponse read = mockMvc.perform(get("/api/note-management/" + id).with(user("writer")))
+            .andReturn().getResponse();
+        Seen initial = new Seen(0, read.getHeader("ETag"));
+
+        // Act
+        int conflicts = runWriters(initial, (seen, x) -> patch("/api/note-management/" + id + "/position")
+            .with(user("writer"))
+            .header("If-Match", seen.etag())
+            .param("x", String.valueOf(x))
+            .param("y", "0"));
+
+        // Assert
+        NoteManagment stored = noteManagmentRepository.findById(id).orElseThrow();
+        assertEquals(WRITERS * WRITES_PER_WRITER, stored.getX());
+        assertEquals(WRITERS * WRITES_PER_WRITER, stored.getVersion());
+        assertTrue(conflicts > 0, "writers never collided, the test proves nothing");
+    }
+
+    /**
+     * Starts the writers together; each retries on 409 from the state in the
+     * conflict response until it has had WRITES_PER_WRITER writes accepted.
+     * @return Number of 409 responses seen
+     */
+    private int runWriters(Seen initial, BiFunction<Seen, Integer, RequestBuilder> moveTo) throws Exception {
+        AtomicInteger conflicts = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                writers.add(pool.submit(() -> {
+                    start.await();
+                    Seen seen = initial;
+                    int accepted = 0;
+                    while (accepted < WRITES_PER_WRITER) {
+                        MockHttpServletResponse response = mockMvc.perform(moveTo.apply(seen, seen.x() + 1))
+                            .andReturn().getResponse();
+                        JsonNode body = objectMapper.readTree(response.getContentAsString());
+                        if (response.getStatus() == 200) {
+                            accepted++;
+                        } else if (response.getStatus() == 409) {
+                            conflicts.incrementAndGet();
+                        } else {
+                            fail("Unexpected status " + response.getStatus());
+                        }
+                        seen = new Seen(body.get("x").asInt(), response.getHeader("ETag"));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return conflicts.get();
+    }
+}
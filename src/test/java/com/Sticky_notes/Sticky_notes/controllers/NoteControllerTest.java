@@ -0,0 +1,306 @@
+package com.Sticky_notes.Sticky_notes.controllers;
+
+import com.Sticky_notes.Sticky_notes.models.Note;
+import com.Sticky_notes.Sticky_notes.payload.request.NoteBatchRequest;
+import com.Sticky_notes.Sticky_notes.payload.response.NotePageResponse;
+import com.Sticky_notes.Sticky_notes.payload.response.NoteView;
+import com.Sticky_notes.Sticky_notes.realtime.NoteBroadcastHub;
+import com.Sticky_notes.Sticky_notes.repository.NoteRepository;
+import com.Sticky_notes.Sticky_notes.services.NoteBatchService;
+import com.Sticky_notes.Sticky_notes.services.NoteChangeLog;
+import com.Sticky_notes.Sticky_notes.services.NoteFeedCache;
+import com.Sticky_notes.Sticky_notes.services.NoteJsonStreamer;
+import com.Sticky_notes.Sticky_notes.services.NotePositionBuffer;
+import com.Sticky_notes.Sticky_notes.services.NoteService;
+import com.Sticky_notes.Sticky_notes.services.NoteSearchIndex;
+import com.Sticky_notes.Sticky_notes.services.NoteSpatialIndex;
+import com.Sticky_notes.Sticky_notes.services.NoteVersions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class NoteControllerTest {
+
+    @Mock
+    private NoteRepository noteRepository;
+
+    @Mock
+    private NoteBroadcastHub broadcastHub;
+
+    @Mock
+    private NotePositionBuffer positionBuffer;
+
+    @Mock
+    private NoteBatchService noteBatchService;
+
+    @Mock
+    private NoteFeedCache feedCache;
+
+    @Mock
+    private NoteSearchIndex searchIndex;
+
+    @Mock
+    private NoteSpatialIndex spatialIndex;
+
+    @Mock
+    private NoteVersions versions;
+
+    @Mock
+    private NoteJsonStreamer jsonStreamer;
+
+    @Mock
+    private NoteChangeLog changeLog;
+
+    @Mock
+    private NoteService noteService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private NoteController noteController;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        // No drags pending: overlay is the identity
+        when(positionBuffer.overlay(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(positionBuffer.overlayViews(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    // A plain GET without conditional headers
+    private ServletWebRequest webRequest() {
+        return new ServletWebRequest(new MockHttpServletRequest("GET", "/api/notes"), new MockHttpServletResponse());
+    }
+
+    private Note note(long id) {
+        Note note = new Note();
+        note.setId(id);
+        note.setX(10);
+        note.setY(20);
+        note.setText("note " + id);
+        note.setUsername("testuser");
+        return note;
+    }
+
+    private NoteView view(long id) {
+        return NoteView.of(note(id));
+    }
+
+    @Test
+    void firstPageReturnsCursorWhenMoreRowsExist() {
+        // Arrange: page size 2, repository returns the extra probe row
+        when(noteRepository.findViewsByIsPrivateFalseAndBoardTypeAndIdLessThanOrderByIdDesc("main", Long.MAX_VALUE, Limit.of(3)))
+            .thenReturn(List.of(view(9), view(7), view(4)));
+
+        // Act
+        ResponseEntity<?> response = noteController.getAllnotes(null, null, 2, webRequest());
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        NotePageResponse<?> page = (NotePageResponse<?>) response.getBody();
+        assertNotNull(page);
+        assertEquals(2, page.getItems().size());
+        assertEquals(7L, NotePageResponse.decodeCursor(page.getNextCursor()));
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        // Arrange
+        String after = NotePageResponse.encodeCursor(7L);
+        when(noteRepository.findViewsByUsernameAndBoardTypeAndIdLessThanOrderByIdDesc("testuser", "profile", 7L, Limit.of(3)))
+            .thenReturn(List.of(view(4)));
+
+        // Act
+        ResponseEntity<?> response = noteController.getnotesByUsername("testuser", after, 2, webRequest());
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        NotePageResponse<?> page = (NotePageResponse<?>) response.getBody();
+        assertNotNull(page);
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        // Act
+        ResponseEntity<?> response = noteController.getUserProfilenotes("testuser", true, "not-a-cursor", null, webRequest());
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(noteRepository, never())
+            .findViewsByUsernameAndIsPrivateTrueAndBoardTypeAndIdLessThanOrderByIdDesc(anyString(), anyString(), anyLong(), any(Limit.class));
+    }
+
+    @Test
+    void deleteIsBroadcastByTheChangeLogNotTheController() {
+        // Arrange: a private profile note
+        Note note = note(5);
+        note.setBoardType("profile");
+        note.setIsPrivate(true);
+        when(noteRepository.findById(5L)).thenReturn(Optional.of(note));
+
+        // Act
+        ResponseEntity<?> response = noteController.deletenote(5L);
+
+        // Assert
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+        verify(changeLog).delete(note);
+        // Broadcast after commit by NoteBroadcaster, never on the request thread
+        verifyNoInteractions(broadcastHub);
+    }
+
+    @Test
+    void batchWithMissingNoteIsRejectedWithoutBroadcast() {
+        // Arrange
+        NoteBatchRequest request = new NoteBatchRequest();
+        request.setDelete(List.of(42L));
+        when(noteBatchService.apply(any(NoteBatchRequest.class))).thenThrow(new NoSuchElementException("Notes not found: [42]"));
+
+        // Act
+        ResponseEntity<?> response = noteController.applyBatch(request);
+
+        // Assert
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        verifyNoInteractions(broadcastHub);
+    }
+
+    @Test
+    void emptyBatchIsRejected() {
+        // Act
+        ResponseEntity<?> response = noteController.applyBatch(new NoteBatchRequest());
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(noteBatchService);
+    }
+
+    @Test
+    void minimalMoveIsASingleUpdate() {
+        // Arrange
+        Note position = new Note();
+        position.setX(5);
+        position.setY(6);
+        when(noteRepository.updatePosition(3L, 5, 6)).thenReturn(1);
+
+        // Act
+        ResponseEntity<Note> response = noteController.updatenotePosition(3L, position, "return=minimal", null);
+
+        // Assert
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+        verify(noteRepository).updatePosition(3L, 5, 6);
+        verifyNoMoreInteractions(noteRepository);
+    }
+
+    @Test
+    void moveOfMissingNoteIsNotFoundFromRowCount() {
+        // Arrange
+        Note position = new Note();
+        position.setX(5);
+        position.setY(6);
+        when(noteRepository.updatePosition(anyLong(), anyInt(), anyInt())).thenReturn(0);
+
+        // Act
+        ResponseEntity<Note> response = noteController.updatenotePosition(3L, position, null, null);
+
+        // Assert
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        verify(noteRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void staleIfMatchMoveIsAConflictWithTheCurrentNote() {
+        // Arrange
+        Note position = new Note();
+        position.setX(5);
+        position.setY(6);
+        Note current = note(3);
+        current.setVersion(7L);
+        when(noteRepository.updatePositionIfVersion(3L, 5, 6, 6L)).thenReturn(0);
+        when(noteRepository.findById(3L)).thenReturn(Optional.of(current));
+        when(positionBuffer.overlay(any(Note.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        ResponseEntity<Note> response = noteController.updatenotePosition(3L, position, null, "\"6\"");
+
+        // Assert
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals("\"7\"", response.getHeaders().getETag());
+        assertSame(current, response.getBody());
+        verify(positionBuffer).flush(3L);
+        verify(positionBuffer, never()).stage(anyLong(), anyInt(), anyInt());
+        verify(noteRepository, never()).updatePosition(anyLong(), anyInt(), anyInt());
+    }
+
+    @Test
+    void malformedIfMatchIsABadRequest() {
+        // Arrange
+        Note position = new Note();
+        position.setX(5);
+        position.setY(6);
+
+        // Act
+        ResponseEntity<Note> response = noteController.updatenotePosition(3L, position, null, "\"abc\"");
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(noteRepository);
+    }
+
+    @Test
+    void markAsDoneWritesOnlyTheDoneFlag() {
+        // Arrange
+        Note done = note(4);
+        done.setDone(true);
+        when(noteService.markDone(4L, null)).thenReturn(Optional.of(done));
+        when(positionBuffer.overlay(any(Note.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        ResponseEntity<Note> response = noteController.markAsDone(4L, null);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody().isDone());
+        verify(noteRepository, never()).save(any(Note.class));
+        verifyNoInteractions(broadcastHub);
+    }
+
+    @Test
+    void searchNeverReturnsAnotherUsersPrivateNote() {
+        // Arrange: the index is stale and still lists a note that has become private
+        Note leaked = note(8);
+        leaked.setUsername("alice");
+        leaked.setIsPrivate(true);
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.search("note", null, null, null, 0, 51)).thenReturn(List.of(8L));
+        when(noteRepository.findAllById(List.of(8L))).thenReturn(List.of(leaked));
+
+        // Act
+        ResponseEntity<?> response = noteController.searchNotes("note", null, null, null, null, null);
+
+        // Assert
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+    }
+}
@@ -0,0 +1,144 @@
+package com.Sticky_notes.Sticky_notes.controllers;
+
+import com.Sticky_notes.Sticky_notes.repository.NoteRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.http.MediaType.APPLICATION_CBOR;
+import static org.springframework.http.MediaType.APPLICATION_CBOR_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@WithMockUser(username = "etaguser")
+class NoteEtagTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoSpyBean
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    void clean() {
+        noteRepository.deleteAll();
+    }
+
+    private String etagOf(String url) throws Exception {
+        return mockMvc.perform(get(url))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    @Test
+    void unchangedBoardIsAnswered304WithoutQuerying() throws Exception {
+        // Arrange
+        mockMvc.perform(post("/api/notes").contentType(APPLICATION_JSON)
+                .content("{\"x\":1,\"y\":1,\"text\":\"etag\",\"username\":\"etaguser\",\"boardType\":\"profile\"}"))
+            .andExpect(status().isCreated());
+        String etag = etagOf("/api/notes/user/etaguser");
+        assertNotNull(etag);
+        clearInvocations(noteRepository);
+
+        // Act / Assert
+        mockMvc.perform(get("/api/notes/user/etaguser").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, etag));
+        verifyNoInteractions(noteRepository);
+    }
+
+    @Test
+    void jsonEtagDoesNotMatchTheCborForm() throws Exception {
+        // Arrange
+        mockMvc.perform(post("/api/notes").contentType(APPLICATION_JSON)
+                .content("{\"x\":1,\"y\":1,\"text\":\"etag\",\"username\":\"etaguser\"}"))
+            .andExpect(status().isCreated());
+        String jsonEtag = etagOf("/api/notes");
+
+        // Act
+        MockHttpServletResponse cbor = mockMvc.perform(get("/api/notes")
+                .accept(APPLICATION_CBOR)
+                .header(HttpHeaders.IF_NONE_MATCH, jsonEtag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT)))
+            .andReturn().getResponse();
+
+        // Assert: the CBOR tag revalidates only the CBOR form
+        String cborEtag = cbor.getHeader(HttpHeaders.ETAG);
+        assertNotEquals(jsonEtag, cborEtag);
+        assertEquals(APPLICATION_CBOR_VALUE, cbor.getContentType());
+        mockMvc.perform(get("/api/notes").accept(APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, cborEtag))
+            .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/notes").header(HttpHeaders.IF_NONE_MATCH, cborEtag))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void writeToTheBoardChangesTheEtag() throws Exception {
+        // Arrange
+        String mainEtag = etagOf("/api/notes");
+        String profileEtag = etagOf("/api/notes/user/etaguser");
+
+        // Act: a new main-board note
+        mockMvc.perform(post("/api/notes").contentType(APPLICATION_JSON)
+                .content("{\"x\":1,\"y\":1,\"text\":\"etag\",\"username\":\"someoneelse\"}"))
+            .andExpect(status().isCreated());
+
+        // Assert: the main feed changed, another user's board did not
+        mockMvc.perform(get("/api/notes").header(HttpHeaders.IF_NONE_MATCH, mainEtag))
+            .andExpect(status().isOk());
+        mockMvc.perform(get("/api/notes/user/etaguser").header(HttpHeaders.IF_NONE_MATCH, profileEtag))
+            .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void versionReturnedAfterABufferedMoveMatchesOnTheNextConditionalWrite() throws Exception {
+        // Arrange
+        MockHttpServletResponse created = mockMvc.perform(post("/api/notes").contentType(APPLICATION_JSON)
+                .content("{\"x\":1,\"y\":1,\"text\":\"etag\",\"username\":\"etaguser\"}"))
+            .andExpect(status().isCreated())
+            .andReturn().getResponse();
+        long id = objectMapper.readTree(created.getContentAsString()).get("id").asLong();
+
+        // Act: a buffered drag step, then a done update, whose ETag the client keeps
+        MockHttpServletResponse moved = mockMvc.perform(put("/api/notes/" + id).contentType(APPLICATION_JSON)
+                .content("{\"x\":5,\"y\":5}"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse();
+        String etag = mockMvc.perform(put("/api/notes/" + id + "/done"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Assert: the buffered response promises no version, and the kept ETag is not stale
+        JsonNode movedBody = objectMapper.readTree(moved.getContentAsString());
+        assertFalse(movedBody.hasNonNull("version"));
+        assertNull(moved.getHeader(HttpHeaders.ETAG));
+        mockMvc.perform(put("/api/notes/" + id).contentType(APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, etag)
+                .content("{\"x\":9,\"y\":9}"))
+            .andExpect(status().isOk());
+    }
+}
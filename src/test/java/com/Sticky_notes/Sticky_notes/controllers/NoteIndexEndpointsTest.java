@@ -0,0 +1,95 @@
+package com.Sticky_notes.Sticky_notes.controllers;
+
+import com.Sticky_notes.Sticky_notes.repository.NoteRepository;
+import com.Sticky_notes.Sticky_notes.services.NoteSearchIndex;
+import com.Sticky_notes.Sticky_notes.services.NoteSpatialIndex;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@WithMockUser(username = "indexuser")
+class NoteIndexEndpointsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoSpyBean
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private NoteSearchIndex searchIndex;
+
+    @Autowired
+    private NoteSpatialIndex spatialIndex;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void seed() throws Exception {
+        while (!searchIndex.isReady() || !spatialIndex.isReady()) {
+            Thread.sleep(10);
+        }
+        for (String text : new String[] { "buy milk", "buy bread", "call mom" }) {
+            mockMvc.perform(post("/api/notes").contentType(APPLICATION_JSON)
+                    .content("{\"x\":10,\"y\":10,\"text\":\"" + text + "\",\"username\":\"indexuser\"}"))
+                .andExpect(status().isCreated());
+        }
+        clearInvocations(noteRepository);
+    }
+
+    @AfterEach
+    void clean() {
+        noteRepository.deleteAll();
+    }
+
+    private JsonNode getJson(String url) throws Exception {
+        return objectMapper.readTree(mockMvc.perform(get(url))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString());
+    }
+
+    @Test
+    void searchLoadsProjections() throws Exception {
+        // Act
+        JsonNode page = getJson("/api/notes/search?q=buy");
+
+        // Assert
+        assertEquals(2, page.get("items").size());
+        page.get("items").forEach(note -> assertTrue(note.get("text").asText().startsWith("buy")));
+        verify(noteRepository).findViewsByIdIn(any());
+        verify(noteRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void viewportLoadsProjections() throws Exception {
+        // Act
+        JsonNode notes = getJson("/api/notes/viewport?minX=0&minY=0&maxX=20&maxY=20");
+
+        // Assert
+        assertEquals(3, notes.size());
+        assertEquals("call mom", notes.get(0).get("text").asText());
+        verify(noteRepository).findViewsByIdIn(any());
+        verify(noteRepository, never()).findAllById(any());
+    }
+}
@@ -0,0 +1,228 @@
+package com.Sticky_notes.Sticky_notes.controllers;
+
+import com.Sticky_notes.Sticky_notes.payload.response.NoteView;
+import com.Sticky_notes.Sticky_notes.repository.NoteManagmentRepository;
+import com.Sticky_notes.Sticky_notes.repository.NoteRepository;
+import com.Sticky_notes.Sticky_notes.services.NoteJsonStreamer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@WithMockUser(username = "streamuser")
+// A small page size so the tests cross several pages
+@TestPropertySource(properties = { "app.notes.stream.page-size=7", "app.notes.stream.max-concurrent=2" })
+class NoteStreamingTest {
+
+    private static final int NOTES = 50;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private NoteManagmentRepository noteManagmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private NoteJsonStreamer jsonStreamer;
+
+    @BeforeEach
+    void seed() {
+        clean();
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < NOTES; i++) {
+            rows.add(new Object[] { i, i, "note " + i, false, "streamuser", false, i % 2 == 0 ? "main" : "profile" });
+        }
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO note (x, y, text, done, username, is_private, board_type) VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    @AfterEach
+    void clean() {
+        noteRepository.deleteAll();
+        noteManagmentRepository.deleteAll();
+    }
+
+    private JsonNode getStreamed(String url) throws Exception {
+        MvcResult started = mockMvc.perform(get(url))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    @Test
+    void streamedMainBoardMatchesTheListResponse() throws Exception {
+        // Arrange
+        String listed = mockMvc.perform(get("/api/notes"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+
+        // Act
+        JsonNode streamed = getStreamed("/api/notes?stream=true");
+
+        // Assert: same notes, same order, same fields
+        assertEquals(NOTES / 2, streamed.size());
+        assertEquals(objectMapper.readTree(listed), streamed);
+    }
+
+    @Test
+    void streamedUserBoardReturnsEveryProfileNote() throws Exception {
+        // Act
+        JsonNode streamed = getStreamed("/api/notes/user/streamuser?stream=true");
+
+        // Assert
+        assertEquals(NOTES / 2, streamed.size());
+        streamed.forEach(note -> assertEquals("profile", note.get("boardType").asText()));
+    }
+
+    @Test
+    void emptyStreamIsAnEmptyArray() throws Exception {
+        // Act
+        JsonNode streamed = getStreamed("/api/notes/user/nobody?stream=true");
+
+        // Assert
+        assertTrue(streamed.isArray());
+        assertEquals(0, streamed.size());
+    }
+
+    @Test
+    void noteManagementStreamsAllNotes() throws Exception {
+        // Arrange
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            rows.add(new Object[] { "title " + i, "streamuser" });
+        }
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO notes (title, username, x, y, status, is_private, done, created_at) "
+                + "VALUES (?, ?, 100, 100, 'active', false, false, CURRENT_TIMESTAMP)", rows);
+
+        // Act
+        JsonNode streamed = getStreamed("/api/note-management?stream=true");
+
+        // Assert
+        assertEquals(20, streamed.size());
+        assertEquals("title 0", streamed.get(0).get("title").asText());
+    }
+
+    @Test
+    void rowsAreWrittenOutsideTheReadTransaction() throws Exception {
+        // Arrange: an output stream that records whether a transaction (and so a connection) is held
+        List<Boolean> heldWhileWriting = new ArrayList<>();
+        OutputStream client = new OutputStream() {
+            @Override
+            public void write(int b) {
+                write(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                heldWhileWriting.add(TransactionSynchronizationManager.isActualTransactionActive());
+            }
+        };
+        NoteJsonStreamer.PageQuery<NoteView> mainBoard = (last, limit) -> noteRepository
+            .findViewsByIsPrivateFalseAndBoardTypeAndIdLessThanOrderByIdDesc("main", last != null ? last.id() : Long.MAX_VALUE, limit);
+        StreamingResponseBody body = jsonStreamer.stream(mainBoard, view -> view);
+
+        // Act
+        body.writeTo(client);
+
+        // Assert
+        assertFalse(heldWhileWriting.isEmpty());
+        assertFalse(heldWhileWriting.contains(true));
+    }
+
+    @Test
+    void streamsBeyondTheLimitAreRefused() throws Exception {
+        // Arrange: both stream slots taken by bodies blocked on their first page
+        CountDownLatch running = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        NoteJsonStreamer.PageQuery<Object> blocked = (last, limit) -> {
+            running.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of();
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<Future<?>> streams = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            StreamingResponseBody body = jsonStreamer.stream(blocked, row -> row);
+            streams.add(executor.submit(() -> {
+                body.writeTo(new ByteArrayOutputStream());
+                return null;
+            }));
+        }
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        // Act / Assert
+        MvcResult refused = mockMvc.perform(get("/api/notes?stream=true"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        mockMvc.perform(asyncDispatch(refused))
+            .andExpect(status().isServiceUnavailable());
+
+        // Finishing a stream frees its slot
+        release.countDown();
+        for (Future<?> stream : streams) {
+            stream.get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertEquals(NOTES / 2, getStreamed("/api/notes?stream=true").size());
+    }
+
+    @Test
+    void bodiesThatNeverRunHoldNoSlot() throws Exception {
+        // Arrange: more bodies than slots, none of them run (e.g. dropped before dispatch)
+        NoteJsonStreamer.PageQuery<Object> none = (last, limit) -> List.of();
+        for (int i = 0; i < 3; i++) {
+            jsonStreamer.stream(none, row -> row);
+        }
+
+        // Act / Assert
+        assertEquals(NOTES / 2, getStreamed("/api/notes?stream=true").size());
+    }
+}
@@ -0,0 +1,34 @@
+package com.Sticky_notes.Sticky_notes.payload.response;
+
+import com.Sticky_notes.Sticky_notes.models.Note;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NoteViewTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void serializesLikeTheEntity() throws Exception {
+        // Arrange
+        Note note = new Note();
+        note.setId(3L);
+        note.setX(10);
+        note.setY(-4);
+        note.setText("buy \"milk\"");
+        note.setDone(true);
+        note.setUsername("alice");
+        note.setIsPrivate(true);
+        note.setBoardType("profile");
+        note.setVersion(2L);
+
+        // Act
+        String entityJson = objectMapper.writeValueAsString(note);
+        String viewJson = objectMapper.writeValueAsString(NoteView.of(note));
+
+        // Assert: same fields, same order
+        assertEquals(entityJson, viewJson);
+    }
+}
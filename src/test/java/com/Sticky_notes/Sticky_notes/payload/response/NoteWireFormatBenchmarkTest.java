@@ -0,0 +1,86 @@
+package com.Sticky_notes.Sticky_notes.payload.response;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Encodes boards of 1k, 10k and 100k notes as JSON and as CBOR and prints
+ * the payload size (raw and gzipped) and encode/decode times of each.
+ * Run with: mvn test -Pbenchmark -Dfrontend.skip=true
+ */
+@Tag("benchmark")
+class NoteWireFormatBenchmarkTest {
+
+    private static final int[] BOARD_SIZES = { 1_000, 10_000, 100_000 };
+    private static final int ROUNDS = 5;
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final CBORMapper cborMapper = new CBORMapper();
+
+    private record Result(int bytes, int gzipBytes, long encodeNanos, long decodeNanos) {
+    }
+
+    private List<NoteView> board(int size) {
+        List<NoteView> notes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            notes.add(new NoteView((long) i + 1, (i * 37) % 4000, (i * 13) % 3000, "Remember to check item " + i,
+                i % 5 == 0, "user" + (i % 50), i % 7 == 0, i % 2 == 0 ? "main" : "profile", (long) (i % 3)));
+        }
+        return notes;
+    }
+
+    private static int gzipSize(byte[] payload) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(payload);
+        }
+        return out.size();
+    }
+
+    // Best encode and decode time over ROUNDS runs
+    private Result measure(ObjectMapper mapper, List<NoteView> notes) throws Exception {
+        byte[] encoded = null;
+        long encodeNanos = Long.MAX_VALUE;
+        long decodeNanos = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            encoded = mapper.writeValueAsBytes(notes);
+            encodeNanos = Math.min(encodeNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            NoteView[] decoded = mapper.readValue(encoded, NoteView[].class);
+            decodeNanos = Math.min(decodeNanos, System.nanoTime() - start);
+            assertEquals(notes, Arrays.asList(decoded));
+        }
+        return new Result(encoded.length, gzipSize(encoded), encodeNanos, decodeNanos);
+    }
+
+    @Test
+    void cborVersusJson() throws Exception {
+        // Warm up both mappers
+        measure(jsonMapper, board(10_000));
+        measure(cborMapper, board(10_000));
+
+        for (int size : BOARD_SIZES) {
+            List<NoteView> notes = board(size);
+            Result json = measure(jsonMapper, notes);
+            Result cbor = measure(cborMapper, notes);
+            System.out.printf("%,7d notes | JSON %,10d B (gzip %,9d) enc %6.1f ms dec %6.1f ms"
+                    + " | CBOR %,10d B (gzip %,9d) enc %6.1f ms dec %6.1f ms | CBOR/JSON size %.2f%n",
+                size, json.bytes(), json.gzipBytes(), json.encodeNanos() / 1e6, json.decodeNanos() / 1e6,
+                cbor.bytes(), cbor.gzipBytes(), cbor.encodeNanos() / 1e6, cbor.decodeNanos() / 1e6,
+                (double) cbor.bytes() / json.bytes());
+            assertTrue(cbor.bytes() < json.bytes(), "CBOR should be smaller than JSON");
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package com.Sticky_notes.Sticky_notes.realtime;
+
+import com.Sticky_notes.Sticky_notes.Config.SseProperties;
+import com.Sticky_notes.Sticky_notes.payload.response.NoteView;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NoteBroadcastHubTest {
+
+    private static final CBORMapper CBOR_MAPPER = new CBORMapper();
+
+    private SseProperties properties;
+    private RecordingHub hub;
+
+    /**
+     * Hub whose emitters record the raw SSE frames instead of writing to a response.
+     */
+    static class RecordingHub extends NoteBroadcastHub {
+        final BlockingQueue<String> frames = new LinkedBlockingQueue<>();
+        final BlockingQueue<byte[]> cborFrames = new LinkedBlockingQueue<>();
+
+        RecordingHub(SseProperties properties) {
+            super(properties);
+        }
+
+        @Override
+        SseEmitter createEmitter() {
+            return new SseEmitter() {
+                @Override
+                public void send(SseEventBuilder builder) {
+                    frames.add(builder.build().stream()
+                        .map(part -> String.valueOf(part.getData()))
+                        .collect(Collectors.joining()));
+                }
+            };
+        }
+
+        @Override
+        ResponseBodyEmitter createCborEmitter() {
+            return new ResponseBodyEmitter() {
+                @Override
+                public void send(Object object, MediaType mediaType) {
+                    cborFrames.add((byte[]) object);
+                }
+            };
+        }
+
+        // Decodes the next binary frame, which must be exactly one CBOR item
+        JsonNode nextCborFrame() throws Exception {
+            byte[] frame = cborFrames.poll(5, TimeUnit.SECONDS);
+            assertNotNull(frame, "Expected a CBOR frame");
+            try (MappingIterator<JsonNode> items = CBOR_MAPPER.readerFor(JsonNode.class).readValues(frame)) {
+                JsonNode item = items.next();
+                assertFalse(items.hasNext(), "Expected one CBOR item per event");
+                return item;
+            }
+        }
+
+        String nextFrame() throws InterruptedException {
+            String frame = frames.poll(5, TimeUnit.SECONDS);
+            assertNotNull(frame, "Expected an SSE frame");
+            return frame;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        properties = new SseProperties();
+        properties.setReplayBufferSize(3);
+        hub = new RecordingHub(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.shutdown();
+    }
+
+    private Map<String, Supplier<? extends Collection<?>>> mainBoard() {
+        return Map.of(NoteTopics.MAIN, () -> List.of("snapshot-note"));
+    }
+
+    // Extracts the value of the "id:" line from a raw SSE frame
+    private String idOf(String frame) {
+        int start = frame.indexOf("id:") + 3;
+        return frame.substring(start, frame.indexOf('\n', start));
+    }
+
+    @Test
+    void reconnectReplaysOnlyMissedEvents() throws Exception {
+        // Arrange: a live subscriber sees the first event
+        hub.subscribe(mainBoard(), null);
+        hub.publish(NoteTopics.MAIN, "first");
+        String firstId = idOf(hub.nextFrame());
+        hub.publish(NoteTopics.MAIN, "second");
+        hub.publish(NoteTopics.MAIN, "third");
+        hub.nextFrame();
+        hub.nextFrame();
+
+        // Act: a second connection resumes after the first event
+        hub.subscribe(mainBoard(), firstId);
+
+        // Assert
+        assertTrue(hub.nextFrame().contains("second"));
+        assertTrue(hub.nextFrame().contains("third"));
+        assertNull(hub.frames.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void otherTopicsAreNotReplayed() throws Exception {
+        // Arrange
+        hub.subscribe(mainBoard(), null);
+        hub.publish(NoteTopics.MAIN, "main-1");
+        String firstId = idOf(hub.nextFrame());
+        hub.publish(NoteTopics.profile("alice"), "alice-1");
+
+        // Act
+        hub.subscribe(mainBoard(), firstId);
+
+        // Assert
+        assertNull(hub.frames.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void evictedRangeFallsBackToSnapshot() throws Exception {
+        // Arrange: five events overflow a ring of three
+        hub.subscribe(mainBoard(), null);
+        hub.publish(NoteTopics.MAIN, "e1");
+        String firstId = idOf(hub.nextFrame());
+        for (int i = 2; i <= 5; i++) {
+            hub.publish(NoteTopics.MAIN, "e" + i);
+            hub.nextFrame();
+        }
+
+        // Act
+        hub.subscribe(mainBoard(), firstId);
+
+        // Assert
+        String frame = hub.nextFrame();
+        assertTrue(frame.contains("event:" + NoteBroadcastHub.SNAPSHOT_EVENT));
+        assertTrue(frame.contains("snapshot-note"));
+    }
+
+    @Test
+    void idFromAnotherProcessFallsBackToSnapshot() throws Exception {
+        // Act
+        hub.subscribe(mainBoard(), "otherepoch-42");
+
+        // Assert
+        assertTrue(hub.nextFrame().contains("event:" + NoteBroadcastHub.SNAPSHOT_EVENT));
+    }
+
+    @Test
+    void freshConnectionCanStartWithSnapshot() throws Exception {
+        // Arrange
+        hub.publish(NoteTopics.MAIN, "before");
+
+        // Act
+        hub.subscribe(mainBoard(), null, null, true);
+        hub.publish(NoteTopics.MAIN, "after");
+
+        // Assert: the snapshot is stamped with the last event before it, and live events follow
+        String snapshot = hub.nextFrame();
+        assertTrue(snapshot.contains("event:" + NoteBroadcastHub.SNAPSHOT_EVENT));
+        assertTrue(snapshot.contains("snapshot-note"));
+        String live = hub.nextFrame();
+        assertTrue(live.contains("after"));
+        assertTrue(idOf(snapshot).compareTo(idOf(live)) < 0);
+    }
+
+    @Test
+    void snapshotDropsLiveEventsItAlreadyReflects() throws Exception {
+        // Arrange: changes committed before the snapshot read are broadcast while and after it loads
+        NoteView first = note(1L, "first", 2L);
+        NoteView second = note(2L, "second", 0L);
+        Map<String, Supplier<? extends Collection<?>>> board = Map.of(NoteTopics.MAIN, () -> {
+            hub.publish(NoteTopics.MAIN, first);
+            hub.publish(NoteTopics.MAIN, NoteDelta.deleted(3L));
+            hub.publish(NoteTopics.MAIN, note(2L, "second-edited", 1L));
+            // The same change relayed by another instance, as decoded JSON
+            hub.publish(NoteTopics.MAIN, Map.of("type", "updated", "note", Map.of("id", 2, "version", 1)));
+            return List.of(first, second);
+        });
+
+        // Act
+        hub.subscribe(board, null, null, true);
+        hub.publish(NoteTopics.MAIN, first);
+        hub.publish(NoteTopics.MAIN, NoteDelta.deleted(1L));
+
+        // Assert: only the changes the snapshot does not contain follow it
+        assertTrue(hub.nextFrame().contains("event:" + NoteBroadcastHub.SNAPSHOT_EVENT));
+        assertTrue(hub.nextFrame().contains("second-edited"));
+        assertTrue(hub.nextFrame().contains("type=deleted, id=1"));
+        assertNull(hub.frames.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    private static NoteView note(Long id, String text, Long version) {
+        return new NoteView(id, 10, 20, text, false, "alice", false, "main", version);
+    }
+
+    @Test
+    void cborSubscriberGetsTheSameEventsAsSse() throws Exception {
+        // Arrange
+        hub.subscribe(mainBoard(), null);
+        hub.subscribeCbor(mainBoard(), null);
+
+        // Act
+        hub.publish(NoteTopics.MAIN, Map.of("id", 7, "text", "hello"));
+
+        // Assert: same id and payload in both encodings
+        String sseFrame = hub.nextFrame();
+        JsonNode cborFrame = hub.nextCborFrame();
+        assertEquals(idOf(sseFrame), cborFrame.get("id").asText());
+        assertFalse(cborFrame.has("event"));
+        assertEquals(7, cborFrame.get("data").get("id").asInt());
+        assertEquals("hello", cborFrame.get("data").get("text").asText());
+    }
+
+    @Test
+    void cborFramesUseTheApplicationsMapper() throws Exception {
+        // Arrange
+        hub.subscribeCbor(mainBoard(), null);
+
+        // Act: java.time values need the modules the application's mapper registers
+        hub.publish(NoteTopics.MAIN, Map.of("id", 7, "due", LocalDate.of(2026, 1, 2)));
+
+        // Assert
+        JsonNode data = hub.nextCborFrame().get("data");
+        assertEquals(7, data.get("id").asInt());
+        assertTrue(data.has("due"));
+    }
+
+    @Test
+    void cborSubscriberResumesWithSnapshot() throws Exception {
+        // Act
+        hub.subscribeCbor(mainBoard(), "otherepoch-42");
+
+        // Assert
+        JsonNode frame = hub.nextCborFrame();
+        assertEquals(NoteBroadcastHub.SNAPSHOT_EVENT, frame.get("event").asText());
+        assertEquals("snapshot-note", frame.get("data").get(0).asText());
+    }
+
+    @Test
+    void quietConnectionsGetAHeartbeat() throws Exception {
+        // Arrange
+        properties.setHeartbeatIntervalMs(0);
+        hub.subscribe(mainBoard(), null);
+
+        // Act
+        hub.heartbeat();
+
+        // Assert
+        String frame = hub.frames.poll(5, TimeUnit.SECONDS);
+        assertNotNull(frame);
+        assertTrue(frame.startsWith(":heartbeat"), frame);
+        assertEquals(1, hub.getSubscriberCount());
+    }
+
+    @Test
+    void stalledConnectionsAreReaped() {
+        // Arrange
+        properties.setIdleTimeoutMs(0);
+        hub.subscribe(mainBoard(), null);
+
+        // Act
+        hub.heartbeat();
+
+        // Assert
+        assertEquals(0, hub.getSubscriberCount());
+        assertEquals(1, hub.getReapCount(NoteBroadcastHub.Reap.IDLE));
+    }
+
+    @Test
+    void failedConnectionsAreReaped() throws Exception {
+        // Arrange: a client whose socket is gone
+        NoteBroadcastHub failingHub = new NoteBroadcastHub(properties) {
+            @Override
+            SseEmitter createEmitter() {
+                return new SseEmitter() {
+                    @Override
+                    public void send(SseEventBuilder builder) throws IOException {
+                        throw new IOException("Broken pipe");
+                    }
+                };
+            }
+        };
+        failingHub.subscribe(mainBoard(), null);
+
+        // Act
+        failingHub.publish(NoteTopics.MAIN, "lost");
+
+        // Assert
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (failingHub.getSubscriberCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, failingHub.getSubscriberCount());
+        assertEquals(1, failingHub.getReapCount(NoteBroadcastHub.Reap.FAILED));
+        failingHub.shutdown();
+    }
+
+    @Test
+    void connectionsAreCappedPerUserAndPerInstance() {
+        // Arrange
+        properties.setMaxConnectionsPerUser(2);
+        properties.setMaxConnections(3);
+        hub.subscribe(mainBoard(), null, "alice");
+        hub.subscribe(mainBoard(), null, "alice");
+
+        // Act / Assert
+        ResponseStatusException perUser = assertThrows(ResponseStatusException.class,
+            () -> hub.subscribe(mainBoard(), null, "alice"));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, perUser.getStatusCode());
+
+        hub.subscribeCbor(mainBoard(), null, "bob");
+        ResponseStatusException global = assertThrows(ResponseStatusException.class,
+            () -> hub.subscribe(mainBoard(), null, "carol"));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, global.getStatusCode());
+
+        // Reaped connections free their slots
+        properties.setIdleTimeoutMs(0);
+        hub.heartbeat();
+        hub.subscribe(mainBoard(), null, "alice");
+        assertEquals(1, hub.getSubscriberCount());
+    }
+
+    @Test
+    void shutdownSendsARetryHintAndRefusesNewConnections() throws Exception {
+        // Arrange
+        properties.setReconnectDelayMs(1500);
+        hub.subscribe(mainBoard(), null);
+
+        // Act
+        hub.stop();
+
+        // Assert
+        String frame = hub.frames.poll(5, TimeUnit.SECONDS);
+        assertNotNull(frame);
+        assertTrue(frame.contains("retry:1500"), frame);
+        assertEquals(0, hub.getSubscriberCount());
+        assertFalse(hub.isRunning());
+        ResponseStatusException refused = assertThrows(ResponseStatusException.class,
+            () -> hub.subscribe(mainBoard(), null));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, refused.getStatusCode());
+    }
+}
@@ -0,0 +1,180 @@
+package com.Sticky_notes.Sticky_notes.realtime;
+
+import com.Sticky_notes.Sticky_notes.models.Note;
+import com.Sticky_notes.Sticky_notes.services.NotePositionBuffer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class NoteBroadcasterTest {
+
+    @Mock
+    private NoteBroadcastHub broadcastHub;
+
+    @Mock
+    private NotePositionBuffer positionBuffer;
+
+    private SimpleMeterRegistry meterRegistry;
+    private NoteBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        // No drags pending: overlay is the identity
+        when(positionBuffer.overlay(any(Note.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        broadcaster = new NoteBroadcaster(broadcastHub, positionBuffer, meterRegistry, 10000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.shutdown();
+    }
+
+    private static Note note(long id, String text) {
+        Note note = new Note();
+        note.setId(id);
+        note.setX(10);
+        note.setY(20);
+        note.setText(text);
+        note.setUsername("alice");
+        note.setIsPrivate(false);
+        note.setBoardType("main");
+        note.setVersion(1L);
+        return note;
+    }
+
+    @Test
+    void changesAreBroadcastToTheNotesTopic() {
+        // Arrange: a private profile note
+        Note created = note(1, "hello");
+        Note removed = note(5, "bye");
+        removed.setBoardType("profile");
+        removed.setIsPrivate(true);
+
+        // Act
+        broadcaster.onNoteChanged(NoteChangedEvent.created(created));
+        broadcaster.onNoteChanged(NoteChangedEvent.deleted(removed));
+
+        // Assert
+        verify(broadcastHub, timeout(5000)).publish(NoteTopics.MAIN, NoteDelta.of(NoteChangedEvent.Change.CREATED, created));
+        verify(broadcastHub, timeout(5000)).publish(NoteTopics.privateNotes("alice"), NoteDelta.deleted(5L));
+        verify(broadcastHub, never()).publish(eq(NoteTopics.MAIN), eq(NoteDelta.deleted(5L)));
+    }
+
+    @Test
+    void movesAndDoneTogglesAreSentWithoutTheText() {
+        // Arrange
+        Note moved = note(1, "long text that should not be resent");
+        Note done = note(2, "another long text");
+        done.setDone(true);
+
+        // Act
+        broadcaster.onNoteChanged(NoteChangedEvent.of(moved, NoteChangedEvent.Change.MOVED));
+        broadcaster.onNoteChanged(NoteChangedEvent.of(done, NoteChangedEvent.Change.DONE));
+
+        // Assert
+        verify(broadcastHub, timeout(5000)).publish(NoteTopics.MAIN,
+            new NoteDelta(NoteDelta.MOVED, 1L, 10, 20, null, 1L, null));
+        verify(broadcastHub, timeout(5000)).publish(NoteTopics.MAIN,
+            new NoteDelta(NoteDelta.DONE, 2L, null, null, true, 1L, null));
+    }
+
+    @Test
+    void changesWaitingBehindASlowBroadcastAreCoalesced() throws Exception {
+        // Arrange: the first broadcast blocks until released
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Note first = note(1, "first");
+        doAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(broadcastHub).publish(NoteTopics.MAIN, NoteDelta.updated(first));
+        broadcaster.onNoteChanged(NoteChangedEvent.of(first));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Act: three changes of note 2 while the worker is busy
+        Note older = note(2, "v1");
+        Note old = note(2, "v2");
+        Note latest = note(2, "v3");
+        broadcaster.onNoteChanged(NoteChangedEvent.of(older));
+        broadcaster.onNoteChanged(NoteChangedEvent.of(old));
+        broadcaster.onNoteChanged(NoteChangedEvent.of(latest));
+        release.countDown();
+
+        // Assert: only the final state goes out
+        verify(broadcastHub, timeout(5000)).publish(NoteTopics.MAIN, NoteDelta.updated(latest));
+        verify(broadcastHub, never()).publish(NoteTopics.MAIN, NoteDelta.updated(older));
+        verify(broadcastHub, never()).publish(NoteTopics.MAIN, NoteDelta.updated(old));
+        assertEquals(2, meterRegistry.get("notes.broadcast.coalesced").counter().count());
+    }
+
+    @Test
+    void coalescedChangesKeepEveryFieldTheyTouched() throws Exception {
+        // Arrange: the first broadcast blocks until released
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Note first = note(1, "first");
+        doAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(broadcastHub).publish(NoteTopics.MAIN, NoteDelta.updated(first));
+        broadcaster.onNoteChanged(NoteChangedEvent.of(first));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Act: note 2 is moved and then marked done while the worker is busy
+        Note moved = note(2, "text");
+        Note done = note(2, "text");
+        done.setDone(true);
+        done.setVersion(2L);
+        broadcaster.onNoteChanged(NoteChangedEvent.of(moved, NoteChangedEvent.Change.MOVED));
+        broadcaster.onNoteChanged(NoteChangedEvent.of(done, NoteChangedEvent.Change.DONE));
+        release.countDown();
+
+        // Assert: a done delta alone would lose the move, so the whole note goes out
+        verify(broadcastHub, timeout(5000)).publish(NoteTopics.MAIN, NoteDelta.updated(done));
+    }
+
+    @Test
+    void writerDrainsAFullQueueItself() {
+        // Arrange: no room for even one waiting change
+        broadcaster.shutdown();
+        meterRegistry = new SimpleMeterRegistry();
+        broadcaster = new NoteBroadcaster(broadcastHub, positionBuffer, meterRegistry, 0);
+        Note note = note(3, "now");
+
+        // Act
+        broadcaster.onNoteChanged(NoteChangedEvent.of(note));
+
+        // Assert: sent before onNoteChanged returned
+        verify(broadcastHub).publish(NoteTopics.MAIN, NoteDelta.updated(note));
+        assertEquals(1, meterRegistry.get("notes.broadcast.writer.drains").counter().count());
+    }
+
+    @Test
+    void movesFlushesAndRemoteChangesAreNotBroadcast() throws Exception {
+        // Act
+        broadcaster.onNoteChanged(NoteChangedEvent.moved(1L, 5, 6));
+        broadcaster.onNoteChanged(NoteChangedEvent.flushed(note(2, "buffered")));
+        broadcaster.onNoteChanged(NoteChangedEvent.of(note(3, "elsewhere")).asRemote());
+
+        // Assert
+        Thread.sleep(200);
+        verify(broadcastHub, never()).publish(anyString(), any());
+        assertEquals(0, broadcaster.getPendingCount());
+    }
+}
@@ -0,0 +1,93 @@
+package com.Sticky_notes.Sticky_notes.realtime;
+
+import com.Sticky_notes.Sticky_notes.models.Note;
+import com.Sticky_notes.Sticky_notes.payload.response.NoteView;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Replays a simulated drag session and prints the bytes per second one SSE
+ * viewer receives when every change sends the whole note, as before, and
+ * when it sends a {@link NoteDelta}, for SSE text frames and CBOR items.
+ * Run with: mvn test -Pbenchmark -Dfrontend.skip=true
+ */
+@Tag("benchmark")
+class NoteDeltaBenchmarkTest {
+
+    // Ten seconds of one user dragging a note around, with committed moves at 20 per second
+    private static final int SECONDS = 10;
+    private static final int MOVES_PER_SECOND = 20;
+    private static final int[] TEXT_LENGTHS = { 40, 500, 4_000 };
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final CBORMapper cborMapper = new CBORMapper();
+
+    private static Note note(int textLength) {
+        Note note = new Note();
+        note.setId(42L);
+        note.setX(100);
+        note.setY(100);
+        note.setText("x".repeat(textLength));
+        note.setUsername("alice");
+        note.setIsPrivate(false);
+        note.setBoardType("main");
+        note.setVersion(7L);
+        return note;
+    }
+
+    private record Session(long sseBytes, long cborBytes) {
+    }
+
+    /**
+     * Runs the session: the note moves on every step and is marked done,
+     * then undone, once a second. Each change is encoded as the frame a
+     * viewer would receive.
+     */
+    private Session replay(int textLength, Function<NoteChangedEvent, Object> payloadOf) throws Exception {
+        Note note = note(textLength);
+        long seq = 0;
+        long sseBytes = 0;
+        long cborBytes = 0;
+        for (int step = 0; step < SECONDS * MOVES_PER_SECOND; step++) {
+            NoteChangedEvent change;
+            if (step % MOVES_PER_SECOND == MOVES_PER_SECOND - 1) {
+                note.setDone(!note.isDone());
+                change = NoteChangedEvent.of(note, NoteChangedEvent.Change.DONE);
+            } else {
+                note.setX(note.getX() + 3);
+                note.setY(note.getY() + (step % 2 == 0 ? 2 : -1));
+                change = NoteChangedEvent.of(note, NoteChangedEvent.Change.MOVED);
+            }
+            note.setVersion(note.getVersion() + 1);
+
+            seq++;
+            NoteEvent event = new NoteEvent(seq, "lq3x9k-" + seq, NoteTopics.MAIN, null, payloadOf.apply(change));
+            String frame = "id:" + event.getId() + "\ndata:" + jsonMapper.writeValueAsString(event.getPayload()) + "\n\n";
+            sseBytes += frame.getBytes(StandardCharsets.UTF_8).length;
+            cborBytes += event.toCbor(cborMapper).length;
+        }
+        return new Session(sseBytes, cborBytes);
+    }
+
+    @Test
+    void deltasVersusWholeNotes() throws Exception {
+        for (int textLength : TEXT_LENGTHS) {
+            Session whole = replay(textLength, change -> NoteView.of(change.getNote()));
+            Session delta = replay(textLength, change -> NoteDelta.of(change.getChange(), change.getNote()));
+            System.out.printf("%,5d-char note | whole note: SSE %,9d B/s, CBOR %,9d B/s"
+                    + " | delta: SSE %,7d B/s, CBOR %,7d B/s | delta/whole SSE %.2f%n",
+                textLength, whole.sseBytes() / SECONDS, whole.cborBytes() / SECONDS,
+                delta.sseBytes() / SECONDS, delta.cborBytes() / SECONDS,
+                (double) delta.sseBytes() / whole.sseBytes());
+            assertTrue(delta.sseBytes() < whole.sseBytes(), "Deltas should be smaller than whole notes");
+            assertTrue(delta.cborBytes() < whole.cborBytes(), "Deltas should be smaller than whole notes");
+        }
+    }
+}
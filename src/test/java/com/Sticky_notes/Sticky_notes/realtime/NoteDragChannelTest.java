@@ -0,0 +1,94 @@
+package com.Sticky_notes.Sticky_notes.realtime;
+
+import com.Sticky_notes.Sticky_notes.models.Note;
+import com.Sticky_notes.Sticky_notes.repository.NoteRepository;
+import com.Sticky_notes.Sticky_notes.services.NotePositionBuffer;
+import com.Sticky_notes.Sticky_notes.services.NoteService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class NoteDragChannelTest {
+
+    private static final long NOTE_ID = 7L;
+    private static final int DROPS = 100;
+
+    @Mock
+    private NoteRepository noteRepository;
+
+    @Mock
+    private NoteService noteService;
+
+    @Mock
+    private NotePositionBuffer positionBuffer;
+
+    @Mock
+    private WebSocketSession session;
+
+    private NoteDragChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        Note note = new Note();
+        note.setId(NOTE_ID);
+        note.setUsername("alice");
+        note.setIsPrivate(false);
+        note.setBoardType("main");
+        when(noteRepository.findById(NOTE_ID)).thenReturn(Optional.of(note));
+        when(noteService.move(anyLong(), anyInt(), anyInt())).thenReturn(Optional.of(note));
+        when(session.getId()).thenReturn("s1");
+        channel = new NoteDragChannel(noteRepository, noteService, positionBuffer, new SimpleMeterRegistry(), 2000, 5000, 65536);
+        channel.join(session, Set.of(NoteTopics.MAIN));
+    }
+
+    @Test
+    void burstOfDropsIsPersistedOncePerTick() {
+        // Act: a client repeating the drop frame as fast as it can
+        for (int i = 1; i <= DROPS; i++) {
+            assertTrue(channel.step(session, NOTE_ID, i, i * 2, true));
+        }
+        verify(noteService, never()).move(anyLong(), anyInt(), anyInt());
+        channel.tick();
+        channel.tick();
+
+        // Assert: one write at the last position, and the note was loaded once
+        verify(noteService, times(1)).move(anyLong(), anyInt(), anyInt());
+        verify(noteService).move(NOTE_ID, DROPS, DROPS * 2);
+        verify(positionBuffer, times(1)).flush(NOTE_ID);
+        verify(noteRepository, times(1)).findById(NOTE_ID);
+        assertEquals(0, channel.getDragCount());
+    }
+
+    @Test
+    void stepAfterADropInTheSameTickResumesTheDrag() {
+        // Act
+        channel.step(session, NOTE_ID, 10, 10, true);
+        channel.step(session, NOTE_ID, 20, 20, false);
+        channel.tick();
+
+        // Assert: still dragging, nothing written yet
+        verify(noteService, never()).move(anyLong(), anyInt(), anyInt());
+        assertEquals(1, channel.getDragCount());
+
+        // Act: dropped for good
+        channel.step(session, NOTE_ID, 30, 30, true);
+        channel.tick();
+
+        // Assert
+        verify(noteService, times(1)).move(eq(NOTE_ID), eq(30), eq(30));
+        assertEquals(0, channel.getDragCount());
+    }
+}
@@ -0,0 +1,192 @@
+package com.Sticky_notes.Sticky_notes.realtime;
+
+import com.Sticky_notes.Sticky_notes.models.Note;
+import com.Sticky_notes.Sticky_notes.repository.NoteRepository;
+import com.Sticky_notes.Sticky_notes.repository.NoteTombstoneRepository;
+import com.Sticky_notes.Sticky_notes.security.JwtTokenProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two viewers of the main board over /api/notes/ws/drag: one drags, the other
+ * receives coalesced positions, and only the drop reaches the database.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class NoteDragSocketTest {
+
+    private static final int STEPS = 200;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private NoteTombstoneRepository tombstoneRepository;
+
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    private final StandardWebSocketClient client = new StandardWebSocketClient();
+    private final List<WebSocketSession> sessions = new ArrayList<>();
+
+    /**
+     * Records every frame a viewer receives.
+     */
+    static class Recorder extends TextWebSocketHandler {
+        final BlockingQueue<String> frames = new LinkedBlockingQueue<>();
+
+        @Override
+        protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+            frames.add(message.getPayload());
+        }
+
+        // Waits for a frame containing the given text; returns how many frames arrived up to and including it
+        int awaitFrameContaining(String text) throws InterruptedException {
+            int count = 0;
+            while (true) {
+                String frame = frames.poll(5, TimeUnit.SECONDS);
+                assertNotNull(frame, "no frame containing " + text);
+                count++;
+                if (frame.contains(text)) {
+                    return count;
+                }
+            }
+        }
+    }
+
+    @BeforeEach
+    @AfterEach
+    void clean() throws Exception {
+        for (WebSocketSession session : sessions) {
+            session.close();
+        }
+        sessions.clear();
+        noteRepository.deleteAll();
+        tombstoneRepository.deleteAll();
+    }
+
+    private Note saveNote(String username, boolean isPrivate) {
+        Note note = new Note();
+        note.setText("drag me");
+        note.setX(0);
+        note.setY(0);
+        note.setUsername(username);
+        note.setIsPrivate(isPrivate);
+        note.setBoardType("main");
+        return noteRepository.save(note);
+    }
+
+    private WebSocketSession connect(String query, TextWebSocketHandler handler) throws Exception {
+        URI uri = URI.create("ws://localhost:" + port + "/api/notes/ws/drag?" + query);
+        WebSocketSession session = client.execute(handler, new WebSocketHttpHeaders(), uri).get(5, TimeUnit.SECONDS);
+        sessions.add(session);
+        return session;
+    }
+
+    private WebSocketSession connectAs(String username, TextWebSocketHandler handler) throws Exception {
+        return connect("board=main&access_token=" + tokenProvider.generateTokenFromUsername(username), handler);
+    }
+
+    private Note reload(Note note) {
+        return noteRepository.findById(note.getId()).orElseThrow();
+    }
+
+    @Test
+    void dragIsCoalescedForOtherViewersAndOnlyTheDropIsStored() throws Exception {
+        // Arrange
+        Note note = saveNote("alice", false);
+        Recorder dragger = new Recorder();
+        Recorder watcher = new Recorder();
+        WebSocketSession alice = connectAs("alice", dragger);
+        connectAs("bob", watcher);
+
+        // Act: a fast drag
+        for (int i = 1; i <= STEPS; i++) {
+            alice.sendMessage(new TextMessage("[" + note.getId() + "," + i + "," + (i * 2) + "]"));
+        }
+        int framesForDrag = watcher.awaitFrameContaining("[" + note.getId() + "," + STEPS + "," + (STEPS * 2) + "]");
+
+        // Assert: far fewer frames than steps, nothing echoed to the dragger, nothing stored yet
+        assertTrue(framesForDrag < STEPS, "expected coalesced frames, got " + framesForDrag);
+        assertTrue(dragger.frames.isEmpty());
+        assertEquals(0, reload(note).getX());
+        assertEquals(0L, reload(note).getVersion());
+
+        // Act: drop
+        alice.sendMessage(new TextMessage("[" + note.getId() + ",300,400,1]"));
+        watcher.awaitFrameContaining("[" + note.getId() + ",300,400,1]");
+
+        // Assert: one write for the whole drag
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (reload(note).getVersion() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        Note stored = reload(note);
+        assertEquals(300, stored.getX());
+        assertEquals(400, stored.getY());
+        assertEquals(1L, stored.getVersion());
+    }
+
+    @Test
+    void notesOutsideTheWatchedBoardCannotBeDragged() throws Exception {
+        // Arrange: alice's private note is not on the main board topic bob watches
+        Note hidden = saveNote("alice", true);
+        Recorder watcher = new Recorder();
+        WebSocketSession bob = connectAs("bob", new Recorder());
+        connectAs("carol", watcher);
+
+        // Act
+        bob.sendMessage(new TextMessage("[" + hidden.getId() + ",50,60,1]"));
+        bob.sendMessage(new TextMessage("[" + hidden.getId() + ",70,80]"));
+
+        // Assert
+        assertNull(watcher.frames.poll(500, TimeUnit.MILLISECONDS));
+        assertEquals(0, reload(hidden).getX());
+        assertEquals(0L, reload(hidden).getVersion());
+    }
+
+    @Test
+    void handshakeWithoutAValidTokenIsRejected() {
+        assertThrows(ExecutionException.class, () -> connect("board=main", new Recorder()));
+        assertThrows(ExecutionException.class, () -> connect("board=main&access_token=not-a-jwt", new Recorder()));
+    }
+
+    @Test
+    void malformedFrameClosesTheConnection() throws Exception {
+        // Arrange
+        WebSocketSession session = connectAs("alice", new Recorder());
+
+        // Act
+        session.sendMessage(new TextMessage("{\"id\":1}"));
+
+        // Assert
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (session.isOpen() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertFalse(session.isOpen());
+    }
+}
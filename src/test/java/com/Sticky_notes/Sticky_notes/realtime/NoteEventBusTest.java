@@ -0,0 +1,242 @@
+package com.Sticky_notes.Sticky_notes.realtime;
+
+import com.Sticky_notes.Sticky_notes.models.Note;
+import com.Sticky_notes.Sticky_notes.repository.NoteRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Three instances on one in-memory network, standing in for Postgres
+ * LISTEN/NOTIFY.
+ */
+class NoteEventBusTest {
+
+    @Mock
+    private NoteBroadcastHub broadcastHub;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private NoteRepository noteRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private InMemoryNoteEventBus a;
+    private InMemoryNoteEventBus b;
+    private InMemoryNoteEventBus c;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        InMemoryNoteEventBus.Network network = new InMemoryNoteEventBus.Network();
+        a = new InMemoryNoteEventBus(meterRegistry, network);
+        b = new InMemoryNoteEventBus(meterRegistry, network);
+        c = new InMemoryNoteEventBus(meterRegistry, network);
+    }
+
+    @AfterEach
+    void tearDown() {
+        a.shutdown();
+        b.shutdown();
+        c.shutdown();
+    }
+
+    private static BlockingQueue<NoteBusMessage> recorder(NoteEventBus bus) {
+        BlockingQueue<NoteBusMessage> received = new LinkedBlockingQueue<>();
+        bus.subscribe(received::add);
+        return received;
+    }
+
+    private static Note note(long id) {
+        Note note = new Note();
+        note.setId(id);
+        note.setX(10);
+        note.setY(20);
+        note.setText("hello");
+        note.setUsername("alice");
+        note.setIsPrivate(false);
+        note.setBoardType("main");
+        return note;
+    }
+
+    @Test
+    void messageReachesEveryOtherInstanceOnce() throws Exception {
+        // Arrange
+        BlockingQueue<NoteBusMessage> atA = recorder(a);
+        BlockingQueue<NoteBusMessage> atB = recorder(b);
+        BlockingQueue<NoteBusMessage> atC = recorder(c);
+
+        // Act
+        a.publish(NoteBusMessage.broadcast(NoteTopics.MAIN, "deleted:5"));
+
+        // Assert
+        assertEquals("deleted:5", atB.poll(5, TimeUnit.SECONDS).payload());
+        assertEquals("deleted:5", atC.poll(5, TimeUnit.SECONDS).payload());
+        assertNull(atA.poll(200, TimeUnit.MILLISECONDS));
+        assertNull(atB.poll(50, TimeUnit.MILLISECONDS));
+        assertEquals(2, meterRegistry.get("notes.bus.latency").timer().count());
+    }
+
+    @Test
+    void redeliveredMessagesAreSuppressed() {
+        // Arrange
+        BlockingQueue<NoteBusMessage> atB = recorder(b);
+        NoteBusMessage message = NoteBusMessage.broadcast(NoteTopics.MAIN, "deleted:5")
+            .stamped(a.getOrigin(), 1, System.currentTimeMillis());
+
+        // Act
+        b.receive(List.of(message));
+        b.receive(List.of(message, message));
+
+        // Assert
+        assertEquals(1, atB.size());
+        assertEquals(2, meterRegistry.get("notes.bus.duplicates").counter().count());
+    }
+
+    @Test
+    void transactionMessagesAreSentOnCommitOnly() throws Exception {
+        // Arrange
+        BlockingQueue<NoteBusMessage> atB = recorder(b);
+
+        // Act: one transaction that rolls back, one that commits
+        runInTransaction(false, atB, "deleted:1");
+        runInTransaction(true, atB, "deleted:2", "deleted:3");
+
+        // Assert: the committed transaction's messages only, in order
+        assertEquals("deleted:2", atB.poll(5, TimeUnit.SECONDS).payload());
+        assertEquals("deleted:3", atB.poll(5, TimeUnit.SECONDS).payload());
+        assertNull(atB.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    private void runInTransaction(boolean commit, BlockingQueue<NoteBusMessage> receiver, String... payloads) throws InterruptedException {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            for (String payload : payloads) {
+                a.publish(NoteBusMessage.broadcast(NoteTopics.MAIN, payload));
+            }
+            // Nothing leaves before the commit
+            Thread.sleep(100);
+            assertNull(receiver.peek());
+
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            if (commit) {
+                synchronizations.forEach(TransactionSynchronization::afterCommit);
+            }
+            int status = commit ? TransactionSynchronization.STATUS_COMMITTED : TransactionSynchronization.STATUS_ROLLED_BACK;
+            synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+    }
+
+    @Test
+    void relayReplaysBroadcastsAndChangesOfOtherInstances() {
+        // Arrange
+        new NoteClusterRelay(b, broadcastHub, eventPublisher, noteRepository);
+        Note note = note(7);
+
+        // Act
+        a.publish(NoteBusMessage.broadcast(NoteTopics.MAIN, note));
+        a.publish(NoteBusMessage.change(NoteChangedEvent.deleted(note)));
+
+        // Assert
+        verify(broadcastHub, timeout(5000)).publishLocal(NoteTopics.MAIN, note);
+        verify(eventPublisher, timeout(5000)).publishEvent(argThat((Object event) -> event instanceof NoteChangedEvent changed
+            && changed.isRemote() && changed.isDeleted() && changed.getNoteId() == 7L));
+        verifyNoMoreInteractions(broadcastHub);
+    }
+
+    @Test
+    void relaySendsLocalChangesButNotRemoteOnes() throws Exception {
+        // Arrange
+        NoteClusterRelay relay = new NoteClusterRelay(a, broadcastHub, eventPublisher, noteRepository);
+        BlockingQueue<NoteBusMessage> atB = recorder(b);
+
+        // Act
+        relay.onNoteChanged(NoteChangedEvent.moved(3L, 1, 2).asRemote());
+        relay.onNoteChanged(NoteChangedEvent.moved(4L, 5, 6));
+
+        // Assert
+        NoteBusMessage message = atB.poll(5, TimeUnit.SECONDS);
+        assertEquals(4L, message.noteId());
+        assertEquals(5, message.x());
+        assertNull(atB.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void oversizedBroadcastIsReloadedByTheReceiver() {
+        // Arrange
+        new NoteClusterRelay(b, broadcastHub, eventPublisher, noteRepository);
+        Note note = note(9);
+        when(noteRepository.findById(9L)).thenReturn(Optional.of(note));
+
+        // Act
+        a.publish(NoteBusMessage.broadcast(NoteTopics.MAIN, note).withoutBody());
+
+        // Assert
+        verify(broadcastHub, timeout(5000)).publishLocal(NoteTopics.MAIN, note);
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void notificationsArePackedUnderThePayloadLimit() {
+        // Arrange: 10-byte messages, at most 25 bytes per payload
+        List<String> messages = List.of("\"aaaaaaaa\"", "\"bbbbbbbb\"", "\"cccccccc\"", "\"dddddddd\"");
+
+        // Act
+        List<String> payloads = PostgresNoteEventBus.pack(messages, 25);
+
+        // Assert
+        assertEquals(List.of("[\"aaaaaaaa\",\"bbbbbbbb\"]", "[\"cccccccc\",\"dddddddd\"]"), payloads);
+        assertTrue(payloads.stream().allMatch(payload -> payload.length() <= 25));
+    }
+
+    @Test
+    void messagesSurviveTheNotificationPayload() throws Exception {
+        // Arrange
+        ObjectMapper objectMapper = new ObjectMapper();
+        Note note = note(11);
+        List<NoteBusMessage> batch = List.of(
+            NoteBusMessage.change(NoteChangedEvent.of(note)).stamped("origin", 1, 100),
+            NoteBusMessage.broadcast(NoteTopics.MAIN, note).stamped("origin", 2, 100));
+
+        // Act
+        String payload = PostgresNoteEventBus.pack(
+            List.of(objectMapper.writeValueAsString(batch.get(0)), objectMapper.writeValueAsString(batch.get(1))),
+            PostgresNoteEventBus.MAX_PAYLOAD_BYTES).get(0);
+        List<NoteBusMessage> decoded = objectMapper.readValue(payload, new TypeReference<>() {
+        });
+
+        // Assert
+        assertEquals("origin:1", decoded.get(0).key());
+        assertEquals(NoteBusMessage.Kind.CHANGE, decoded.get(0).kind());
+        assertEquals("hello", decoded.get(0).note().getText());
+        assertEquals(10, decoded.get(0).x());
+        assertEquals(NoteTopics.MAIN, decoded.get(1).topic());
+        assertEquals("hello", ((Map<?, ?>) decoded.get(1).payload()).get("text"));
+    }
+}
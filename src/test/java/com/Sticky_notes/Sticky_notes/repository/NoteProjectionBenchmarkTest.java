@@ -0,0 +1,105 @@
+package com.Sticky_notes.Sticky_notes.repository;
+
+import com.Sticky_notes.Sticky_notes.models.Note;
+import com.Sticky_notes.Sticky_notes.payload.response.NoteView;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Loads and serializes a 10k-note board as entities and as NoteView
+ * projections, and prints the latency and bytes allocated per request.
+ * Run with: mvn test -Pbenchmark -Dfrontend.skip=true
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "logging.level.com.Sticky_notes=INFO")
+@ActiveProfiles("test")
+class NoteProjectionBenchmarkTest {
+
+    private static final int NOTES = 10_000;
+    private static final int ROUNDS = 20;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private record Result(long nanos, long bytes, int length) {
+    }
+
+    @BeforeEach
+    void seed() {
+        noteRepository.deleteAll();
+        List<Object[]> rows = new ArrayList<>(NOTES);
+        for (int i = 0; i < NOTES; i++) {
+            rows.add(new Object[] { i % 4000, i / 4, "benchmark note number " + i, i % 5 == 0, "benchuser", i % 3 == 0, "profile" });
+        }
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO note (x, y, text, done, username, is_private, board_type) VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    @AfterEach
+    void clean() {
+        noteRepository.deleteAll();
+    }
+
+    // Best time and allocation over ROUNDS runs of one load + serialize
+    private Result measure(Callable<byte[]> request) throws Exception {
+        long bestNanos = Long.MAX_VALUE;
+        long bestBytes = Long.MAX_VALUE;
+        int length = 0;
+        long threadId = Thread.currentThread().getId();
+        for (int round = 0; round < ROUNDS; round++) {
+            long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            length = request.call().length;
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+            bestBytes = Math.min(bestBytes, threads.getThreadAllocatedBytes(threadId) - allocatedBefore);
+        }
+        return new Result(bestNanos, bestBytes, length);
+    }
+
+    @Test
+    void projectionVersusEntitySerialization() throws Exception {
+        Callable<byte[]> entities = () -> {
+            List<Note> notes = noteRepository.findByUsernameAndBoardType("benchuser", "profile");
+            return objectMapper.writeValueAsBytes(notes);
+        };
+        Callable<byte[]> views = () -> {
+            List<NoteView> notes = noteRepository.findViewsByUsernameAndBoardType("benchuser", "profile");
+            return objectMapper.writeValueAsBytes(notes);
+        };
+
+        // Warm up both paths
+        measure(entities);
+        measure(views);
+
+        Result entity = measure(entities);
+        Result view = measure(views);
+
+        System.out.printf("%d notes: entities %.1f ms, %.1f MB allocated; projections %.1f ms, %.1f MB allocated%n",
+            NOTES, entity.nanos() / 1e6, entity.bytes() / 1e6, view.nanos() / 1e6, view.bytes() / 1e6);
+        assertEquals(entity.length(), view.length(), "Both paths should produce the same JSON");
+        assertTrue(view.bytes() < entity.bytes(), "Projections should allocate less than entities");
+    }
+}
@@ -0,0 +1,171 @@
+package com.Sticky_notes.Sticky_notes.repository;
+
+import com.Sticky_notes.Sticky_notes.models.Note;
+import com.Sticky_notes.Sticky_notes.payload.response.NoteView;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Seeds a few thousand notes into H2 and checks, via EXPLAIN on the SQL Hibernate actually
+ * generates, that every list/count query in NoteRepository is answered from an index.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.Sticky_notes.Sticky_notes.repository.NoteRepositoryIndexTest$SqlCapture")
+@ActiveProfiles("test")
+class NoteRepositoryIndexTest {
+
+    private static final int USERS = 200;
+    private static final int NOTES_PER_USER = 50;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Records the SQL of the most recent statement so it can be re-run under EXPLAIN.
+     */
+    public static class SqlCapture implements StatementInspector {
+        private static volatile String lastSql;
+
+        @Override
+        public String inspect(String sql) {
+            lastSql = sql;
+            return sql;
+        }
+    }
+
+    @BeforeEach
+    void seed() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int u = 0; u < USERS; u++) {
+            for (int n = 0; n < NOTES_PER_USER; n++) {
+                rows.add(new Object[] {
+                    n * 10, n * 5, "note " + u + "-" + n, n % 4 == 0, "user" + u, n % 3 == 0, n % 2 == 0 ? "main" : "profile"
+                });
+            }
+        }
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO note (x, y, text, done, username, is_private, board_type) VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    // Runs the captured statement under EXPLAIN with the same bind values and returns the plan
+    private String planOf(Runnable repositoryCall, Object... binds) {
+        SqlCapture.lastSql = null;
+        repositoryCall.run();
+        String sql = SqlCapture.lastSql;
+        assertNotNull(sql, "No SQL captured");
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, binds);
+    }
+
+    private void assertIndexed(String plan) {
+        assertFalse(plan.contains("tableScan"), () -> "Expected an index lookup but got:\n" + plan);
+    }
+
+    @Test
+    void boardFeedQueriesUseIndexes() {
+        assertIndexed(planOf(() -> noteRepository.findByIsPrivateFalseAndBoardType("main"), "main"));
+        assertIndexed(planOf(() -> noteRepository.findByIsPrivateFalseAndBoardTypeAndIdLessThanOrderByIdDesc(
+            "main", Long.MAX_VALUE, Limit.of(50)), "main", Long.MAX_VALUE, 50));
+    }
+
+    @Test
+    void perUserListQueriesUseIndexes() {
+        assertIndexed(planOf(() -> noteRepository.findByUsername("user7"), "user7"));
+        assertIndexed(planOf(() -> noteRepository.findByUsernameAndBoardType("user7", "profile"), "user7", "profile"));
+        assertIndexed(planOf(() -> noteRepository.findByUsernameAndIsPrivateTrue("user7"), "user7"));
+        assertIndexed(planOf(() -> noteRepository.findByUsernameAndIsPrivateFalse("user7"), "user7"));
+        assertIndexed(planOf(() -> noteRepository.findByUsernameAndIsPrivateFalseAndBoardType("user7", "main"), "user7", "main"));
+        assertIndexed(planOf(() -> noteRepository.findByUsernameAndIsPrivateTrueAndBoardType("user7", "profile"), "user7", "profile"));
+        assertIndexed(planOf(() -> noteRepository.findByUsernameAndDoneTrueAndBoardType("user7", "profile"), "user7", "profile"));
+        assertIndexed(planOf(() -> noteRepository.findByUsernameAndDoneFalseAndBoardType("user7", "profile"), "user7", "profile"));
+    }
+
+    @Test
+    void perUserPageQueriesUseIndexes() {
+        assertIndexed(planOf(() -> noteRepository.findByUsernameAndBoardTypeAndIdLessThanOrderByIdDesc(
+            "user7", "profile", Long.MAX_VALUE, Limit.of(50)), "user7", "profile", Long.MAX_VALUE, 50));
+        assertIndexed(planOf(() -> noteRepository.findByUsernameAndIsPrivateFalseAndBoardTypeAndIdLessThanOrderByIdDesc(
+            "user7", "main", Long.MAX_VALUE, Limit.of(50)), "user7", "main", Long.MAX_VALUE, 50));
+        assertIndexed(planOf(() -> noteRepository.findByUsernameAndIsPrivateTrueAndBoardTypeAndIdLessThanOrderByIdDesc(
+            "user7", "profile", Long.MAX_VALUE, Limit.of(50)), "user7", "profile", Long.MAX_VALUE, 50));
+    }
+
+    @Test
+    void projectionQueriesUseIndexes() {
+        assertIndexed(planOf(() -> noteRepository.findViewsByIsPrivateFalseAndBoardType("main"), "main"));
+        assertIndexed(planOf(() -> noteRepository.findViewsByUsernameAndBoardType("user7", "profile"), "user7", "profile"));
+        assertIndexed(planOf(() -> noteRepository.findViewsByUsernameAndIsPrivateTrueAndBoardTypeAndIdLessThanOrderByIdDesc(
+            "user7", "profile", Long.MAX_VALUE, Limit.of(50)), "user7", "profile", Long.MAX_VALUE, 50));
+    }
+
+    @Test
+    void projectionsMatchEntities() {
+        List<Note> entities = noteRepository.findByUsernameAndBoardType("user7", "profile");
+        List<NoteView> views = noteRepository.findViewsByUsernameAndBoardType("user7", "profile");
+        assertEquals(entities.stream().map(NoteView::of).toList(), views);
+    }
+
+    @Test
+    void privateProfileQueryUsesIndexes() {
+        String plan = planOf(() -> noteRepository.findPrivateProfileViewsByUsername("user7"), "user7", "user7");
+        assertIndexed(plan);
+        assertTrue(plan.contains("idx_note_user_private_board_id".toUpperCase()), plan);
+    }
+
+    // The filter getPrivatenotesByUsername used to apply in Java over all of a user's private notes
+    private List<NoteView> twoPassPrivateProfileNotes(String username) {
+        List<NoteView> privateNotes = noteRepository.findViewsByUsernameAndIsPrivateTrue(username);
+        boolean hasPrivateProfileNotes = privateNotes.stream().anyMatch(note -> "profile".equals(note.boardType()));
+        return hasPrivateProfileNotes
+            ? privateNotes.stream().filter(note -> "profile".equals(note.boardType())).toList()
+            : privateNotes;
+    }
+
+    @Test
+    void privateProfileQueryMatchesTheTwoPassFilter() {
+        // Arrange: besides the seeded users (private notes on both boards), one user whose private notes
+        // predate the profile board, one with only public notes and one with a single private profile note
+        jdbcTemplate.batchUpdate("INSERT INTO note (x, y, text, done, username, is_private, board_type) VALUES (?, ?, ?, ?, ?, ?, ?)",
+            List.of(
+                new Object[] { 1, 1, "old a", false, "legacy", true, "main" },
+                new Object[] { 2, 2, "old b", true, "legacy", true, null },
+                new Object[] { 3, 3, "open", false, "legacy", false, "profile" },
+                new Object[] { 4, 4, "open", false, "public-only", false, "profile" },
+                new Object[] { 5, 5, "secret", false, "one-private", true, "profile" },
+                new Object[] { 6, 6, "main secret", false, "one-private", true, "main" }));
+        Comparator<NoteView> byId = Comparator.comparing(NoteView::id);
+
+        for (String username : List.of("user0", "user7", "legacy", "public-only", "one-private", "nobody")) {
+            // Act
+            List<NoteView> singleQuery = noteRepository.findPrivateProfileViewsByUsername(username);
+
+            // Assert: same rows (neither version orders them)
+            assertEquals(twoPassPrivateProfileNotes(username).stream().sorted(byId).toList(),
+                singleQuery.stream().sorted(byId).toList(), username);
+        }
+        assertEquals(2, noteRepository.findPrivateProfileViewsByUsername("legacy").size());
+        assertEquals(1, noteRepository.findPrivateProfileViewsByUsername("one-private").size());
+    }
+
+    @Test
+    void perUserCountQueriesUseIndexes() {
+        assertIndexed(planOf(() -> noteRepository.countByUsername("user7"), "user7"));
+        assertIndexed(planOf(() -> noteRepository.countByUsernameAndIsPrivateTrue("user7"), "user7"));
+        assertIndexed(planOf(() -> noteRepository.countByUsernameAndIsPrivateFalse("user7"), "user7"));
+    }
+}
@@ -0,0 +1,112 @@
+package com.Sticky_notes.Sticky_notes.services;
+
+import com.Sticky_notes.Sticky_notes.models.Note;
+import com.Sticky_notes.Sticky_notes.payload.request.NoteBatchRequest;
+import com.Sticky_notes.Sticky_notes.repository.NoteRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class NoteBatchServiceTest {
+
+    @Autowired
+    private NoteBatchService noteBatchService;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    // The in-memory database is shared with other test contexts, which expect it empty
+    @BeforeEach
+    @AfterEach
+    void clean() {
+        noteRepository.deleteAll();
+    }
+
+    private Note newNote(String text) {
+        Note note = new Note();
+        note.setX(1);
+        note.setY(2);
+        note.setText(text);
+        note.setUsername("batchuser");
+        note.setIsPrivate(false);
+        note.setBoardType("main");
+        return note;
+    }
+
+    private NoteBatchRequest.NoteUpdate update(Long id, Integer x, Integer y, Boolean done) {
+        NoteBatchRequest.NoteUpdate update = new NoteBatchRequest.NoteUpdate();
+        update.setId(id);
+        update.setX(x);
+        update.setY(y);
+        update.setDone(done);
+        return update;
+    }
+
+    @Test
+    void createsGetIdsInRequestOrder() {
+        // Arrange
+        NoteBatchRequest request = new NoteBatchRequest();
+        request.setCreate(List.of(newNote("a"), newNote("b"), newNote("c")));
+
+        // Act
+        NoteBatchService.Result result = noteBatchService.apply(request);
+
+        // Assert
+        List<Note> created = result.getCreated();
+        assertEquals(3, created.size());
+        for (Note note : created) {
+            assertEquals(note.getText(), noteRepository.findById(note.getId()).orElseThrow().getText());
+        }
+        assertTrue(created.get(0).getId() < created.get(1).getId());
+    }
+
+    @Test
+    void updatesMergeAndDeletesApplyTogether() {
+        // Arrange
+        Note kept = noteRepository.save(newNote("kept"));
+        Note removed = noteRepository.save(newNote("removed"));
+        NoteBatchRequest request = new NoteBatchRequest();
+        request.setUpdate(List.of(
+            update(kept.getId(), 50, 60, null),
+            update(kept.getId(), null, null, true),
+            update(removed.getId(), 9, 9, null)));
+        request.setDelete(List.of(removed.getId()));
+
+        // Act
+        NoteBatchService.Result result = noteBatchService.apply(request);
+
+        // Assert
+        assertEquals(1, result.getUpdated().size());
+        Note stored = noteRepository.findById(kept.getId()).orElseThrow();
+        assertEquals(50, stored.getX());
+        assertEquals(60, stored.getY());
+        assertTrue(stored.isDone());
+        assertFalse(noteRepository.existsById(removed.getId()));
+        assertEquals(List.of(removed.getId()), result.getDeleted().stream().map(Note::getId).toList());
+    }
+
+    @Test
+    void missingTargetRollsBackTheWholeBatch() {
+        // Arrange
+        Note existing = noteRepository.save(newNote("existing"));
+        NoteBatchRequest request = new NoteBatchRequest();
+        request.setCreate(List.of(newNote("never stored")));
+        request.setUpdate(List.of(update(existing.getId(), 99, 99, null)));
+        request.setDelete(List.of(existing.getId() + 1000));
+
+        // Act / Assert
+        assertThrows(NoSuchElementException.class, () -> noteBatchService.apply(request));
+        assertEquals(1, noteRepository.count());
+        assertEquals(1, noteRepository.findById(existing.getId()).orElseThrow().getX());
+    }
+}
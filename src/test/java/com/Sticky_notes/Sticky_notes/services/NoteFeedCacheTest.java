@@ -0,0 +1,107 @@
+package com.Sticky_notes.Sticky_notes.services;
+
+import com.Sticky_notes.Sticky_notes.models.Note;
+import com.Sticky_notes.Sticky_notes.payload.response.NoteView;
+import com.Sticky_notes.Sticky_notes.realtime.NoteChangedEvent;
+import com.Sticky_notes.Sticky_notes.repository.NoteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class NoteFeedCacheTest {
+
+    @Mock
+    private NoteRepository noteRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private NoteVersions versions;
+    private NoteFeedCache feedCache;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        versions = new NoteVersions();
+        feedCache = new NoteFeedCache(noteRepository, versions, meterRegistry, true, 2);
+        when(noteRepository.findViewsByIsPrivateFalseAndBoardType(anyString()))
+            .thenReturn(List.of(NoteView.of(note("alice", "main"))));
+        when(noteRepository.findViewsByUsernameAndBoardType(anyString(), anyString()))
+            .thenReturn(List.of(NoteView.of(note("bob", "profile"))));
+    }
+
+    private Note note(String username, String boardType) {
+        Note note = new Note();
+        note.setId(1L);
+        note.setUsername(username);
+        note.setBoardType(boardType);
+        return note;
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).counter().count();
+    }
+
+    @Test
+    void repeatedReadsHitTheCache() {
+        // Act
+        feedCache.findByIsPrivateFalseAndBoardType("main");
+        feedCache.findByIsPrivateFalseAndBoardType("main");
+        feedCache.findByIsPrivateFalseAndBoardType("main");
+
+        // Assert
+        verify(noteRepository, times(1)).findViewsByIsPrivateFalseAndBoardType("main");
+        assertEquals(2, counter("notes.feed.cache.hits"));
+        assertEquals(1, counter("notes.feed.cache.misses"));
+    }
+
+    @Test
+    void changeInvalidatesOnlyAffectedFeeds() {
+        // Arrange
+        feedCache.findByIsPrivateFalseAndBoardType("main");
+        feedCache.findByUsernameAndBoardType("bob", "profile");
+
+        // Act: alice changes a note on the main board
+        versions.onNoteChanged(NoteChangedEvent.of(note("alice", "main")));
+        feedCache.findByIsPrivateFalseAndBoardType("main");
+        feedCache.findByUsernameAndBoardType("bob", "profile");
+
+        // Assert
+        verify(noteRepository, times(2)).findViewsByIsPrivateFalseAndBoardType("main");
+        verify(noteRepository, times(1)).findViewsByUsernameAndBoardType("bob", "profile");
+    }
+
+    @Test
+    void moveWithUnknownOwnerInvalidatesEverything() {
+        // Arrange
+        feedCache.findByUsernameAndBoardType("bob", "profile");
+
+        // Act
+        versions.onNoteChanged(NoteChangedEvent.moved(7L, 5, 5));
+        feedCache.findByUsernameAndBoardType("bob", "profile");
+
+        // Assert
+        verify(noteRepository, times(2)).findViewsByUsernameAndBoardType("bob", "profile");
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedBeyondMaxEntries() {
+        // Act: three feeds in a cache of two
+        feedCache.findByUsernameAndBoardType("a", "profile");
+        feedCache.findByUsernameAndBoardType("b", "profile");
+        feedCache.findByUsernameAndBoardType("c", "profile");
+        feedCache.findByUsernameAndBoardType("a", "profile");
+
+        // Assert
+        assertEquals(2, feedCache.size());
+        assertEquals(2, counter("notes.feed.cache.evictions"));
+        verify(noteRepository, times(2)).findViewsByUsernameAndBoardType("a", "profile");
+    }
+}
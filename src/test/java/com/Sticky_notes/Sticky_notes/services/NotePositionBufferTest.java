@@ -0,0 +1,228 @@
+package com.Sticky_notes.Sticky_notes.services;
+
+import com.Sticky_notes.Sticky_notes.models.Note;
+import com.Sticky_notes.Sticky_notes.realtime.NoteChangedEvent;
+import com.Sticky_notes.Sticky_notes.repository.NoteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class NotePositionBufferTest {
+
+    private static final int NOTES = 10;
+    private static final int STEPS_PER_NOTE = 100;
+    private static final int STEPS_PER_FLUSH_TICK = 50;
+
+    @Mock
+    private NoteRepository noteRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    private NotePositionBuffer positionBuffer;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        positionBuffer = new NotePositionBuffer(noteRepository, jdbcTemplate, eventPublisher, taskScheduler, true, 10_000, 60_000);
+        when(noteRepository.findById(anyLong())).thenAnswer(invocation -> {
+            Note note = new Note();
+            note.setId(invocation.getArgument(0));
+            note.setX(0);
+            note.setY(0);
+            note.setText("drag me");
+            note.setUsername("testuser");
+            return Optional.of(note);
+        });
+        // Every row of a batch exists unless a test says otherwise
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            int[] counts = new int[invocation.<List<?>>getArgument(1).size()];
+            Arrays.fill(counts, 1);
+            return counts;
+        });
+    }
+
+    private static Note note(long id, String text, long version) {
+        Note note = new Note();
+        note.setId(id);
+        note.setX(0);
+        note.setY(0);
+        note.setText(text);
+        note.setUsername("testuser");
+        note.setVersion(version);
+        return note;
+    }
+
+    @Test
+    void dragStormCutsDatabaseRoundTripsByAnOrderOfMagnitude() {
+        // Act: ten notes dragged in interleaved steps, with the scheduler ticking periodically
+        int steps = 0;
+        for (int step = 1; step <= STEPS_PER_NOTE; step++) {
+            for (long id = 1; id <= NOTES; id++) {
+                positionBuffer.stage(id, step, step * 2);
+                if (++steps % STEPS_PER_FLUSH_TICK == 0) {
+                    positionBuffer.flush();
+                }
+            }
+        }
+        positionBuffer.flush();
+
+        // Assert: the naive path costs a SELECT plus an UPDATE per step
+        int naiveRoundTrips = 2 * NOTES * STEPS_PER_NOTE;
+        int reads = mockingDetails(noteRepository).getInvocations().size();
+        int batches = mockingDetails(jdbcTemplate).getInvocations().size();
+        int bufferedRoundTrips = reads + batches;
+        assertTrue(bufferedRoundTrips * 10 <= naiveRoundTrips,
+            "Expected at least 10x fewer round trips, got " + bufferedRoundTrips + " vs " + naiveRoundTrips);
+        verify(noteRepository, never()).save(any(Note.class));
+        assertEquals(0, positionBuffer.getPendingCount());
+    }
+
+    @Test
+    void reachingTheThresholdQueuesOneFlushWithoutWritingOnTheCaller() {
+        // Arrange
+        NotePositionBuffer smallBuffer = new NotePositionBuffer(
+            noteRepository, jdbcTemplate, eventPublisher, taskScheduler, true, 3, 60_000);
+
+        // Act: well past the threshold
+        for (long id = 1; id <= 10; id++) {
+            smallBuffer.stage(id, 5, 5);
+        }
+
+        // Assert: nothing written on this thread, one flush handed to the scheduler
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        ArgumentCaptor<Runnable> queued = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskScheduler, times(1)).schedule(queued.capture(), any(Instant.class));
+
+        // Running it writes everything and lets the next threshold queue again
+        queued.getValue().run();
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+        assertEquals(0, smallBuffer.getPendingCount());
+        for (long id = 11; id <= 13; id++) {
+            smallBuffer.stage(id, 5, 5);
+        }
+        verify(taskScheduler, times(2)).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    void lastWriteWinsAndReadsSeePendingPosition() {
+        // Act
+        positionBuffer.stage(1L, 10, 10);
+        Note latest = positionBuffer.stage(1L, 30, 40).orElseThrow();
+        Note stored = new Note();
+        stored.setId(1L);
+        stored.setX(0);
+        stored.setY(0);
+
+        // Assert
+        assertEquals(30, latest.getX());
+        Note seen = positionBuffer.overlay(stored);
+        assertEquals(30, seen.getX());
+        assertEquals(40, seen.getY());
+        assertEquals(0, stored.getX(), "overlay must not modify its argument");
+
+        positionBuffer.flush();
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+        assertEquals(1, rows.getValue().size());
+        assertArrayEquals(new Object[] { 30, 40, 1L }, rows.getValue().get(0));
+    }
+
+    @Test
+    void cancelDropsPendingUpdate() {
+        // Act
+        positionBuffer.stage(1L, 10, 10);
+        positionBuffer.cancel(1L);
+        positionBuffer.flush();
+
+        // Assert
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void missingNoteIsNotStaged() {
+        // Arrange
+        when(noteRepository.findById(eq(99L))).thenReturn(Optional.empty());
+
+        // Act / Assert
+        assertTrue(positionBuffer.stage(99L, 1, 1).isEmpty());
+        assertEquals(0, positionBuffer.getPendingCount());
+    }
+
+    @Test
+    void remoteDeleteDropsThePendingMove() {
+        // Arrange
+        positionBuffer.stage(1L, 10, 10);
+
+        // Act: the note is deleted on another instance
+        positionBuffer.onNoteChanged(NoteChangedEvent.deleted(note(1L, "drag me", 0)).asRemote());
+        positionBuffer.flush();
+
+        // Assert: nothing written, and the next move checks the database again
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        assertEquals(0, positionBuffer.getPendingCount());
+        when(noteRepository.findById(eq(1L))).thenReturn(Optional.empty());
+        assertTrue(positionBuffer.stage(1L, 20, 20).isEmpty());
+    }
+
+    @Test
+    void remoteUpdateRefreshesTheBufferedCopy() {
+        // Arrange
+        positionBuffer.stage(1L, 10, 10);
+
+        // Act: the note is edited on another instance
+        positionBuffer.onNoteChanged(NoteChangedEvent.of(note(1L, "edited", 4)).asRemote());
+        Note moved = positionBuffer.stage(1L, 20, 20).orElseThrow();
+
+        // Assert
+        assertEquals("edited", moved.getText());
+        assertEquals(4L, moved.getVersion());
+        assertEquals(20, moved.getX());
+        verify(noteRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void moveOfANoteDeletedBeforeTheFlushIsNotPublished() {
+        // Arrange: the row is gone by the time the batch runs
+        positionBuffer.stage(1L, 10, 10);
+        positionBuffer.stage(2L, 10, 10);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> rows = invocation.getArgument(1);
+            return rows.stream().mapToInt(row -> row[2].equals(1L) ? 0 : 1).toArray();
+        });
+
+        // Act
+        positionBuffer.flush();
+
+        // Assert: only the existing note's move is published
+        ArgumentCaptor<NoteChangedEvent> published = ArgumentCaptor.forClass(NoteChangedEvent.class);
+        verify(eventPublisher).publishEvent(published.capture());
+        assertEquals(2L, published.getValue().getNoteId());
+        assertEquals(0, positionBuffer.getPendingCount());
+    }
+}
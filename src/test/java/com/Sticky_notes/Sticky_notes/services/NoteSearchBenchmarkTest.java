@@ -0,0 +1,104 @@
+package com.Sticky_notes.Sticky_notes.services;
+
+import com.Sticky_notes.Sticky_notes.repository.NoteRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares NoteSearchIndex with the LIKE '%q%' query it replaces. The note
+ * count defaults to one million and can be changed with -Dbenchmark.notes.
+ * Run with: mvn test -Pbenchmark -Dfrontend.skip=true
+ */
+@Tag("benchmark")
+@DataJpaTest(properties = {"spring.jpa.show-sql=false", "logging.level.com.Sticky_notes=INFO"})
+@ActiveProfiles("test")
+@Import(NoteSearchIndex.class)
+class NoteSearchBenchmarkTest {
+
+    private static final int NOTES = Integer.getInteger("benchmark.notes", 1_000_000);
+    private static final int VOCABULARY = 20_000;
+    private static final int QUERIES = 20;
+    private static final String[] SYLLABLES = { "ka", "lo", "mi", "ne", "ru", "sa", "to", "vi", "ze", "po", "da", "fe" };
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private NoteSearchIndex searchIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static String word(Random random) {
+        StringBuilder word = new StringBuilder();
+        int syllables = 2 + random.nextInt(3);
+        for (int i = 0; i < syllables; i++) {
+            word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return word.toString();
+    }
+
+    @Test
+    void indexVersusLikeQuery() {
+        Random random = new Random(42);
+        List<String> vocabulary = new ArrayList<>(VOCABULARY);
+        for (int i = 0; i < VOCABULARY; i++) {
+            vocabulary.add(word(random));
+        }
+
+        List<Object[]> rows = new ArrayList<>(10_000);
+        for (int i = 0; i < NOTES; i++) {
+            StringBuilder text = new StringBuilder();
+            int words = 3 + random.nextInt(8);
+            for (int w = 0; w < words; w++) {
+                text.append(w > 0 ? " " : "").append(vocabulary.get(random.nextInt(VOCABULARY)));
+            }
+            rows.add(new Object[] { 0, 0, text.toString(), false, "user" + (i % 5000), i % 3 == 0, "main" });
+            if (rows.size() == 10_000 || i == NOTES - 1) {
+                jdbcTemplate.batchUpdate(
+                    "INSERT INTO note (x, y, text, done, username, is_private, board_type) VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+        searchIndex.rebuild();
+        assertEquals(NOTES, searchIndex.size());
+
+        List<String> queries = new ArrayList<>();
+        for (int i = 0; i < QUERIES; i++) {
+            queries.add(vocabulary.get(random.nextInt(VOCABULARY)));
+        }
+
+        // Warm up both paths
+        noteRepository.findByTextContainingIgnoreCase(queries.get(0));
+        searchIndex.search(queries.get(0), null, null, null, 0, 50);
+
+        long likeNanos = 0;
+        long indexNanos = 0;
+        int likeMatches = 0;
+        int indexMatches = 0;
+        for (String query : queries) {
+            long start = System.nanoTime();
+            likeMatches += noteRepository.findByTextContainingIgnoreCase(query).size();
+            likeNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            indexMatches += searchIndex.search(query, "user1", null, null, 0, 50).size();
+            indexNanos += System.nanoTime() - start;
+        }
+
+        System.out.printf("%d notes, %d queries: LIKE %.2f ms/query (%d rows), index %.3f ms/query (%d ids, first page)%n",
+            NOTES, QUERIES, likeNanos / 1e6 / QUERIES, likeMatches, indexNanos / 1e6 / QUERIES, indexMatches);
+        assertTrue(indexNanos < likeNanos, "Index search should beat the LIKE scan");
+    }
+}
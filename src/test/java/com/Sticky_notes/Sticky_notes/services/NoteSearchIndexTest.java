@@ -0,0 +1,87 @@
+package com.Sticky_notes.Sticky_notes.services;
+
+import com.Sticky_notes.Sticky_notes.models.Note;
+import com.Sticky_notes.Sticky_notes.realtime.NoteChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NoteSearchIndexTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private NoteSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        searchIndex = new NoteSearchIndex(jdbcTemplate);
+        searchIndex.index(note(1, "alice", false, "Buy groceries for the weekend"));
+        searchIndex.index(note(2, "alice", true, "Groceries: secret birthday cake"));
+        searchIndex.index(note(3, "bob", false, "groceries"));
+        searchIndex.index(note(4, "bob", false, "Grocery list and a very long note about many other unrelated things"));
+    }
+
+    private Note note(long id, String username, boolean isPrivate, String text) {
+        Note note = new Note();
+        note.setId(id);
+        note.setUsername(username);
+        note.setIsPrivate(isPrivate);
+        note.setBoardType("main");
+        note.setText(text);
+        return note;
+    }
+
+    @Test
+    void prefixMatchesAndRanksExactShortNotesFirst() {
+        // Act
+        List<Long> ids = searchIndex.search("groc", null, null, null, 0, 10);
+
+        // Assert: "groceries" alone beats the longer notes
+        assertEquals(List.of(3L, 1L, 4L), ids);
+    }
+
+    @Test
+    void privateNotesOnlyReachTheirOwner() {
+        // Act / Assert
+        assertFalse(searchIndex.search("cake", null, null, null, 0, 10).contains(2L));
+        assertFalse(searchIndex.search("cake", "bob", null, null, 0, 10).contains(2L));
+        assertEquals(List.of(2L), searchIndex.search("cake", "alice", null, null, 0, 10));
+    }
+
+    @Test
+    void allTermsMustMatchAndOwnerFilterApplies() {
+        // Act / Assert
+        assertEquals(List.of(1L), searchIndex.search("groceries weekend", null, null, null, 0, 10));
+        assertEquals(List.of(3L, 4L), searchIndex.search("groc", null, "bob", null, 0, 10));
+    }
+
+    @Test
+    void pagesDoNotOverlap() {
+        // Act
+        List<Long> first = searchIndex.search("groc", null, null, null, 0, 2);
+        List<Long> second = searchIndex.search("groc", null, null, null, 2, 2);
+
+        // Assert
+        assertEquals(2, first.size());
+        assertEquals(List.of(4L), second);
+    }
+
+    @Test
+    void deletedNotesDisappearAndMovesAreIgnored() {
+        // Act
+        searchIndex.onNoteChanged(NoteChangedEvent.deleted(note(3, "bob", false, "groceries")));
+        searchIndex.onNoteChanged(NoteChangedEvent.moved(1L, 5, 5));
+
+        // Assert
+        assertEquals(List.of(1L, 4L), searchIndex.search("groc", null, null, null, 0, 10));
+        assertEquals(3, searchIndex.size());
+    }
+}
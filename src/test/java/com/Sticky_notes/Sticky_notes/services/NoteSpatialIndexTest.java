@@ -0,0 +1,149 @@
+package com.Sticky_notes.Sticky_notes.services;
+
+import com.Sticky_notes.Sticky_notes.models.Note;
+import com.Sticky_notes.Sticky_notes.realtime.NoteChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NoteSpatialIndexTest {
+
+    private static final int BOARD_NOTES = 100_000;
+    private static final int BOARD_SIZE = 50_000;
+    private static final int VIEW_WIDTH = 1920;
+    private static final int VIEW_HEIGHT = 1080;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private NoteSpatialIndex spatialIndex;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        spatialIndex = new NoteSpatialIndex(jdbcTemplate, 512);
+    }
+
+    private Note note(long id, int x, int y, String username, boolean isPrivate) {
+        Note note = new Note();
+        note.setId(id);
+        note.setX(x);
+        note.setY(y);
+        note.setUsername(username);
+        note.setIsPrivate(isPrivate);
+        note.setBoardType("main");
+        return note;
+    }
+
+    private long percentile(long[] sortedNanos, double percentile) {
+        return sortedNanos[(int) Math.min(sortedNanos.length - 1, Math.floor(sortedNanos.length * percentile))];
+    }
+
+    @Test
+    void panAndZoomOverAHundredThousandNotes() {
+        // Arrange: a large main board
+        Random random = new Random(7);
+        int[][] positions = new int[BOARD_NOTES + 1][];
+        for (int id = 1; id <= BOARD_NOTES; id++) {
+            positions[id] = new int[] { random.nextInt(BOARD_SIZE), random.nextInt(BOARD_SIZE) };
+            spatialIndex.index(note(id, positions[id][0], positions[id][1], "user" + (id % 100), false));
+        }
+
+        // Act: pan across the board at 1:1, then zoom out from the centre
+        List<long[]> rectangles = new ArrayList<>();
+        for (int step = 0; step < 200; step++) {
+            int x = step * 200;
+            int y = step * 100;
+            rectangles.add(new long[] { x, y, x + VIEW_WIDTH, y + VIEW_HEIGHT });
+        }
+        int panQueries = rectangles.size();
+        for (int zoom = 1; zoom <= 50; zoom++) {
+            int halfWidth = VIEW_WIDTH * zoom / 2;
+            int halfHeight = VIEW_HEIGHT * zoom / 2;
+            int centre = BOARD_SIZE / 2;
+            rectangles.add(new long[] { centre - halfWidth, centre - halfHeight, centre + halfWidth, centre + halfHeight });
+        }
+
+        // Warm up so the timings below measure the index rather than the JIT
+        for (long[] r : rectangles) {
+            spatialIndex.query("main", null, (int) r[0], (int) r[1], (int) r[2], (int) r[3], Integer.MAX_VALUE);
+        }
+
+        long[] panNanos = new long[panQueries];
+        long[] zoomNanos = new long[rectangles.size() - panQueries];
+        for (int i = 0; i < rectangles.size(); i++) {
+            long[] r = rectangles.get(i);
+            long start = System.nanoTime();
+            List<Long> ids = spatialIndex.query("main", null, (int) r[0], (int) r[1], (int) r[2], (int) r[3], Integer.MAX_VALUE);
+            long elapsed = System.nanoTime() - start;
+            if (i < panQueries) {
+                panNanos[i] = elapsed;
+            } else {
+                zoomNanos[i - panQueries] = elapsed;
+            }
+
+            // Assert: same result as a brute-force scan
+            long expected = 0;
+            for (int id = 1; id <= BOARD_NOTES; id++) {
+                if (positions[id][0] >= r[0] && positions[id][0] <= r[2] && positions[id][1] >= r[1] && positions[id][1] <= r[3]) {
+                    expected++;
+                }
+            }
+            assertEquals(expected, ids.size(), "rectangle " + Arrays.toString(r));
+        }
+
+        Arrays.sort(panNanos);
+        Arrays.sort(zoomNanos);
+        System.out.printf("Viewport over %d notes: pan p50 %.3f ms p99 %.3f ms, zoom p50 %.3f ms p99 %.3f ms%n",
+            BOARD_NOTES, percentile(panNanos, 0.5) / 1e6, percentile(panNanos, 0.99) / 1e6,
+            percentile(zoomNanos, 0.5) / 1e6, percentile(zoomNanos, 0.99) / 1e6);
+    }
+
+    @Test
+    void privateNotesOnlyReachTheirOwner() {
+        // Arrange
+        spatialIndex.index(note(1, 10, 10, "alice", true));
+        spatialIndex.index(note(2, 20, 20, "bob", false));
+
+        // Act / Assert
+        assertEquals(List.of(2L), spatialIndex.query("main", null, 0, 0, 100, 100, 10));
+        assertEquals(List.of(2L, 1L), spatialIndex.query("main", "alice", 0, 0, 100, 100, 10));
+    }
+
+    @Test
+    void movesAndDeletesKeepTheIndexCurrent() {
+        // Arrange
+        spatialIndex.index(note(1, 10, 10, "alice", false));
+        spatialIndex.index(note(2, 20, 20, "alice", false));
+
+        // Act: a write-behind move without the owner loaded, and a delete
+        spatialIndex.onNoteChanged(NoteChangedEvent.moved(1L, 5000, 5000));
+        spatialIndex.onNoteChanged(NoteChangedEvent.deleted(note(2, 20, 20, "alice", false)));
+
+        // Assert
+        assertTrue(spatialIndex.query("main", null, 0, 0, 100, 100, 10).isEmpty());
+        assertEquals(List.of(1L), spatialIndex.query("main", null, 4000, 4000, 6000, 6000, 10));
+        assertEquals(1, spatialIndex.size());
+    }
+
+    @Test
+    void profileBoardsAreSeparate() {
+        // Arrange
+        Note profileNote = note(3, 10, 10, "alice", false);
+        profileNote.setBoardType("profile");
+        spatialIndex.index(profileNote);
+
+        // Act / Assert
+        assertTrue(spatialIndex.query("main", null, 0, 0, 100, 100, 10).isEmpty());
+        assertEquals(List.of(3L), spatialIndex.query(NoteSpatialIndex.boardKey("profile", "alice"), null, 0, 0, 100, 100, 10));
+    }
+}
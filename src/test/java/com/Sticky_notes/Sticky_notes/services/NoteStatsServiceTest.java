@@ -0,0 +1,229 @@
+package com.Sticky_notes.Sticky_notes.services;
+
+import com.Sticky_notes.Sticky_notes.models.Note;
+import com.Sticky_notes.Sticky_notes.payload.request.NoteBatchRequest;
+import com.Sticky_notes.Sticky_notes.payload.response.UserNoteStats;
+import com.Sticky_notes.Sticky_notes.repository.NoteRepository;
+import com.Sticky_notes.Sticky_notes.repository.NoteStatsRepository;
+import com.Sticky_notes.Sticky_notes.repository.NoteTombstoneRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.IllegalTransactionStateException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class NoteStatsServiceTest {
+
+    @Autowired
+    private NoteStatsService noteStats;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private NoteBatchService noteBatchService;
+
+    @Autowired
+    private NoteChangeLog changeLog;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private NoteStatsRepository statsRepository;
+
+    @Autowired
+    private NoteTombstoneRepository tombstoneRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    @AfterEach
+    void clean() {
+        noteRepository.deleteAll();
+        tombstoneRepository.deleteAll();
+        statsRepository.deleteAll();
+    }
+
+    private Note newNote(String username, String boardType, boolean isPrivate) {
+        Note note = new Note();
+        note.setX(1);
+        note.setY(2);
+        note.setText("counted");
+        note.setUsername(username);
+        note.setIsPrivate(isPrivate);
+        note.setBoardType(boardType);
+        return note;
+    }
+
+    // What the counters should say, straight from the note table
+    private UserNoteStats counted(String username) {
+        List<Note> notes = noteRepository.findByUsername(username);
+        long privateCount = notes.stream().filter(Note::getIsPrivate).count();
+        long main = notes.stream().filter(note -> note.getBoardType().equals("main")).count();
+        long profile = notes.size() - main;
+        return new UserNoteStats(notes.size(), privateCount, notes.size() - privateCount,
+            notes.stream().filter(Note::isDone).count(),
+            Map.of("main", main, "profile", profile));
+    }
+
+    private void assertStats(UserNoteStats expected, UserNoteStats actual) {
+        assertEquals(expected.total(), actual.total());
+        assertEquals(expected.privateCount(), actual.privateCount());
+        assertEquals(expected.publicCount(), actual.publicCount());
+        assertEquals(expected.doneCount(), actual.doneCount());
+        expected.byBoard().forEach((board, count) ->
+            assertEquals(count, actual.byBoard().getOrDefault(board, 0L), "notes on " + board));
+    }
+
+    @Test
+    void everyWritePathKeepsTheCountersExact() {
+        // Arrange / Act: single creates, done, delete
+        Note a = noteService.create(newNote("alice", "main", false));
+        Note b = noteService.create(newNote("alice", "profile", true));
+        Note c = noteService.create(newNote("alice", "profile", false));
+        noteService.create(newNote("bob", "main", false));
+        noteService.markDone(a.getId(), null);
+        noteService.markDone(a.getId(), null); // already done: counted once
+        changeLog.delete(c);
+
+        // Batch: create, done flips both ways, delete
+        noteService.markDone(b.getId(), null);
+        NoteBatchRequest request = new NoteBatchRequest();
+        request.setCreate(List.of(newNote("alice", "main", true)));
+        NoteBatchRequest.NoteUpdate undo = new NoteBatchRequest.NoteUpdate();
+        undo.setId(b.getId());
+        undo.setDone(false);
+        request.setUpdate(List.of(undo));
+        request.setDelete(List.of(a.getId()));
+        noteBatchService.apply(request);
+
+        // Assert
+        UserNoteStats alice = noteStats.forUser("alice");
+        assertStats(counted("alice"), alice);
+        assertEquals(2, alice.total());
+        assertEquals(2, alice.privateCount());
+        assertEquals(0, alice.doneCount());
+        assertStats(counted("bob"), noteStats.forUser("bob"));
+        assertEquals(0, noteStats.forUser("nobody").total());
+    }
+
+    @Test
+    void concurrentWritersNeverLoseAnIncrement() throws Exception {
+        // Arrange
+        int writers = 8;
+        int notesPerWriter = 25;
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+
+        // Act: all writers add to the same counter row, half the notes are then marked done
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < notesPerWriter; i++) {
+                        Note note = noteService.create(newNote("busy", "main", i % 3 == 0));
+                        if (i % 2 == 0) {
+                            noteService.markDone(note.getId(), null);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Assert
+        UserNoteStats busy = noteStats.forUser("busy");
+        assertEquals(writers * notesPerWriter, busy.total());
+        assertStats(counted("busy"), busy);
+    }
+
+    @Test
+    void rebuildRepairsDriftedCounters() {
+        // Arrange: counters corrupted and a note written behind the service's back
+        noteService.create(newNote("carol", "main", true));
+        noteService.create(newNote("carol", "profile", false));
+        noteRepository.save(newNote("carol", "profile", false));
+        jdbcTemplate.update("UPDATE note_stats SET note_count = 42, done_count = 7 WHERE username = 'carol'");
+
+        // Act
+        noteStats.rebuild();
+
+        // Assert
+        UserNoteStats carol = noteStats.forUser("carol");
+        assertEquals(3, carol.total());
+        assertStats(counted("carol"), carol);
+    }
+
+    @Test
+    void concurrentRebuildsDoNotCollide() throws Exception {
+        // Arrange: enough users that rebuilds take a while, and drifted counters
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            rows.add(new Object[] { "user" + (i % 1000), i % 4 < 2 ? "main" : "profile", i % 3 == 0 });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO note (x, y, text, done, username, board_type, is_private) "
+            + "VALUES (1, 2, 'counted', false, ?, ?, ?)", rows);
+        int rebuilders = 4;
+        int rounds = 5;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(rebuilders);
+
+        // Act: scheduled and startup rebuilds overlapping
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int r = 0; r < rebuilders; r++) {
+                boolean startup = r % 2 == 0;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < rounds; i++) {
+                        if (startup) {
+                            noteStats.rebuildIfEmpty();
+                        } else {
+                            noteStats.rebuild();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Assert: no run failed on the unique key, and the counters match the notes
+        assertEquals(1000, statsRepository.count());
+        assertStats(counted("user7"), noteStats.forUser("user7"));
+        assertStats(counted("user498"), noteStats.forUser("user498"));
+    }
+
+    @Test
+    void countersOnlyChangeInsideTheWritersTransaction() {
+        assertThrows(IllegalTransactionStateException.class, () -> noteStats.noteAdded(newNote("dave", "main", false)));
+        assertEquals(0, noteStats.forUser("dave").total());
+    }
+}